@@ -0,0 +1,37 @@
+// Concurrent document downloads against a running DMS instance (k6, https://k6.io).
+//
+// Run once with SPRING_THREADS_VIRTUAL_ENABLED=false and once with =true on the
+// same machine and data, then compare http_reqs/s and http_req_duration:
+//
+//   k6 run -e BASE_URL=http://localhost:8080/dms -e DOCUMENT_ID=<uuid> -e TOKEN=<jwt> dev/loadtest/downloads.js
+//
+// Use the "local" profile (no authentication) or pass a valid bearer token.
+// With the JDK_JAVA_OPTIONS=-Djdk.tracePinnedThreads=short env var the server
+// prints a stack trace whenever a virtual thread is pinned to its carrier.
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080/dms';
+const DOCUMENT_ID = __ENV.DOCUMENT_ID;
+const TOKEN = __ENV.TOKEN;
+
+export const options = {
+  scenarios: {
+    downloads: {
+      executor: 'constant-vus',
+      vus: Number(__ENV.VUS || 2000),
+      duration: __ENV.DURATION || '2m',
+    },
+  },
+  summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+};
+
+export default function () {
+  const params = {
+    headers: TOKEN ? { Authorization: `Bearer ${TOKEN}` } : {},
+    responseType: 'none',
+    timeout: '120s',
+  };
+  const res = http.get(`${BASE_URL}/v1/documents/${DOCUMENT_ID}/download`, params);
+  check(res, { 'status is 200': (r) => r.status === 200 });
+}
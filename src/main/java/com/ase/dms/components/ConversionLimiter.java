@@ -0,0 +1,101 @@
+package com.ase.dms.components;
+
+import com.ase.dms.config.OfficePoolConfig;
+import com.ase.dms.exceptions.ConversionQueueFullException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jodconverter.core.office.OfficeException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounds the number of conversions in front of the office pool.
+ * At most poolSize conversions run and maxQueueSize wait for a free office
+ * process; everything beyond that is rejected immediately so Tomcat threads
+ * do not pile up behind LibreOffice.
+ * The gauges describe the pool as a whole, not single office processes.
+ * jodconverter's LocalOfficeManager hands each task to whichever process is
+ * free and keeps its process entries private, so neither the process that
+ * runs a conversion nor the state of a single process is visible here.
+ * Gauges per port would need one office manager per port, with the
+ * dispatch between them done by this class.
+ */
+@Component
+public class ConversionLimiter {
+
+  /**
+   * A unit of work executed on the office pool.
+   *
+   * @param <T> the result type
+   */
+  @FunctionalInterface
+  public interface ConversionTask<T> {
+    T run() throws OfficeException;
+  }
+
+  private final int poolSize;
+  private final long retryAfterSeconds;
+  private final Semaphore permits;
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final Counter rejected;
+  private final Timer duration;
+
+  public ConversionLimiter(OfficePoolConfig poolConfig, MeterRegistry meterRegistry) {
+    this.poolSize = poolConfig.getPoolSize();
+    this.retryAfterSeconds = poolConfig.getRetryAfterSeconds();
+    this.permits = new Semaphore(poolSize + Math.max(0, poolConfig.getMaxQueueSize()));
+
+    Gauge.builder("dms.conversion.active", this, ConversionLimiter::getActive)
+        .description("Conversions currently running on an office process")
+        .register(meterRegistry);
+    Gauge.builder("dms.conversion.queued", this, ConversionLimiter::getQueued)
+        .description("Conversions waiting for a free office process")
+        .register(meterRegistry);
+    Gauge.builder("dms.conversion.utilization", this, ConversionLimiter::getUtilization)
+        .description("Share of office processes that are busy (0..1), for the whole pool")
+        .register(meterRegistry);
+    this.rejected = Counter.builder("dms.conversion.rejected")
+        .description("Conversions rejected because the queue was full")
+        .register(meterRegistry);
+    this.duration = Timer.builder("dms.conversion.duration")
+        .description("Time from admission to finished conversion")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Runs the task if there is room in the pool or queue.
+   *
+   * @throws ConversionQueueFullException if the queue is full
+   */
+  public <T> T execute(ConversionTask<T> task) throws OfficeException {
+    if (!permits.tryAcquire()) {
+      rejected.increment();
+      throw new ConversionQueueFullException(retryAfterSeconds);
+    }
+    inFlight.incrementAndGet();
+    Timer.Sample sample = Timer.start();
+    try {
+      return task.run();
+    }
+    finally {
+      sample.stop(duration);
+      inFlight.decrementAndGet();
+      permits.release();
+    }
+  }
+
+  public int getActive() {
+    return Math.min(inFlight.get(), poolSize);
+  }
+
+  public int getQueued() {
+    return Math.max(0, inFlight.get() - poolSize);
+  }
+
+  public double getUtilization() {
+    return (double) getActive() / poolSize;
+  }
+}
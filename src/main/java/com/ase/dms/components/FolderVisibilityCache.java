@@ -0,0 +1,114 @@
+package com.ase.dms.components;
+
+import com.ase.dms.helpers.LruCache;
+import com.ase.dms.helpers.SingleFlight;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Per-cohort snapshots of the folder ids a student may see.
+ * Visibility only changes when folders are created, moved, regrouped or
+ * deleted, so listings check membership in a cached set instead of walking
+ * the folder tree on every request. Each folder write bumps a generation
+ * once it has committed: older snapshots are ignored, and a load that raced
+ * with a write does not store its result. The TTL bounds how long writes
+ * made by other instances stay invisible.
+ */
+@Component
+public class FolderVisibilityCache {
+
+  // Key for users without a cohort; they see exactly the public folders, like an empty cohort would
+  private static final String NO_COHORT = "";
+
+  private record Snapshot(Set<String> folderIds, long generation, long loadedAt) {
+  }
+
+  private final LruCache<String, Snapshot> snapshots;
+  private final SingleFlight<String, Snapshot> loads = new SingleFlight<>();
+  private final AtomicLong generation = new AtomicLong();
+  private final long ttlNanos;
+  private final Counter hits;
+  private final Counter misses;
+
+  public FolderVisibilityCache(@Value("${folders.visibility.ttl:PT1M}") Duration ttl,
+                               @Value("${folders.visibility.max-cohorts:256}") int maxCohorts,
+                               MeterRegistry meterRegistry) {
+    this.snapshots = new LruCache<>(maxCohorts);
+    this.ttlNanos = ttl.toNanos();
+    Gauge.builder("dms.folders.visibility.cohorts", snapshots, LruCache::size)
+        .description("Cohorts with a cached visibility snapshot")
+        .register(meterRegistry);
+    this.hits = Counter.builder("dms.folders.visibility.hits")
+        .description("Visibility checks answered from a snapshot")
+        .register(meterRegistry);
+    this.misses = Counter.builder("dms.folders.visibility.misses")
+        .description("Visibility checks that had to evaluate the folder tree")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Returns the visible folder ids of a cohort, loading them if there is no
+   * current snapshot. Concurrent loads for the same cohort are coalesced.
+   *
+   * @param cohort the user's cohort, may be null
+   * @param loader evaluates visibility on the folder tree
+   * @return immutable set of visible folder ids
+   */
+  public Set<String> get(String cohort, Supplier<Set<String>> loader) {
+    String key = cohort == null ? NO_COHORT : cohort;
+    Snapshot snapshot = snapshots.get(key);
+    if (isCurrent(snapshot)) {
+      hits.increment();
+      return snapshot.folderIds();
+    }
+    misses.increment();
+    return loads.execute(key, () -> load(key, loader)).folderIds();
+  }
+
+  private Snapshot load(String key, Supplier<Set<String>> loader) {
+    long loadedGeneration = generation.get();
+    Snapshot snapshot = new Snapshot(Set.copyOf(loader.get()), loadedGeneration, System.nanoTime());
+    if (generation.get() == loadedGeneration) {
+      snapshots.put(key, snapshot);
+    }
+    return snapshot;
+  }
+
+  private boolean isCurrent(Snapshot snapshot) {
+    return snapshot != null
+        && snapshot.generation() == generation.get()
+        && System.nanoTime() - snapshot.loadedAt() < ttlNanos;
+  }
+
+  /**
+   * Drops all snapshots once the current transaction has committed,
+   * or right away if there is none.
+   */
+  public void invalidateAfterCommit() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          invalidateAll();
+        }
+      });
+    }
+    else {
+      invalidateAll();
+    }
+  }
+
+  public void invalidateAll() {
+    generation.incrementAndGet();
+    snapshots.invalidateAll();
+  }
+}
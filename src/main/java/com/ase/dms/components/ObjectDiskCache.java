@@ -0,0 +1,254 @@
+package com.ase.dms.components;
+
+import com.ase.dms.services.MinIOService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLEncoder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Read-through cache of MinIO objects on the pod's local disk.
+ * When a whole cohort downloads the same exam sheet, only the first request
+ * goes to MinIO; the others are served from a local file. Object keys are
+ * not overwritten (content-addressed blobs, document ids, hash-keyed
+ * renditions), so entries do not go stale; removed objects just age out.
+ * The one exception is a rendition converted again after it was removed,
+ * which may differ in size; a copy of the wrong size is dropped.
+ * A miss is served from MinIO right away and the object is downloaded into
+ * the cache in the background, at most once per key at a time. The space
+ * of a download is reserved before it starts, so files being written count
+ * against the limit too. Eviction is least-recently-used by total bytes.
+ * Any cache failure falls back to MinIO, the cache never fails a download.
+ * The directory is wiped on startup, so it is meant for ephemeral per-pod
+ * storage.
+ */
+@Slf4j
+@Component
+public class ObjectDiskCache {
+
+  private static final String PARTIAL_SUFFIX = ".part";
+  private static final int INITIAL_CAPACITY = 256;
+  private static final float LOAD_FACTOR = 0.75f;
+
+  private final MinIOService minIOService;
+  private final boolean enabled;
+  private final Path directory;
+  private final long maxBytes;
+  private final long maxObjectBytes;
+  private final Executor fillExecutor;
+  // Access-ordered: iteration starts at the least recently used entry; guarded by this
+  private final Map<String, Long> sizes = new LinkedHashMap<>(INITIAL_CAPACITY, LOAD_FACTOR, true);
+  // Keys being downloaded; their reserved bytes are part of usedBytes; guarded by this
+  private final Set<String> downloading = new HashSet<>();
+  private long usedBytes;
+  private final Counter hits;
+  private final Counter misses;
+  private final Counter bypassed;
+  private final Counter evictions;
+
+  public ObjectDiskCache(MinIOService minIOService,
+                         MeterRegistry meterRegistry,
+                         @Qualifier("objectCacheExecutor") Executor fillExecutor,
+                         @Value("${storage.disk-cache.enabled:false}") boolean enabled,
+                         @Value("${storage.disk-cache.directory:${java.io.tmpdir}/dms-object-cache}") Path directory,
+                         @Value("${storage.disk-cache.max-size:2GB}") DataSize maxSize,
+                         @Value("${storage.disk-cache.max-object-size:256MB}") DataSize maxObjectSize) {
+    this.minIOService = minIOService;
+    this.fillExecutor = fillExecutor;
+    this.directory = directory;
+    this.maxBytes = maxSize.toBytes();
+    this.maxObjectBytes = Math.min(maxObjectSize.toBytes(), maxBytes);
+    this.enabled = enabled && prepare(directory);
+
+    Gauge.builder("dms.object-cache.size", this, ObjectDiskCache::getUsedBytes)
+        .description("Bytes held by the local object cache")
+        .baseUnit(BaseUnits.BYTES)
+        .register(meterRegistry);
+    this.hits = requests(meterRegistry, "hit");
+    this.misses = requests(meterRegistry, "miss");
+    this.bypassed = requests(meterRegistry, "bypass");
+    this.evictions = Counter.builder("dms.object-cache.evictions")
+        .description("Objects removed from the local object cache to make room")
+        .register(meterRegistry);
+  }
+
+  private static Counter requests(MeterRegistry meterRegistry, String result) {
+    return Counter.builder("dms.object-cache.requests")
+        .description("Object reads by cache outcome")
+        .tag("result", result)
+        .register(meterRegistry);
+  }
+
+  // Starts from an empty directory; entries of a previous run are not indexed
+  private static boolean prepare(Path directory) {
+    try {
+      Files.createDirectories(directory);
+      try (Stream<Path> files = Files.list(directory)) {
+        for (Path file : (Iterable<Path>) files::iterator) {
+          Files.deleteIfExists(file);
+        }
+      }
+      return true;
+    }
+    catch (IOException e) {
+      log.warn("Object cache directory {} is not usable, caching disabled", directory, e);
+      return false;
+    }
+  }
+
+  /**
+   * Opens the cached copy of an object. On a miss the object is downloaded
+   * into the cache in the background and the caller reads it from MinIO.
+   * The caller reads with absolute positions (e.g. {@link FileChannel#transferTo})
+   * and must close the channel. A file evicted while open stays readable.
+   *
+   * @param objectName the object key
+   * @param size       the size of the object
+   * @return the cached copy, or empty if the object has to be read from MinIO
+   */
+  public Optional<FileChannel> open(String objectName, long size) {
+    if (!enabled || size > maxObjectBytes) {
+      bypassed.increment();
+      return Optional.empty();
+    }
+    Path cached = lookup(objectName, size);
+    if (cached != null) {
+      try {
+        FileChannel channel = FileChannel.open(cached);
+        hits.increment();
+        return Optional.of(channel);
+      }
+      catch (NoSuchFileException e) {
+        // Evicted between lookup and open
+      }
+      catch (IOException e) {
+        log.warn("Could not open cached object {}", objectName, e);
+        return Optional.empty();
+      }
+    }
+    misses.increment();
+    fill(objectName, size);
+    return Optional.empty();
+  }
+
+  // get (not containsKey) so that a hit moves the entry to the most recently used end
+  private synchronized Path lookup(String objectName, long size) {
+    Long cachedSize = sizes.get(objectName);
+    if (cachedSize == null) {
+      return null;
+    }
+    if (cachedSize != size) {
+      sizes.remove(objectName);
+      usedBytes -= cachedSize;
+      deleteQuietly(fileFor(objectName));
+      return null;
+    }
+    return fileFor(objectName);
+  }
+
+  private void fill(String objectName, long size) {
+    if (!reserve(objectName, size)) {
+      return;
+    }
+    try {
+      fillExecutor.execute(() -> download(objectName, size));
+    }
+    catch (RejectedExecutionException e) {
+      release(objectName, size);
+    }
+  }
+
+  // Makes room for the object before it is downloaded; false if it is already on its way or does not fit
+  private synchronized boolean reserve(String objectName, long size) {
+    if (downloading.contains(objectName) || sizes.containsKey(objectName)) {
+      return false;
+    }
+    evict(size);
+    if (usedBytes + size > maxBytes) {
+      return false;
+    }
+    downloading.add(objectName);
+    usedBytes += size;
+    return true;
+  }
+
+  private synchronized void release(String objectName, long reserved) {
+    downloading.remove(objectName);
+    usedBytes -= reserved;
+  }
+
+  private void download(String objectName, long reserved) {
+    Path target = fileFor(objectName);
+    Path partial = target.resolveSibling(target.getFileName() + PARTIAL_SUFFIX);
+    try (InputStream in = minIOService.openObject(objectName, 0, null)) {
+      Files.copy(in, partial, StandardCopyOption.REPLACE_EXISTING);
+      Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      add(objectName, reserved, Files.size(target));
+    }
+    catch (IOException | RuntimeException e) {
+      log.warn("Could not cache object {}", objectName, e);
+      deleteQuietly(partial);
+      release(objectName, reserved);
+    }
+  }
+
+  private synchronized void add(String objectName, long reserved, long size) {
+    downloading.remove(objectName);
+    sizes.put(objectName, size);
+    usedBytes += size - reserved;
+    evict(0);
+  }
+
+  // Removes least recently used entries until the given number of bytes fits in addition
+  private void evict(long needed) {
+    Iterator<Map.Entry<String, Long>> eldest = sizes.entrySet().iterator();
+    while (usedBytes + needed > maxBytes && eldest.hasNext()) {
+      Map.Entry<String, Long> entry = eldest.next();
+      eldest.remove();
+      usedBytes -= entry.getValue();
+      deleteQuietly(fileFor(entry.getKey()));
+      evictions.increment();
+    }
+  }
+
+  // Object names contain slashes (renditions/pdf/...), so they are encoded into a flat file name
+  private Path fileFor(String objectName) {
+    return directory.resolve(URLEncoder.encode(objectName, StandardCharsets.UTF_8));
+  }
+
+  private static void deleteQuietly(Path file) {
+    try {
+      Files.deleteIfExists(file);
+    }
+    catch (IOException e) {
+      log.warn("Could not delete cached object file {}", file, e);
+    }
+  }
+
+  public synchronized long getUsedBytes() {
+    return usedBytes;
+  }
+}
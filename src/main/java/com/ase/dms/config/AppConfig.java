@@ -1,16 +1,38 @@
 package com.ase.dms.config;
 
+import java.net.http.HttpClient;
+import java.net.http.HttpTimeoutException;
+import java.util.concurrent.CancellationException;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.web.client.RestTemplate;
 
 @Configuration
 public class AppConfig {
+    /**
+     * RestTemplate for the user service on the JDK HTTP client, which keeps
+     * connections alive and reuses them. Strict timeouts keep a slow user
+     * service from tying up request threads.
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        RestTemplate rt = new RestTemplate();
+    public RestTemplate restTemplate(UserServiceConfig userServiceConfig) {
+        UserServiceConfig.Http http = userServiceConfig.getHttp();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(userServiceHttpClient(http));
+        requestFactory.setReadTimeout(http.getReadTimeout());
+        RestTemplate rt = new RestTemplate(requestFactory);
+        // At the read timeout the request is cancelled; depending on timing the cancellation
+        // surfaces as is instead of as an I/O error, which callers expect from a timeout
+        rt.getInterceptors().add((request, body, execution) -> {
+            try {
+                return execution.execute(request, body);
+            }
+            catch (CancellationException e) {
+                throw new HttpTimeoutException("Request to " + request.getURI() + " timed out");
+            }
+        });
         rt.getInterceptors().add((request, body, execution) -> {
         var auth = SecurityContextHolder.getContext().getAuthentication();
         if (auth instanceof JwtAuthenticationToken jwtAuth) {
@@ -21,4 +43,12 @@ public class AppConfig {
         });
         return rt;
     }
+
+    static HttpClient userServiceHttpClient(UserServiceConfig.Http http) {
+        return HttpClient.newBuilder()
+            // HTTP/1.1 connections are pooled per host; concurrency is capped by max-concurrent-calls
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(http.getConnectTimeout())
+            .build();
+    }
 }
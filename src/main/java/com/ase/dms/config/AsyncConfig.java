@@ -0,0 +1,87 @@
+package com.ase.dms.config;
+
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Executors for background work that must not run on request threads.
+ * With spring.threads.virtual.enabled the pools keep their size limits but
+ * run their tasks on virtual threads.
+ */
+@Configuration
+public class AsyncConfig {
+
+  private static final int USER_REFRESH_QUEUE_CAPACITY = 100;
+  private static final int OBJECT_CACHE_QUEUE_CAPACITY = 100;
+
+  private final boolean virtualThreads;
+
+  public AsyncConfig(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+    this.virtualThreads = virtualThreads;
+  }
+
+  /**
+   * Bounded executor for rendition jobs. When the queue is full new jobs are
+   * rejected and stay QUEUED in the database until the sweeper resubmits them.
+   */
+  @Bean(destroyMethod = "shutdown")
+  public ThreadPoolTaskExecutor renditionExecutor(
+      OfficePoolConfig poolConfig,
+      @Value("${office.jobs.queue-capacity:100}") int queueCapacity) {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(poolConfig.getPoolSize());
+    executor.setMaxPoolSize(poolConfig.getPoolSize());
+    executor.setQueueCapacity(queueCapacity);
+    executor.setThreadNamePrefix("rendition-");
+    applyVirtualThreads(executor, "rendition-");
+    executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+    executor.initialize();
+    return executor;
+  }
+
+  /**
+   * Refreshes stale user lookups. A refresh that does not fit in the queue is
+   * rejected; the stale entry is served until a later request retries.
+   */
+  @Bean(destroyMethod = "shutdown")
+  public ThreadPoolTaskExecutor userRefreshExecutor() {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(1);
+    executor.setMaxPoolSize(2);
+    executor.setQueueCapacity(USER_REFRESH_QUEUE_CAPACITY);
+    executor.setThreadNamePrefix("user-refresh-");
+    applyVirtualThreads(executor, "user-refresh-");
+    executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+    executor.initialize();
+    return executor;
+  }
+
+  /**
+   * Fills the local object cache after a miss. A fill that does not fit in the
+   * queue is rejected; the object is cached on a later miss.
+   */
+  @Bean(destroyMethod = "shutdown")
+  public ThreadPoolTaskExecutor objectCacheExecutor(
+      @Value("${storage.disk-cache.fill-parallelism:2}") int parallelism) {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(parallelism);
+    executor.setMaxPoolSize(parallelism);
+    executor.setQueueCapacity(OBJECT_CACHE_QUEUE_CAPACITY);
+    executor.setThreadNamePrefix("object-cache-");
+    applyVirtualThreads(executor, "object-cache-");
+    executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+    executor.initialize();
+    return executor;
+  }
+
+  private void applyVirtualThreads(ThreadPoolTaskExecutor executor, String prefix) {
+    if (virtualThreads) {
+      ThreadFactory factory = Thread.ofVirtual().name(prefix, 0).factory();
+      executor.setThreadFactory(factory);
+    }
+  }
+}
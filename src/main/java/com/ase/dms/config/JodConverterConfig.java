@@ -9,6 +9,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.io.File;
+import java.util.Arrays;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,6 +18,7 @@ import org.springframework.context.annotation.Profile;
 /**
  * Provides beans for jodconverter: a started LocalOfficeManager and a DocumentConverter.
  * office.home can be provided via property `office.home` or environment variable `OFFICE_HOME`.
+ * Pool size, queue wait, execution timeout and process recycling come from {@link OfficePoolConfig}.
  */
 @Configuration
 @Profile("!test")
@@ -25,21 +27,27 @@ public class JodConverterConfig {
   private static final Logger LOGGER = LoggerFactory.getLogger(JodConverterConfig.class);
 
   @Bean(destroyMethod = "stop")
-  public LocalOfficeManager officeManager(@Value("${office.home:${OFFICE_HOME:}}") String officeHome) {
-    LOGGER.info("Configuring LocalOfficeManager with officeHome='{}'", officeHome);
-      LocalOfficeManager.Builder builder = LocalOfficeManager.builder();
-      if (officeHome != null && !officeHome.isBlank()) {
-          builder.officeHome(new File(officeHome));
-      }
-      LocalOfficeManager manager = builder.build();
-      // start manager now so that the bean is ready for conversions
-      try {
-          manager.start();
-      }
-      catch (OfficeException e) {
-          throw new IllegalStateException("Could not start LocalOfficeManager (officeHome='" + officeHome + "')", e);
-      }
-      return manager;
+  public LocalOfficeManager officeManager(@Value("${office.home:${OFFICE_HOME:}}") String officeHome,
+                                          OfficePoolConfig poolConfig) {
+    int[] ports = poolConfig.resolvePortNumbers();
+    LOGGER.info("Configuring LocalOfficeManager with officeHome='{}', ports={}", officeHome, Arrays.toString(ports));
+    LocalOfficeManager.Builder builder = LocalOfficeManager.builder()
+        .portNumbers(ports)
+        .taskQueueTimeout(poolConfig.getTaskQueueTimeout())
+        .taskExecutionTimeout(poolConfig.getTaskExecutionTimeout())
+        .maxTasksPerProcess(poolConfig.getMaxTasksPerProcess());
+    if (officeHome != null && !officeHome.isBlank()) {
+      builder.officeHome(new File(officeHome));
+    }
+    LocalOfficeManager manager = builder.build();
+    // start manager now so that the bean is ready for conversions
+    try {
+      manager.start();
+    }
+    catch (OfficeException e) {
+      throw new IllegalStateException("Could not start LocalOfficeManager (officeHome='" + officeHome + "')", e);
+    }
+    return manager;
   }
 
   @Bean
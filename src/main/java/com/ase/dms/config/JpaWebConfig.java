@@ -0,0 +1,30 @@
+package com.ase.dms.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Keeps the entity manager open for the whole request so controllers can
+ * serialize lazy folder contents, like Spring Boot's open-in-view (which is
+ * switched off in application.yaml in favour of this one).
+ * Hibernate holds a connection it acquired until the entity manager closes,
+ * so the synchronous pdf conversion is excluded: it would otherwise keep a
+ * pooled connection while it waits for an office process.
+ */
+@Configuration
+public class JpaWebConfig implements WebMvcConfigurer {
+
+  @Bean
+  public OpenEntityManagerInViewInterceptor openEntityManagerInViewInterceptor() {
+    return new OpenEntityManagerInViewInterceptor();
+  }
+
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    registry.addWebRequestInterceptor(openEntityManagerInViewInterceptor())
+        .excludePathPatterns("/v1/documents/*/pdfconverter");
+  }
+}
@@ -1,11 +1,20 @@
 package com.ase.dms.config;
 
+import io.minio.MinioAsyncClient;
 import io.minio.MinioClient;
+import io.minio.http.HttpUtils;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
 
 @Configuration
 @ConfigurationProperties(prefix = "minio")
@@ -13,19 +22,109 @@ import org.springframework.context.annotation.Configuration;
 @Setter
 public class MinioConfig {
 
+  // Same timeouts the SDK uses for its default client
+  private static final long TIMEOUT_MS = Duration.ofMinutes(5).toMillis();
+  private static final int DEFAULT_MAX_REQUESTS = 256;
+  private static final int DEFAULT_UPLOAD_PARALLELISM = 4;
+  private static final int DEFAULT_PART_ATTEMPTS = 3;
+  private static final long DEFAULT_PART_SIZE_MB = 16;
+  private static final long DEFAULT_MULTIPART_THRESHOLD_MB = 64;
+
   private String endpoint;
   private int port;
   private boolean tls;
   private String accessKey;
   private String accessSecret;
   private String bucketName;
+  /**
+   * Region the bucket lives in. Set so that presigning does not have to
+   * ask the server for it.
+   */
+  private String region = "us-east-1";
+  /**
+   * Base URL clients use to reach MinIO, e.g. https://files.example.org.
+   * Presigned URLs are signed for this host; defaults to the endpoint.
+   */
+  private String publicEndpoint;
+  /**
+   * Requests to MinIO in flight at once. The SDK runs every call through
+   * OkHttp's async dispatcher, whose default allows only 5 per host.
+   */
+  private int maxRequests = DEFAULT_MAX_REQUESTS;
+  private Upload upload = new Upload();
+
+  @Value("${spring.threads.virtual.enabled:false}")
+  @Getter(AccessLevel.NONE)
+  @Setter(AccessLevel.NONE)
+  private boolean virtualThreads;
 
   @Bean
-  public MinioClient minioClient() {
+  public OkHttpClient minioHttpClient() {
+    Dispatcher dispatcher = virtualThreads
+        ? new Dispatcher(Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("minio-", 0).factory()))
+        : new Dispatcher();
+    dispatcher.setMaxRequests(maxRequests);
+    dispatcher.setMaxRequestsPerHost(maxRequests);
+    return HttpUtils.newDefaultHttpClient(TIMEOUT_MS, TIMEOUT_MS, TIMEOUT_MS)
+        .newBuilder()
+        .dispatcher(dispatcher)
+        .build();
+  }
 
+  @Bean
+  public MinioClient minioClient() {
     return MinioClient.builder()
         .endpoint(endpoint, port, tls)
         .credentials(accessKey, accessSecret)
+        .httpClient(minioHttpClient())
         .build();
   }
+
+  /**
+   * Signs URLs that clients fetch directly from MinIO. The signature covers
+   * the host, so the client is built for the public endpoint; signing
+   * happens locally and never connects to it.
+   */
+  @Bean
+  public MinioClient presignClient() {
+    MinioClient.Builder builder = MinioClient.builder()
+        .credentials(accessKey, accessSecret)
+        .region(region);
+    if (publicEndpoint != null && !publicEndpoint.isBlank()) {
+      builder.endpoint(publicEndpoint);
+    }
+    else {
+      builder.endpoint(endpoint, port, tls);
+    }
+    return builder.build();
+  }
+
+  /**
+   * Exposes the multipart primitives the sync client hides, used to upload
+   * the parts of large objects concurrently. Shares the sync client's
+   * connection pool and dispatcher.
+   */
+  @Bean
+  public MinioAsyncClient minioAsyncClient() {
+    return MinioAsyncClient.builder()
+        .endpoint(endpoint, port, tls)
+        .credentials(accessKey, accessSecret)
+        .httpClient(minioHttpClient())
+        .build();
+  }
+
+  @Getter
+  @Setter
+  public static class Upload {
+    /** Objects at least this large are uploaded as parallel multipart uploads. */
+    private DataSize multipartThreshold = DataSize.ofMegabytes(DEFAULT_MULTIPART_THRESHOLD_MB);
+    /** Size of one part, raised if needed to stay within S3's 10,000 part limit. */
+    private DataSize partSize = DataSize.ofMegabytes(DEFAULT_PART_SIZE_MB);
+    /** Parts in flight per upload; memory per upload is parallelism times part size. */
+    private int parallelism = DEFAULT_UPLOAD_PARALLELISM;
+    /** Attempts per part before the whole upload is aborted. */
+    private int partAttempts = DEFAULT_PART_ATTEMPTS;
+    /** Pause before a failed part is sent again. */
+    private Duration partRetryDelay = Duration.ofSeconds(1);
+  }
 }
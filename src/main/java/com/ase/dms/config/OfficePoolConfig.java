@@ -0,0 +1,57 @@
+package com.ase.dms.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Sizing and limits of the LibreOffice process pool used for PDF conversion.
+ * One office process is started per port; without explicit ports the pool
+ * is sized to the available cores starting at {@code firstPort}.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "office.pool")
+@Getter
+@Setter
+public class OfficePoolConfig {
+
+  private static final int DEFAULT_FIRST_PORT = 2002;
+  private static final long DEFAULT_TASK_QUEUE_TIMEOUT_MS = 30_000L;
+  private static final long DEFAULT_TASK_EXECUTION_TIMEOUT_MS = 120_000L;
+  private static final int DEFAULT_MAX_TASKS_PER_PROCESS = 200;
+  private static final int DEFAULT_MAX_QUEUE_SIZE = 50;
+  private static final long DEFAULT_RETRY_AFTER_SECONDS = 10L;
+
+  /** Explicit office ports; overrides processCount/firstPort when set. */
+  private List<Integer> portNumbers = new ArrayList<>();
+  private int processCount = Runtime.getRuntime().availableProcessors();
+  private int firstPort = DEFAULT_FIRST_PORT;
+  /** Max time a task waits for a free office process (ms). */
+  private long taskQueueTimeout = DEFAULT_TASK_QUEUE_TIMEOUT_MS;
+  /** Max time a single conversion may run before it is aborted (ms). */
+  private long taskExecutionTimeout = DEFAULT_TASK_EXECUTION_TIMEOUT_MS;
+  /** Office processes are restarted after this many conversions. */
+  private int maxTasksPerProcess = DEFAULT_MAX_TASKS_PER_PROCESS;
+  /** Conversions allowed to wait on top of the running ones before we answer 503. */
+  private int maxQueueSize = DEFAULT_MAX_QUEUE_SIZE;
+  private long retryAfterSeconds = DEFAULT_RETRY_AFTER_SECONDS;
+
+  public int[] resolvePortNumbers() {
+    if (portNumbers != null && !portNumbers.isEmpty()) {
+      return portNumbers.stream().mapToInt(Integer::intValue).toArray();
+    }
+    int count = Math.max(1, processCount);
+    int[] ports = new int[count];
+    for (int i = 0; i < count; i++) {
+      ports[i] = firstPort + i;
+    }
+    return ports;
+  }
+
+  public int getPoolSize() {
+    return resolvePortNumbers().length;
+  }
+}
@@ -0,0 +1,57 @@
+package com.ase.dms.config;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Connection, caching and failure handling for calls to the user service.
+ * The user service sits on the path of every student folder request, so
+ * calls are short, pooled and cut off quickly when it misbehaves.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "userservice")
+@Getter
+@Setter
+public class UserServiceConfig {
+
+  private static final int DEFAULT_MAX_ENTRIES = 10_000;
+  private static final int DEFAULT_MAX_CONCURRENT_CALLS = 20;
+  private static final int DEFAULT_FAILURE_THRESHOLD = 5;
+
+  private String baseUrl = "https://sau-portal.de/team-11-api/api";
+  /** Token claim holding the cohort; when present the user service is not called. */
+  private String cohortClaim = "";
+  private Cache cache = new Cache();
+  private Http http = new Http();
+  private Circuit circuit = new Circuit();
+
+  @Getter
+  @Setter
+  public static class Cache {
+    private Duration ttl = Duration.ofMinutes(5);
+    /** How long an expired entry is still served while it is refreshed in the background. */
+    private Duration staleFor = Duration.ofHours(1);
+    private int maxEntries = DEFAULT_MAX_ENTRIES;
+  }
+
+  @Getter
+  @Setter
+  public static class Http {
+    private Duration connectTimeout = Duration.ofSeconds(1);
+    private Duration readTimeout = Duration.ofSeconds(2);
+    /** Calls allowed in flight at once; further lookups fall back to the cache. */
+    private int maxConcurrentCalls = DEFAULT_MAX_CONCURRENT_CALLS;
+  }
+
+  @Getter
+  @Setter
+  public static class Circuit {
+    /** Consecutive failures that open the circuit. */
+    private int failureThreshold = DEFAULT_FAILURE_THRESHOLD;
+    /** How long calls are skipped before one trial call is let through. */
+    private Duration openFor = Duration.ofSeconds(30);
+  }
+}
@@ -1,9 +1,18 @@
 package com.ase.dms.controllers;
 
+import com.ase.dms.components.ObjectDiskCache;
+import com.ase.dms.dtos.RenditionDTO;
+import com.ase.dms.dtos.UploadSessionDTO;
+import com.ase.dms.dtos.UploadSessionRequestDTO;
 import com.ase.dms.entities.DocumentEntity;
+import com.ase.dms.entities.RenditionJobEntity;
 import com.ase.dms.entities.TagEntity;
+import com.ase.dms.exceptions.MinIOObjectNotFoundException;
+import com.ase.dms.helpers.OfficeFormats;
 import com.ase.dms.services.DocumentService;
 import com.ase.dms.services.MinIOService;
+import com.ase.dms.services.RenditionJobService;
+import com.ase.dms.services.UploadSessionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -11,10 +20,27 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -22,22 +48,52 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 @RestController
 @RequestMapping("/v1/documents")
 @Tag(name = "Documents", description = "Document management operations")
 public class DocumentsController {
 
+  private static final long MILLIS_PER_SECOND = 1000L;
+
   private final DocumentService documentService;
   private final MinIOService minIOService;
+  private final RenditionJobService renditionJobService;
+  private final UploadSessionService uploadSessionService;
+  private final ObjectDiskCache objectCache;
+  private final boolean syncConversionFallback;
+  private final boolean redirectDownloads;
+  private final long redirectMinSize;
+  private final Duration redirectExpiry;
 
-  public DocumentsController(DocumentService documentService, MinIOService minIOService) {
+  public DocumentsController(DocumentService documentService, MinIOService minIOService,
+                             RenditionJobService renditionJobService, UploadSessionService uploadSessionService,
+                             ObjectDiskCache objectCache,
+                             @Value("${office.jobs.sync-fallback:true}") boolean syncConversionFallback,
+                             @Value("${storage.download.redirect.enabled:false}") boolean redirectDownloads,
+                             @Value("${storage.download.redirect.min-size:50MB}") DataSize redirectMinSize,
+                             @Value("${storage.download.redirect.expiry:PT5M}") Duration redirectExpiry) {
     this.documentService = documentService;
     this.minIOService = minIOService;
+    this.renditionJobService = renditionJobService;
+    this.uploadSessionService = uploadSessionService;
+    this.objectCache = objectCache;
+    this.syncConversionFallback = syncConversionFallback;
+    this.redirectDownloads = redirectDownloads;
+    this.redirectMinSize = redirectMinSize.toBytes();
+    this.redirectExpiry = redirectExpiry;
   }
 
   @Operation(summary = "Get document by ID")
@@ -68,6 +124,35 @@ public class DocumentsController {
     return ResponseEntity.status(HttpStatus.CREATED).body(doc);
   }
 
+  @Operation(summary = "Start a direct upload",
+      description = "Reserves a document id and returns a presigned URL the file is uploaded to with PUT, "
+          + "bypassing this service. Afterwards the upload is finished with POST "
+          + "/v1/documents/upload-sessions/{id}/complete before the session expires.")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "201", description = "Upload session created"),
+      @ApiResponse(responseCode = "400", ref = "#/components/responses/BadRequestResponse"),
+      @ApiResponse(responseCode = "404", description = "Folder or tag not found"),
+      @ApiResponse(responseCode = "413", ref = "#/components/responses/PayloadTooLargeResponse")
+  })
+  @PostMapping(path = "/upload-sessions", consumes = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<UploadSessionDTO> openUploadSession(@RequestBody UploadSessionRequestDTO request) {
+    return ResponseEntity.status(HttpStatus.CREATED).body(uploadSessionService.openSession(request));
+  }
+
+  @Operation(summary = "Finish a direct upload",
+      description = "Checks the uploaded file against the declared size and checksum and creates the document.")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "201", description = "Document created"),
+      @ApiResponse(responseCode = "400", ref = "#/components/responses/BadRequestResponse"),
+      @ApiResponse(responseCode = "404", description = "Upload session not found or expired"),
+      @ApiResponse(responseCode = "409", description = "File missing or not matching the declared size or checksum")
+  })
+  @PostMapping("/upload-sessions/{id}/complete")
+  public ResponseEntity<DocumentEntity> completeUploadSession(
+      @Parameter(description = "Upload session UUID") @PathVariable String id) {
+    return ResponseEntity.status(HttpStatus.CREATED).body(uploadSessionService.completeSession(id));
+  }
+
   @Operation(summary = "Update document metadata")
   @ApiResponses(value = {
       @ApiResponse(responseCode = "200", description = "Document updated successfully"),
@@ -94,18 +179,36 @@ public class DocumentsController {
     return ResponseEntity.noContent().build();
   }
 
-  @Operation(summary = "Download document file")
+  @Operation(summary = "Download document file",
+      description = "Streams the file from storage. Supports single byte ranges via Range/If-Range. "
+          + "If redirect mode is enabled, large files are answered with 302 to a short-lived storage URL.")
   @ApiResponses(value = {
       @ApiResponse(responseCode = "200", description = "File downloaded successfully",
           content = @Content(mediaType = "application/octet-stream",
               schema = @Schema(type = "string", format = "binary"))),
-      @ApiResponse(responseCode = "404", ref = "#/components/responses/DocumentNotFoundResponse")
+      @ApiResponse(responseCode = "206", description = "Requested byte range of the file",
+          content = @Content(mediaType = "application/octet-stream",
+              schema = @Schema(type = "string", format = "binary"))),
+      @ApiResponse(responseCode = "302", description = "Download directly from storage via the Location header"),
+      @ApiResponse(responseCode = "404", ref = "#/components/responses/DocumentNotFoundResponse"),
+      @ApiResponse(responseCode = "416", description = "Requested range not satisfiable")
   })
   @GetMapping("/{id}/download")
-  public ResponseEntity<byte[]> downloadDocument(
-      @Parameter(description = "Document UUID") @PathVariable String id) {
+  public ResponseEntity<StreamingResponseBody> downloadDocument(
+      @Parameter(description = "Document UUID") @PathVariable String id,
+      @RequestHeader HttpHeaders requestHeaders) {
     DocumentEntity document = documentService.getDocument(id);
-    byte[] data = minIOService.getObjectData(id);
+    long size = document.getSize();
+    String filename = document.getName() != null ? document.getName() : "document";
+
+    // Large files bypass this service; the URL is short-lived, so the redirect must not be cached
+    if (redirectDownloads && size >= redirectMinSize) {
+      String url = minIOService.presignDownload(document.getObjectName(), filename, document.getType(), redirectExpiry);
+      return ResponseEntity.status(HttpStatus.FOUND)
+          .location(URI.create(url))
+          .cacheControl(CacheControl.noStore())
+          .build();
+    }
 
     HttpHeaders headers = new HttpHeaders();
     if (document.getType() != null && !document.getType().isEmpty()) {
@@ -115,11 +218,112 @@ public class DocumentsController {
       headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
     }
 
-    String filename = document.getName() != null ? document.getName() : "document";
     headers.setContentDispositionFormData("attachment", filename);
-    headers.setContentLength(data.length);
+    headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+    // Documents are immutable after upload, so the id is a valid strong validator
+    String etag = "\"" + document.getId() + "\"";
+    headers.setETag(etag);
+    long lastModified = -1;
+    if (document.getCreatedDate() != null) {
+      lastModified = document.getCreatedDate().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+      headers.setLastModified(lastModified);
+    }
 
-    return new ResponseEntity<>(data, headers, HttpStatus.OK);
+    HttpRange range = singleRange(requestHeaders);
+    if (range == null || !ifRangeMatches(requestHeaders, etag, lastModified)) {
+      headers.setContentLength(size);
+      return new ResponseEntity<>(stream(document.getObjectName(), size, 0, size), headers, HttpStatus.OK);
+    }
+
+    long start = range.getRangeStart(size);
+    if (start >= size) {
+      headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+      return new ResponseEntity<>(headers, HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+    }
+    long end = range.getRangeEnd(size);
+    long length = end - start + 1;
+
+    headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+    headers.setContentLength(length);
+    return new ResponseEntity<>(stream(document.getObjectName(), size, start, length), headers,
+        HttpStatus.PARTIAL_CONTENT);
+  }
+
+  // Opens the object before the response is committed so storage errors still map to JSON errors.
+  // The source is closed when the async request completes, also if the body never runs (executor full,
+  // timeout). Cached objects are copied with transferTo; the servlet stream is no socket channel, so the
+  // JDK still copies through a buffer (no sendfile), but without a read loop of ours.
+  private StreamingResponseBody stream(String objectName, long size, long offset, long length) {
+    Optional<FileChannel> cached = objectCache.open(objectName, size);
+    if (cached.isPresent()) {
+      FileChannel file = closeOnCompletion(cached.get());
+      return out -> {
+        try (FileChannel source = file) {
+          WritableByteChannel target = Channels.newChannel(out);
+          long position = offset;
+          long end = offset + length;
+          while (position < end) {
+            long sent = source.transferTo(position, end - position, target);
+            if (sent <= 0) {
+              break;
+            }
+            position += sent;
+          }
+        }
+      };
+    }
+    InputStream in = closeOnCompletion(
+        minIOService.openObject(objectName, offset, offset == 0 && length == size ? null : length));
+    return out -> {
+      try (InputStream source = in) {
+        source.transferTo(out);
+      }
+    };
+  }
+
+  private static <S extends Closeable> S closeOnCompletion(S source) {
+    HttpServletRequest request = ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes())
+        .getRequest();
+    WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(source, new CallableProcessingInterceptor() {
+      @Override
+      public <T> void afterCompletion(NativeWebRequest webRequest, Callable<T> task) {
+        try {
+          source.close();
+        }
+        catch (IOException e) {
+          // Closing a read-only source does not fail in a way we could act on
+        }
+      }
+    });
+    return source;
+  }
+
+  // Only single ranges are served as 206; multiple or malformed ranges fall back to the full body
+  private static HttpRange singleRange(HttpHeaders requestHeaders) {
+    try {
+      List<HttpRange> ranges = requestHeaders.getRange();
+      return ranges.size() == 1 ? ranges.get(0) : null;
+    }
+    catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  private static boolean ifRangeMatches(HttpHeaders requestHeaders, String etag, long lastModified) {
+    String ifRange = requestHeaders.getFirst(HttpHeaders.IF_RANGE);
+    if (ifRange == null) {
+      return true;
+    }
+    if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+      return ifRange.equals(etag);
+    }
+    try {
+      long date = requestHeaders.getFirstDate(HttpHeaders.IF_RANGE);
+      return lastModified != -1 && date / MILLIS_PER_SECOND == lastModified / MILLIS_PER_SECOND;
+    }
+    catch (IllegalArgumentException e) {
+      return false;
+    }
   }
 
   @Operation(summary = "Get document tags")
@@ -148,25 +352,82 @@ public class DocumentsController {
     return ResponseEntity.accepted().body(documentService.setDocumentTags(id, tags));
   }
 
-  @Operation(summary = "Convert document file to pdf")
+  @Operation(summary = "Convert document file to pdf",
+      description = "Streams the stored pdf rendition. If it does not exist yet it is converted synchronously, "
+          + "or, with synchronous fallback disabled, a conversion job is started and 202 is returned.")
   @ApiResponses(value = {
       @ApiResponse(responseCode = "200", description = "File converted successfully",
           content = @Content(mediaType = "application/octet-stream",
               schema = @Schema(type = "string", format = "binary"))),
+      @ApiResponse(responseCode = "202", description = "Conversion job started, poll the Location header"),
       @ApiResponse(responseCode = "404", ref = "#/components/responses/DocumentNotFoundResponse"),
-      @ApiResponse(responseCode = "415", description = "Unsupported Media Type - cannot convert the provided document")
+      @ApiResponse(responseCode = "415", description = "Unsupported Media Type - cannot convert the provided document"),
+      @ApiResponse(responseCode = "503", description = "Conversion queue is full, see Retry-After")
   })
   @GetMapping("/{id}/pdfconverter")
-  public ResponseEntity<byte[]> convertDocument(
+  public ResponseEntity<?> convertDocument(
       @Parameter(description = "Document UUID") @PathVariable String id) {
     DocumentEntity document = documentService.getDocument(id);
-    byte[] pdfData = documentService.convertDocument(document);
+    Optional<RenditionDTO> ready = documentService.findPdf(document);
+    if (ready.isEmpty() && !syncConversionFallback) {
+      return acceptedJob(id, renditionJobService.requestPdf(id));
+    }
+    RenditionDTO pdf = ready.orElseGet(() -> documentService.convertDocument(document));
+    StreamingResponseBody body;
+    try {
+      body = stream(pdf.getObjectName(), pdf.getSize(), 0, pdf.getSize());
+    }
+    catch (MinIOObjectNotFoundException e) {
+      if (OfficeFormats.isPdf(document)) {
+        throw e;
+      }
+      // The rendition was known but has been removed since, e.g. by another pod with its last other document
+      documentService.forgetPdf(document);
+      if (!syncConversionFallback) {
+        return acceptedJob(id, renditionJobService.requestPdf(id));
+      }
+      pdf = documentService.convertDocument(document);
+      body = stream(pdf.getObjectName(), pdf.getSize(), 0, pdf.getSize());
+    }
 
     String name = document.getName() != null ? document.getName() : "document";
     HttpHeaders headers = new HttpHeaders();
     headers.setContentType(MediaType.APPLICATION_PDF);
     headers.setContentDispositionFormData("attachment", name.endsWith(".pdf") ? name : name + ".pdf");
-    headers.setContentLength(pdfData.length);
-    return new ResponseEntity<>(pdfData, headers, HttpStatus.OK);
+    headers.setContentLength(pdf.getSize());
+    return new ResponseEntity<>(body, headers, HttpStatus.OK);
+  }
+
+  @Operation(summary = "Start a background pdf conversion")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "202", description = "Conversion job accepted"),
+      @ApiResponse(responseCode = "404", ref = "#/components/responses/DocumentNotFoundResponse"),
+      @ApiResponse(responseCode = "415", description = "Unsupported Media Type - cannot convert the provided document")
+  })
+  @PostMapping("/{id}/renditions/pdf")
+  public ResponseEntity<RenditionJobEntity> requestPdfRendition(
+      @Parameter(description = "Document UUID") @PathVariable String id) {
+    return acceptedJob(id, renditionJobService.requestPdf(id));
+  }
+
+  @Operation(summary = "Get the status of a pdf conversion job")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Job found"),
+      @ApiResponse(responseCode = "400", ref = "#/components/responses/BadRequestResponse"),
+      @ApiResponse(responseCode = "404", ref = "#/components/responses/NotFoundResponse")
+  })
+  @GetMapping("/{id}/renditions/pdf/{jobId}")
+  public ResponseEntity<RenditionJobEntity> getPdfRenditionJob(
+      @Parameter(description = "Document UUID") @PathVariable String id,
+      @Parameter(description = "Job UUID") @PathVariable String jobId) {
+    return ResponseEntity.ok(renditionJobService.getJob(id, jobId));
+  }
+
+  private static ResponseEntity<RenditionJobEntity> acceptedJob(String documentId, RenditionJobEntity job) {
+    URI location = ServletUriComponentsBuilder.fromCurrentContextPath()
+        .path("/v1/documents/{id}/renditions/pdf/{jobId}")
+        .buildAndExpand(documentId, job.getId())
+        .toUri();
+    return ResponseEntity.accepted().location(location).body(job);
   }
 }
@@ -1,5 +1,7 @@
 package com.ase.dms.controllers;
 
+import com.ase.dms.dtos.FolderResponseDTO;
+import com.ase.dms.dtos.FolderSizeDTO;
 import com.ase.dms.entities.FolderEntity;
 import com.ase.dms.services.FolderService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -23,18 +25,33 @@ public class FoldersController {
   }
 
   @Operation(summary = "Get folder contents",
-             description = "Retrieves the contents of a folder. Use 'root' for the root folder.")
+             description = "Retrieves the folder with its direct subfolders and documents. "
+                 + "Use 'root' for the root folder.")
   @ApiResponses(value = {
     @ApiResponse(responseCode = "200", description = "Folder contents retrieved successfully"),
     @ApiResponse(responseCode = "400", ref = "#/components/responses/BadRequestResponse"),
     @ApiResponse(responseCode = "404", ref = "#/components/responses/FolderNotFoundResponse")
   })
   @GetMapping("/{id}")
-  public ResponseEntity<FolderEntity> getFolderContents(
+  public ResponseEntity<FolderResponseDTO> getFolderContents(
       @Parameter(description = "Folder UUID or 'root'") @PathVariable String id) {
     return ResponseEntity.ok(folderService.getFolderContents(id));
   }
 
+  @Operation(summary = "Get folder size",
+             description = "Counts folders and documents below a folder and sums the document sizes. "
+                 + "Use 'root' for the root folder.")
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "200", description = "Folder size calculated successfully"),
+    @ApiResponse(responseCode = "400", ref = "#/components/responses/BadRequestResponse"),
+    @ApiResponse(responseCode = "404", ref = "#/components/responses/FolderNotFoundResponse")
+  })
+  @GetMapping("/{id}/size")
+  public ResponseEntity<FolderSizeDTO> getFolderSize(
+      @Parameter(description = "Folder UUID or 'root'") @PathVariable String id) {
+    return ResponseEntity.ok(folderService.getFolderSize(id));
+  }
+
   @Operation(summary = "Create a new folder")
   @ApiResponses(value = {
     @ApiResponse(responseCode = "201", description = "Folder created successfully"),
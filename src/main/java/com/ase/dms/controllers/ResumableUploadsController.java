@@ -0,0 +1,184 @@
+package com.ase.dms.controllers;
+
+import com.ase.dms.dtos.UploadSessionRequestDTO;
+import com.ase.dms.entities.UploadSessionEntity;
+import com.ase.dms.exceptions.ErrorCodes;
+import com.ase.dms.exceptions.ValidationException;
+import com.ase.dms.services.ResumableUploadService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+/**
+ * Resumable uploads following the tus 1.0 protocol (core plus the creation,
+ * termination and expiration extensions). A PATCH may carry any number of
+ * bytes up to the whole file, and the bytes received before a connection
+ * drops are kept, so tus clients work with their default settings.
+ * The upload id is also the id of the document created by the last chunk.
+ */
+@RestController
+@RequestMapping("/v1/documents/resumable-uploads")
+@Tag(name = "Resumable uploads", description = "Chunked uploads that can be resumed after a dropped connection")
+public class ResumableUploadsController {
+
+  private static final String TUS_RESUMABLE = "Tus-Resumable";
+  private static final String TUS_VERSION = "1.0.0";
+  private static final String TUS_EXTENSIONS = "creation,termination,expiration";
+  private static final String UPLOAD_OFFSET = "Upload-Offset";
+  private static final String UPLOAD_LENGTH = "Upload-Length";
+  private static final String UPLOAD_METADATA = "Upload-Metadata";
+  private static final String UPLOAD_EXPIRES = "Upload-Expires";
+  private static final String OFFSET_OCTET_STREAM = "application/offset+octet-stream";
+
+  private final ResumableUploadService resumableUploadService;
+  private final long maxSize;
+
+  public ResumableUploadsController(ResumableUploadService resumableUploadService,
+                                    @Value("${storage.upload-sessions.max-size:5GB}") DataSize maxSize) {
+    this.resumableUploadService = resumableUploadService;
+    this.maxSize = maxSize.toBytes();
+  }
+
+  @Operation(summary = "Describe the supported tus protocol")
+  @RequestMapping(method = RequestMethod.OPTIONS)
+  public ResponseEntity<Void> options() {
+    return ResponseEntity.noContent()
+        .header(TUS_RESUMABLE, TUS_VERSION)
+        .header("Tus-Version", TUS_VERSION)
+        .header("Tus-Extension", TUS_EXTENSIONS)
+        .header("Tus-Max-Size", String.valueOf(maxSize))
+        .build();
+  }
+
+  @Operation(summary = "Start a resumable upload",
+      description = "Upload-Metadata carries the base64 encoded keys folderId and filename (required) "
+          + "and filetype, tags (comma separated tag ids) and sha256 (optional). The Location header "
+          + "points at the upload the chunks are sent to.")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "201", description = "Upload created"),
+      @ApiResponse(responseCode = "400", ref = "#/components/responses/BadRequestResponse"),
+      @ApiResponse(responseCode = "404", description = "Folder or tag not found"),
+      @ApiResponse(responseCode = "413", ref = "#/components/responses/PayloadTooLargeResponse")
+  })
+  @PostMapping
+  public ResponseEntity<Void> createUpload(
+      @Parameter(description = "Size of the file in bytes") @RequestHeader(UPLOAD_LENGTH) long length,
+      @Parameter(description = "tus metadata") @RequestHeader(value = UPLOAD_METADATA, required = false)
+      String metadata) {
+    Map<String, String> values = parseMetadata(metadata);
+    String tags = values.get("tags");
+    UploadSessionRequestDTO request = new UploadSessionRequestDTO(values.get("folderId"), values.get("filename"),
+        values.get("filetype"), length, values.get("sha256"),
+        tags != null && !tags.isBlank() ? tags.split(",") : null);
+    UploadSessionEntity upload = resumableUploadService.createUpload(request);
+
+    URI location = ServletUriComponentsBuilder.fromCurrentRequestUri()
+        .path("/{id}")
+        .buildAndExpand(upload.getId())
+        .toUri();
+    return ResponseEntity.status(HttpStatus.CREATED)
+        .location(location)
+        .headers(progress(upload))
+        .build();
+  }
+
+  @Operation(summary = "Get the progress of a resumable upload",
+      description = "Upload-Offset is the number of bytes received; the next chunk starts there.")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Progress in the Upload-Offset header"),
+      @ApiResponse(responseCode = "404", description = "Upload not found or expired")
+  })
+  @RequestMapping(path = "/{id}", method = RequestMethod.HEAD)
+  public ResponseEntity<Void> getUpload(@Parameter(description = "Upload UUID") @PathVariable String id) {
+    UploadSessionEntity upload = resumableUploadService.getUpload(id);
+    return ResponseEntity.ok()
+        .cacheControl(CacheControl.noStore())
+        .headers(progress(upload))
+        .header(UPLOAD_LENGTH, String.valueOf(upload.getSize()))
+        .build();
+  }
+
+  @Operation(summary = "Send a chunk of a resumable upload",
+      description = "The chunk has to start at the current Upload-Offset and may be of any size. If the "
+          + "connection drops, the bytes received are kept; HEAD returns the offset to continue at. "
+          + "The last chunk creates the document, GET /v1/documents/{id} returns it.")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "204", description = "Chunk stored, new offset in the Upload-Offset header"),
+      @ApiResponse(responseCode = "400", ref = "#/components/responses/BadRequestResponse"),
+      @ApiResponse(responseCode = "404", description = "Upload not found or expired"),
+      @ApiResponse(responseCode = "409", description = "Upload-Offset does not match the bytes received"),
+      @ApiResponse(responseCode = "413", ref = "#/components/responses/PayloadTooLargeResponse")
+  })
+  @PatchMapping(path = "/{id}", consumes = OFFSET_OCTET_STREAM)
+  public ResponseEntity<Void> appendChunk(
+      @Parameter(description = "Upload UUID") @PathVariable String id,
+      @Parameter(description = "Position of the chunk in the file") @RequestHeader(UPLOAD_OFFSET) long offset,
+      InputStream body) {
+    UploadSessionEntity upload = resumableUploadService.appendChunk(id, offset, body);
+    return ResponseEntity.noContent().headers(progress(upload)).build();
+  }
+
+  @Operation(summary = "Cancel a resumable upload")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "204", description = "Upload cancelled, received data discarded"),
+      @ApiResponse(responseCode = "404", description = "Upload not found or expired")
+  })
+  @DeleteMapping("/{id}")
+  public ResponseEntity<Void> terminateUpload(@Parameter(description = "Upload UUID") @PathVariable String id) {
+    resumableUploadService.terminateUpload(id);
+    return ResponseEntity.noContent().header(TUS_RESUMABLE, TUS_VERSION).build();
+  }
+
+  private static HttpHeaders progress(UploadSessionEntity upload) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.set(TUS_RESUMABLE, TUS_VERSION);
+    headers.set(UPLOAD_OFFSET, String.valueOf(upload.getReceivedBytes()));
+    headers.setZonedDateTime(UPLOAD_EXPIRES, upload.getExpiresAt().atZone(ZoneId.systemDefault()));
+    return headers;
+  }
+
+  // Comma separated pairs of a key and a base64 encoded value, the value may be missing
+  private static Map<String, String> parseMetadata(String header) {
+    Map<String, String> values = new HashMap<>();
+    if (header == null || header.isBlank()) {
+      return values;
+    }
+    for (String pair : header.split(",")) {
+      String[] keyValue = pair.trim().split(" ", 2);
+      try {
+        values.put(keyValue[0], keyValue.length > 1
+            ? new String(Base64.getDecoder().decode(keyValue[1].trim()), StandardCharsets.UTF_8)
+            : "");
+      }
+      catch (IllegalArgumentException e) {
+        throw new ValidationException(ErrorCodes.VAL_MISSING_PARAMETER,
+            "Upload-Metadata value of '" + keyValue[0] + "' is not base64");
+      }
+    }
+    return values;
+  }
+}
@@ -0,0 +1,57 @@
+package com.ase.dms.dtos;
+
+import com.ase.dms.entities.TagEntity;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Document metadata for folder listings, filled by a JPQL constructor expression.
+ */
+@Data @NoArgsConstructor
+public class DocumentSummaryDTO {
+  @Schema(description = "Eindeutige ID des Dokuments", example = "4111b676-474c-4014-a7ee-53fc5cb90127")
+  private String id;
+
+  @Schema(description = "Name des Dokuments", example = "wichtiges_dokument")
+  private String name;
+
+  @Schema(description = "Dateityp", example = "pdf")
+  private String type;
+
+  @Schema(description = "Dateigröße in Bytes")
+  private long size;
+
+  @Schema(description = "ID des Besitzers (User) des Dokuments", example = "9ad5c7cf-273c-4243-91a3-f7969f6dc985")
+  private String ownerId;
+
+  @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss'Z'")
+  @Schema(description = "Erstellungsdatum")
+  private LocalDateTime createdDate;
+
+  @Schema(description = "Download-URL des Dokuments",
+      example = "https://sau-portal.de/dms/v1/documents/4111b676-474c-4014-a7ee-53fc5cb90127/download")
+  private String downloadUrl;
+
+  @Schema(description = "ID des übergeordneten Ordners", example = "ef9b2274-817e-4cba-879e-383548577f4e")
+  private String folderId;
+
+  @Schema(description = "Tags des Dokuments")
+  private List<TagEntity> tags = new ArrayList<>();
+
+  public DocumentSummaryDTO(String id, String name, String type, long size, String ownerId,
+                            LocalDateTime createdDate, String downloadUrl, String folderId) {
+    this.id = id;
+    this.name = name;
+    this.type = type;
+    this.size = size;
+    this.ownerId = ownerId;
+    this.createdDate = createdDate;
+    this.downloadUrl = downloadUrl;
+    this.folderId = folderId;
+  }
+}
@@ -1,14 +1,48 @@
 package com.ase.dms.dtos;
 
-import com.ase.dms.entities.DocumentEntity;
-import com.ase.dms.entities.FolderEntity;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import lombok.Data;
-import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
 
-@Data @AllArgsConstructor
+/**
+ * One level of the folder tree: the folder itself, its direct subfolders
+ * and the metadata of the documents it contains.
+ */
+@Data @NoArgsConstructor
 public class FolderResponseDTO {
-  private FolderEntity folder;
-  private List<FolderEntity> subfolders;
-  private List<DocumentEntity> documents;
+  @Schema(description = "Eindeutige ID des Ordners", example = "03d3d491-1fa7-437f-b617-698a4d4c9d84")
+  private String id;
+
+  @Schema(description = "Name des Ordners", example = "Projekte")
+  private String name;
+
+  @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss'Z'")
+  @Schema(description = "Erstellungsdatum")
+  private LocalDateTime createdDate;
+
+  @Schema(description = "ID des übergeordneten Ordners", example = "c12b8e51-6c40-42b6-86e9-d8cf823f4d34")
+  private String parentId;
+
+  @Schema(description = "Liste der Studiengruppen, die Zugriff auf diesen Ordner haben. Leer bedeutet öffentlich.")
+  private Set<String> studyGroupIds = new HashSet<>();
+
+  @Schema(description = "Direkte Unterordner")
+  private List<FolderSummaryDTO> subfolders = new ArrayList<>();
+
+  @Schema(description = "Dokumente in diesem Ordner")
+  private List<DocumentSummaryDTO> documents = new ArrayList<>();
+
+  public FolderResponseDTO(FolderSummaryDTO folder) {
+    this.id = folder.getId();
+    this.name = folder.getName();
+    this.createdDate = folder.getCreatedDate();
+    this.parentId = folder.getParentId();
+    this.studyGroupIds = folder.getStudyGroupIds();
+  }
 }
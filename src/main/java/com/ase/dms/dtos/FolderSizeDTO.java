@@ -0,0 +1,23 @@
+package com.ase.dms.dtos;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Aggregated size of a folder and everything below it.
+ */
+@Data @AllArgsConstructor
+public class FolderSizeDTO {
+  @Schema(description = "ID des Ordners", example = "03d3d491-1fa7-437f-b617-698a4d4c9d84")
+  private String folderId;
+
+  @Schema(description = "Anzahl der Ordner im Teilbaum, einschließlich des Ordners selbst")
+  private int folderCount;
+
+  @Schema(description = "Anzahl der Dokumente im Teilbaum")
+  private int documentCount;
+
+  @Schema(description = "Gesamtgröße aller Dokumente in Bytes")
+  private long totalSize;
+}
@@ -0,0 +1,38 @@
+package com.ase.dms.dtos;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Folder metadata without children, filled by a JPQL constructor expression.
+ */
+@Data @NoArgsConstructor
+public class FolderSummaryDTO {
+  @Schema(description = "Eindeutige ID des Ordners", example = "03d3d491-1fa7-437f-b617-698a4d4c9d84")
+  private String id;
+
+  @Schema(description = "Name des Ordners", example = "Projekte")
+  private String name;
+
+  @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss'Z'")
+  @Schema(description = "Erstellungsdatum")
+  private LocalDateTime createdDate;
+
+  @Schema(description = "ID des übergeordneten Ordners", example = "c12b8e51-6c40-42b6-86e9-d8cf823f4d34")
+  private String parentId;
+
+  @Schema(description = "Liste der Studiengruppen, die Zugriff auf diesen Ordner haben. Leer bedeutet öffentlich.")
+  private Set<String> studyGroupIds = new HashSet<>();
+
+  public FolderSummaryDTO(String id, String name, LocalDateTime createdDate, String parentId) {
+    this.id = id;
+    this.name = name;
+    this.createdDate = createdDate;
+    this.parentId = parentId;
+  }
+}
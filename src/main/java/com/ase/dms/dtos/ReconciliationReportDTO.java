@@ -0,0 +1,20 @@
+package com.ase.dms.dtos;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Outcome of one reconciler run.
+ */
+@Data @AllArgsConstructor
+public class ReconciliationReportDTO {
+  private String startCursor;
+  private String endCursor;
+  private int scanned;
+  // Objects without a document row
+  private List<String> orphanObjects;
+  // Document rows whose object is missing
+  private List<String> missingObjects;
+  private boolean passCompleted;
+}
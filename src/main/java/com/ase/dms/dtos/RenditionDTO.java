@@ -0,0 +1,13 @@
+package com.ase.dms.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Location of a stored rendition (or of the original, if it already is the target format).
+ */
+@Data @AllArgsConstructor
+public class RenditionDTO {
+  private String objectName;
+  private long size;
+}
@@ -0,0 +1,15 @@
+package com.ase.dms.dtos;
+
+import java.time.ZonedDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * An object key in the bucket with the metadata returned by a listing.
+ */
+@Data @AllArgsConstructor
+public class StoredObjectDTO {
+  private String objectName;
+  private long size;
+  private ZonedDateTime lastModified;
+}
@@ -0,0 +1,27 @@
+package com.ase.dms.dtos;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * An open direct upload: where to send the file and until when.
+ */
+@Data @AllArgsConstructor
+public class UploadSessionDTO {
+  @Schema(description = "ID der Upload-Sitzung, zugleich die ID des späteren Dokuments",
+      example = "4111b676-474c-4014-a7ee-53fc5cb90127")
+  private String id;
+
+  @Schema(description = "HTTP-Methode für den Upload", example = "PUT")
+  private String method;
+
+  @Schema(description = "Vorsignierte URL, an die die Datei direkt gesendet wird")
+  private String uploadUrl;
+
+  @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss'Z'")
+  @Schema(description = "Zeitpunkt, bis zu dem Upload und Abschluss erfolgen müssen")
+  private LocalDateTime expiresAt;
+}
@@ -0,0 +1,31 @@
+package com.ase.dms.dtos;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Metadata of a file the client wants to upload directly to storage.
+ */
+@Data @NoArgsConstructor @AllArgsConstructor
+public class UploadSessionRequestDTO {
+  @Schema(description = "ID des Zielordners", example = "03d3d491-1fa7-437f-b617-698a4d4c9d84")
+  private String folderId;
+
+  @Schema(description = "Dateiname des Dokuments", example = "Klausur_Mathematik_2025.pdf")
+  private String fileName;
+
+  @Schema(description = "MIME-Typ der Datei", example = "application/pdf")
+  private String contentType;
+
+  @Schema(description = "Größe der Datei in Bytes", example = "524288000")
+  private long size;
+
+  @Schema(description = "Optionale SHA-256-Prüfsumme der Datei (hexadezimal), wird beim Abschluss geprüft",
+      example = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08")
+  private String sha256;
+
+  @Schema(description = "IDs der Tags des Dokuments")
+  private String[] tags;
+}
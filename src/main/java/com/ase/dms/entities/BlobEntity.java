@@ -0,0 +1,81 @@
+package com.ase.dms.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import java.time.LocalDateTime;
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * Stored file content, shared by all documents with the same SHA-256.
+ * The object is written once under {@code storageKey}; {@code refCount}
+ * counts the documents pointing at it, and the object is removed once it
+ * drops to zero. Rows are only ever inserted, never merged: saving a blob
+ * whose hash is already stored fails on the primary key instead of
+ * overwriting the stored row.
+ */
+@Data
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@Entity
+@NoArgsConstructor
+@Table(name = "content_blob", indexes = {
+    @Index(name = "idx_content_blob_storage_key", columnList = "storageKey", unique = true)
+})
+public class BlobEntity implements Persistable<String> {
+  @Id
+  @EqualsAndHashCode.Include
+  @Column(length = 64)
+  private String hash;
+
+  @Column(nullable = false)
+  private String storageKey;
+
+  private long size;
+
+  private long refCount;
+
+  private LocalDateTime createdDate;
+
+  // Set once the row is loaded or inserted; until then a save has to insert
+  @Transient
+  @Getter(AccessLevel.NONE)
+  @Setter(AccessLevel.NONE)
+  @ToString.Exclude
+  private boolean persisted;
+
+  public BlobEntity(String hash, String storageKey, long size, long refCount, LocalDateTime createdDate) {
+    this.hash = hash;
+    this.storageKey = storageKey;
+    this.size = size;
+    this.refCount = refCount;
+    this.createdDate = createdDate;
+  }
+
+  @Override
+  public String getId() {
+    return hash;
+  }
+
+  @Override
+  public boolean isNew() {
+    return !persisted;
+  }
+
+  @PostLoad
+  @PostPersist
+  void markPersisted() {
+    persisted = true;
+  }
+}
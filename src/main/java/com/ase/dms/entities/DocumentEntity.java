@@ -2,6 +2,7 @@ package com.ase.dms.entities;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
@@ -57,6 +58,18 @@ public class DocumentEntity {
       example = "https://sau-portal.de/dms/v1/documents/4111b676-474c-4014-a7ee-53fc5cb90127/download")
   private String downloadUrl;
 
+  @Schema(accessMode = Schema.AccessMode.READ_ONLY,
+      description = "SHA-256 des Dateiinhalts (hex)",
+      example = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08")
+  @Column(length = 64)
+  private String contentHash;
+
+  // Object holding the content, shared by all documents with the same content hash;
+  // null for documents stored under their own id before deduplication
+  @JsonIgnore
+  @Schema(hidden = true)
+  private String storageKey;
+
   // JPA Relationship
   @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "folderId")
@@ -75,6 +88,12 @@ public class DocumentEntity {
     return folder != null ? folder.getId() : null;
   }
 
+  // Key of the stored content in MinIO
+  @JsonIgnore
+  public String getObjectName() {
+    return storageKey != null ? storageKey : id;
+  }
+
   @Schema(description = "ID of the parent folder",
    example = "ef9b2274-817e-4cba-879e-383548577f4e")
   public void setFolderId(String folderId) {
@@ -69,7 +69,13 @@ public class FolderEntity {
   @ElementCollection(fetch = FetchType.EAGER)
   @CollectionTable(
       name = "folder_study_groups",
-      joinColumns = @JoinColumn(name = "folder_id")
+      joinColumns = @JoinColumn(name = "folder_id"),
+      indexes = {
+          // Visibility queries look up the folders of one cohort ...
+          @Index(name = "idx_folder_study_groups_group_folder", columnList = "study_group_id, folder_id"),
+          // ... and probe whether a folder has study groups at all (NOT EXISTS by folder_id)
+          @Index(name = "idx_folder_study_groups_folder", columnList = "folder_id")
+      }
   )
   @Column(name = "study_group_id")
   @Schema(description = "Liste der Studiengruppen, die Zugriff auf diesen Ordner haben. Leer bedeutet öffentlich.",
@@ -0,0 +1,45 @@
+package com.ase.dms.entities;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/**
+ * Progress of the storage reconciler. The cursor is the last key compared
+ * on both sides, so each run resumes where the previous one stopped.
+ * The version guards against two pods advancing the same pass.
+ */
+@Data
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "reconciliation_checkpoint")
+public class ReconciliationCheckpointEntity {
+  @Id
+  @EqualsAndHashCode.Include
+  private String name;
+
+  // Last compared key; empty at the start of a pass
+  private String cursor;
+
+  private LocalDateTime passStartedAt;
+
+  private LocalDateTime lastRunAt;
+
+  private LocalDateTime lastPassCompletedAt;
+
+  // Counters of the current pass
+  private long scanned;
+  private long orphanObjects;
+  private long missingObjects;
+
+  @Version
+  private long version;
+}
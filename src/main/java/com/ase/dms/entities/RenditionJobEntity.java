@@ -0,0 +1,62 @@
+package com.ase.dms.entities;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+@Data
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "rendition_job", indexes = {
+    @Index(name = "idx_rendition_job_status_updated", columnList = "status, updatedDate"),
+    @Index(name = "idx_rendition_job_document", columnList = "documentId")
+})
+public class RenditionJobEntity {
+  @Id
+  @EqualsAndHashCode.Include
+  @Schema(accessMode = Schema.AccessMode.READ_ONLY,
+      description = "Eindeutige ID des Konvertierungsauftrags",
+      example = "5d7a2c1e-0f3b-4a8e-9c61-2b0f5e7d9a14")
+  private String id;
+
+  @Schema(accessMode = Schema.AccessMode.READ_ONLY,
+      description = "ID des zu konvertierenden Dokuments",
+      example = "4111b676-474c-4014-a7ee-53fc5cb90127")
+  private String documentId;
+
+  @Enumerated(EnumType.STRING)
+  @Schema(accessMode = Schema.AccessMode.READ_ONLY,
+      description = "Status des Auftrags",
+      example = "QUEUED")
+  private RenditionJobStatus status;
+
+  @Schema(accessMode = Schema.AccessMode.READ_ONLY,
+      description = "Anzahl der bisherigen Ausführungsversuche")
+  private int attempts;
+
+  @Column(length = 1000)
+  @Schema(accessMode = Schema.AccessMode.READ_ONLY,
+      description = "Fehlermeldung des letzten fehlgeschlagenen Versuchs")
+  private String error;
+
+  @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss'Z'")
+  @Schema(accessMode = Schema.AccessMode.READ_ONLY, description = "Erstellungsdatum")
+  private LocalDateTime createdDate;
+
+  @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss'Z'")
+  @Schema(accessMode = Schema.AccessMode.READ_ONLY, description = "Zeitpunkt der letzten Statusänderung")
+  private LocalDateTime updatedDate;
+}
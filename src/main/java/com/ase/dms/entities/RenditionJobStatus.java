@@ -0,0 +1,8 @@
+package com.ase.dms.entities;
+
+public enum RenditionJobStatus {
+  QUEUED,
+  RUNNING,
+  DONE,
+  FAILED
+}
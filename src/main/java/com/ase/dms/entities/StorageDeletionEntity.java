@@ -0,0 +1,47 @@
+package com.ase.dms.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outbox entry for an object that has to be removed from MinIO.
+ * Written in the same transaction as the metadata delete and drained by
+ * {@link com.ase.dms.services.StorageCleanupServiceImpl}.
+ */
+@Data
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "storage_deletion", indexes = {
+    @Index(name = "idx_storage_deletion_next_attempt", columnList = "nextAttemptAt")
+})
+public class StorageDeletionEntity {
+  @Id
+  @EqualsAndHashCode.Include
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "storage_deletion_seq")
+  // Pooled ids so bulk enqueues can be batched by Hibernate
+  @SequenceGenerator(name = "storage_deletion_seq", sequenceName = "storage_deletion_seq", allocationSize = 50)
+  private Long id;
+
+  @Column(nullable = false, length = 1024)
+  private String objectName;
+
+  private int attempts;
+
+  @Column(nullable = false)
+  private LocalDateTime nextAttemptAt;
+
+  private LocalDateTime createdDate;
+}
@@ -0,0 +1,91 @@
+package com.ase.dms.entities;
+
+import jakarta.persistence.CollectionTable;
+import jakarta.persistence.Column;
+import jakarta.persistence.ElementCollection;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.OrderColumn;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/**
+ * An upload to MinIO that has not been completed yet.
+ * The id is the id the document will get. The client either uploads to the
+ * storage key with a presigned URL and then asks the service to complete it,
+ * or sends the file in chunks that are stored as parts of a multipart upload
+ * (resumable upload).
+ */
+@Data
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "upload_session", indexes = {
+    @Index(name = "idx_upload_session_expires", columnList = "expiresAt")
+})
+public class UploadSessionEntity {
+  @Id
+  @EqualsAndHashCode.Include
+  private String id;
+
+  private String folderId;
+
+  private String fileName;
+
+  private String contentType;
+
+  // Declared size; the uploaded object must match it
+  private long size;
+
+  // Declared SHA-256 (lowercase hex), optional
+  @Column(length = 64)
+  private String sha256;
+
+  @ElementCollection(fetch = FetchType.EAGER)
+  @CollectionTable(name = "upload_session_tags", joinColumns = @JoinColumn(name = "session_id"))
+  @Column(name = "tag_id")
+  private List<String> tagIds = new ArrayList<>();
+
+  private String ownerId;
+
+  @Column(unique = true, nullable = false)
+  private String storageKey;
+
+  private LocalDateTime createdDate;
+
+  private LocalDateTime expiresAt;
+
+  // Resumable uploads only: the MinIO multipart upload the chunks are stored in
+  private String multipartUploadId;
+
+  // Resumable uploads only: bytes received so far
+  private long receivedBytes;
+
+  // Resumable uploads only: ETags of the stored parts, in part number order
+  @ElementCollection(fetch = FetchType.EAGER)
+  @CollectionTable(name = "upload_session_parts", joinColumns = @JoinColumn(name = "session_id"))
+  @OrderColumn(name = "part_index")
+  @Column(name = "etag")
+  private List<String> partEtags = new ArrayList<>();
+
+  // Resumable uploads only: SHA-256 state over the bytes received so far
+  @Column(length = 128)
+  private byte[] hashState;
+
+  // Resumable uploads only: object with the received bytes that are too few for a part yet
+  private String tailObject;
+
+  @Version
+  private long version;
+}
@@ -0,0 +1,14 @@
+package com.ase.dms.events;
+
+import com.ase.dms.entities.DocumentEntity;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published inside the upload transaction once a document has been stored.
+ */
+@Getter
+@AllArgsConstructor
+public class DocumentCreatedEvent {
+  private final DocumentEntity document;
+}
@@ -0,0 +1,18 @@
+package com.ase.dms.exceptions;
+
+import lombok.Getter;
+
+/**
+ * Exception thrown when the conversion queue is full and the request should be retried later
+ */
+@Getter
+public class ConversionQueueFullException extends DmsException {
+
+    private final long retryAfterSeconds;
+
+    public ConversionQueueFullException(long retryAfterSeconds) {
+        super(ErrorCodes.SYS_CONVERSION_BUSY,
+              "Document pdf conversion is busy, retry in " + retryAfterSeconds + " seconds");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
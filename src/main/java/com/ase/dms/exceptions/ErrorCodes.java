@@ -19,6 +19,7 @@ public enum ErrorCodes {
   //409 Conflict - The request could not be completed due to a conflict with the current state
   //413 Payload Too Large - The request is larger than the server is willing or able to process.
   //500 Internal Server Error - The server has encountered a situation it doesn't know how to handle
+  //503 Service Unavailable - The server is temporarily overloaded, retry after the given time
 
   // Document-related errors (DOC_*)
   DOC_NOT_FOUND(HttpStatus.NOT_FOUND),
@@ -27,6 +28,10 @@ public enum ErrorCodes {
   DOC_SIZE_EXCEEDED(HttpStatus.PAYLOAD_TOO_LARGE),
   DOC_ACCESS_DENIED(HttpStatus.FORBIDDEN),
   DOC_PDF_CONVERSION_FAILED(HttpStatus.UNSUPPORTED_MEDIA_TYPE),
+  DOC_RENDITION_JOB_NOT_FOUND(HttpStatus.NOT_FOUND),
+  DOC_UPLOAD_SESSION_NOT_FOUND(HttpStatus.NOT_FOUND),
+  DOC_UPLOAD_INCOMPLETE(HttpStatus.CONFLICT),
+  DOC_UPLOAD_OFFSET_MISMATCH(HttpStatus.CONFLICT),
 
   // Folder-related errors (FOLDER_*)
   FOLDER_NOT_FOUND(HttpStatus.NOT_FOUND),
@@ -45,7 +50,8 @@ public enum ErrorCodes {
   VAL_CHILDREN_FOLDER(HttpStatus.BAD_REQUEST),
 
   // System errors (SYS_*)
-  SYS_INTERNAL_ERROR(HttpStatus.INTERNAL_SERVER_ERROR);
+  SYS_INTERNAL_ERROR(HttpStatus.INTERNAL_SERVER_ERROR),
+  SYS_CONVERSION_BUSY(HttpStatus.SERVICE_UNAVAILABLE);
 
   private final HttpStatus httpStatus;
 
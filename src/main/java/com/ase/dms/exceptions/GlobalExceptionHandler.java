@@ -6,6 +6,7 @@ import java.util.HashMap;
 import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.MissingServletRequestParameterException;
@@ -42,6 +43,26 @@ public class GlobalExceptionHandler {
     return ResponseEntity.status(ex.getHttpStatus()).body(error);
   }
 
+  /**
+   * Handle a full conversion queue with 503 and a Retry-After hint
+   */
+  @ExceptionHandler(ConversionQueueFullException.class)
+  public ResponseEntity<ErrorResponseDTO> handleConversionQueueFullException(
+      ConversionQueueFullException ex, HttpServletRequest request) {
+
+    LOGGER.warn("Conversion rejected: {}", ex.getMessage());
+
+    ErrorResponseDTO error = new ErrorResponseDTO(
+        ex.getErrorCode(),
+        ex.getMessage(),
+        request.getRequestURI()
+    );
+
+    return ResponseEntity.status(ex.getHttpStatus())
+        .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+        .body(error);
+  }
+
   /**
    * Handle validation errors from @Valid annotations
    */
@@ -0,0 +1,13 @@
+package com.ase.dms.exceptions;
+
+/**
+ * The object does not exist in the bucket. Still an internal error for
+ * callers that expect it to be there, but lets callers that can recreate
+ * the object (e.g. a pdf rendition) tell it apart from other failures.
+ */
+public class MinIOObjectNotFoundException extends MinIOGetObjectDataException {
+
+  public MinIOObjectNotFoundException(String documentId, Throwable cause) {
+    super(documentId, cause);
+  }
+}
@@ -0,0 +1,12 @@
+package com.ase.dms.exceptions;
+
+/**
+ * Exception thrown when a rendition job is not found
+ */
+public class RenditionJobNotFoundException extends DmsException {
+
+    public RenditionJobNotFoundException(String jobId) {
+        super(ErrorCodes.DOC_RENDITION_JOB_NOT_FOUND,
+              "Rendition job with ID '" + jobId + "' was not found");
+    }
+}
@@ -0,0 +1,12 @@
+package com.ase.dms.exceptions;
+
+/**
+ * Exception thrown when an upload session is not found or has expired
+ */
+public class UploadSessionNotFoundException extends DmsException {
+
+    public UploadSessionNotFoundException(String sessionId) {
+        super(ErrorCodes.DOC_UPLOAD_SESSION_NOT_FOUND,
+              "Upload session with ID '" + sessionId + "' was not found or has expired");
+    }
+}
@@ -0,0 +1,39 @@
+package com.ase.dms.helpers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Splits collections into fixed-size batches for bulk SQL and storage calls,
+ * keeping IN lists and multi-object requests below backend limits.
+ */
+public final class Batches {
+
+  private Batches() {
+  }
+
+  /**
+   * @param items     the items to split, iterated once in order
+   * @param batchSize the maximum size of each batch
+   * @return consecutive batches; empty if there are no items
+   */
+  public static <T> List<List<T>> of(Collection<T> items, int batchSize) {
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("batchSize must be positive");
+    }
+    List<List<T>> batches = new ArrayList<>();
+    List<T> current = new ArrayList<>(Math.min(batchSize, items.size()));
+    for (T item : items) {
+      current.add(item);
+      if (current.size() == batchSize) {
+        batches.add(current);
+        current = new ArrayList<>(Math.min(batchSize, items.size()));
+      }
+    }
+    if (!current.isEmpty()) {
+      batches.add(current);
+    }
+    return batches;
+  }
+}
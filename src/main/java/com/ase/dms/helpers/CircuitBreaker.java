@@ -0,0 +1,66 @@
+package com.ase.dms.helpers;
+
+import java.time.Duration;
+
+/**
+ * Minimal circuit breaker for calls to a remote service.
+ * After {@code failureThreshold} consecutive failures the circuit opens and
+ * calls are refused without being attempted. Once {@code openFor} has passed
+ * a single trial call is let through: success closes the circuit, failure
+ * opens it again. Callers must report the outcome of every permitted call.
+ */
+public class CircuitBreaker {
+
+  public enum State { CLOSED, OPEN, HALF_OPEN }
+
+  private final int failureThreshold;
+  private final long openForNanos;
+
+  private State state = State.CLOSED;
+  private int consecutiveFailures;
+  private long openedAt;
+
+  public CircuitBreaker(int failureThreshold, Duration openFor) {
+    if (failureThreshold <= 0) {
+      throw new IllegalArgumentException("failureThreshold must be positive");
+    }
+    this.failureThreshold = failureThreshold;
+    this.openForNanos = openFor.toNanos();
+  }
+
+  /**
+   * @return true if the call may be attempted
+   */
+  public synchronized boolean tryAcquire() {
+    switch (state) {
+      case CLOSED:
+        return true;
+      case OPEN:
+        if (System.nanoTime() - openedAt >= openForNanos) {
+          state = State.HALF_OPEN;
+          return true;
+        }
+        return false;
+      default:
+        // A trial call is already in flight
+        return false;
+    }
+  }
+
+  public synchronized void onSuccess() {
+    state = State.CLOSED;
+    consecutiveFailures = 0;
+  }
+
+  public synchronized void onFailure() {
+    consecutiveFailures++;
+    if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+      state = State.OPEN;
+      openedAt = System.nanoTime();
+    }
+  }
+
+  public synchronized State getState() {
+    return state;
+  }
+}
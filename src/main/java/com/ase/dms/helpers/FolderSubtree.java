@@ -0,0 +1,105 @@
+package com.ase.dms.helpers;
+
+import com.ase.dms.repositories.FolderRepository.SubtreeRow;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Flat, in-memory view of a folder subtree as returned by
+ * {@link com.ase.dms.repositories.FolderRepository#findSubtree(String)}.
+ * Replaces walking lazy subfolder/document collections one folder at a time.
+ */
+public final class FolderSubtree {
+
+  private static final String KIND_FOLDER = "F";
+  private static final String KIND_DOCUMENT = "D";
+
+  private final String rootId;
+  private final Map<String, String> folderByDocument = new LinkedHashMap<>();
+  private final Map<String, String> hashByDocument = new HashMap<>();
+  private final Map<String, Long> sizeByDocument = new HashMap<>();
+  private final Set<String> folderIds = new LinkedHashSet<>();
+
+  private FolderSubtree(String rootId) {
+    this.rootId = rootId;
+  }
+
+  /**
+   * Builds the subtree from the query rows.
+   *
+   * @param rootId the folder the query started at
+   * @param rows   rows of {@code findSubtree}
+   * @return the subtree, empty if the root folder does not exist
+   */
+  public static Optional<FolderSubtree> of(String rootId, Collection<? extends SubtreeRow> rows) {
+    FolderSubtree tree = new FolderSubtree(rootId);
+    for (SubtreeRow row : rows) {
+      switch (row.getKind()) {
+        case KIND_FOLDER -> tree.folderIds.add(row.getId());
+        case KIND_DOCUMENT -> {
+          tree.folderByDocument.put(row.getId(), row.getParent());
+          if (row.getDetail() != null) {
+            tree.hashByDocument.put(row.getId(), row.getDetail());
+          }
+          tree.sizeByDocument.put(row.getId(), row.getBytes() != null ? row.getBytes() : 0L);
+        }
+        default -> throw new IllegalArgumentException("Unknown subtree row kind: " + row.getKind());
+      }
+    }
+    return tree.folderIds.contains(rootId) ? Optional.of(tree) : Optional.empty();
+  }
+
+  public String getRootId() {
+    return rootId;
+  }
+
+  /** All folder ids, the root included. */
+  public Set<String> getFolderIds() {
+    return Collections.unmodifiableSet(folderIds);
+  }
+
+  /** All document ids in any folder of the subtree. */
+  public Set<String> getDocumentIds() {
+    return Collections.unmodifiableSet(folderByDocument.keySet());
+  }
+
+  /** Distinct content hashes of the documents in the subtree. */
+  public Set<String> getContentHashes() {
+    return new HashSet<>(hashByDocument.values());
+  }
+
+  /** Content hash per document id; the hash is null for documents uploaded before hashing. */
+  public Map<String, String> getContentHashByDocument() {
+    Map<String, String> hashes = new LinkedHashMap<>();
+    folderByDocument.keySet().forEach(documentId -> hashes.put(documentId, hashByDocument.get(documentId)));
+    return hashes;
+  }
+
+  /** Summed size of all documents in bytes. */
+  public long getTotalSize() {
+    return sizeByDocument.values().stream().mapToLong(Long::longValue).sum();
+  }
+
+  /** Ids of the documents stored directly in one of the given folders. */
+  public Set<String> getDocumentIdsIn(Set<String> folders) {
+    Set<String> ids = new LinkedHashSet<>();
+    folderByDocument.forEach((documentId, folderId) -> {
+      if (folders.contains(folderId)) {
+        ids.add(documentId);
+      }
+    });
+    return ids;
+  }
+
+  /** Summed size in bytes of the documents stored directly in one of the given folders. */
+  public long getSizeIn(Set<String> folders) {
+    return getDocumentIdsIn(folders).stream().mapToLong(sizeByDocument::get).sum();
+  }
+}
@@ -0,0 +1,51 @@
+package com.ase.dms.helpers;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Small thread-safe LRU map with a fixed maximum number of entries.
+ * Used for in-memory indexes where a miss is cheap to recover from.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class LruCache<K, V> {
+
+  private static final int INITIAL_CAPACITY = 16;
+  private static final float LOAD_FACTOR = 0.75f;
+
+  private final Map<K, V> entries;
+
+  public LruCache(int maxEntries) {
+    if (maxEntries <= 0) {
+      throw new IllegalArgumentException("maxEntries must be positive");
+    }
+    this.entries = new LinkedHashMap<>(INITIAL_CAPACITY, LOAD_FACTOR, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+        return size() > maxEntries;
+      }
+    };
+  }
+
+  public synchronized V get(K key) {
+    return entries.get(key);
+  }
+
+  public synchronized void put(K key, V value) {
+    entries.put(key, value);
+  }
+
+  public synchronized void invalidate(K key) {
+    entries.remove(key);
+  }
+
+  public synchronized void invalidateAll() {
+    entries.clear();
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+}
@@ -0,0 +1,38 @@
+package com.ase.dms.helpers;
+
+import com.ase.dms.entities.DocumentEntity;
+import java.util.Locale;
+
+public class OfficeFormats {
+  /**
+   * Checks whether the document already is a PDF (by MIME type or file extension).
+   *
+   * @param document the document
+   * @return true if no conversion is needed
+   */
+  public static boolean isPdf(DocumentEntity document) {
+    return type(document).contains("pdf") || name(document).endsWith(".pdf");
+  }
+
+  /**
+   * Checks whether the document is a common office format LibreOffice can convert to PDF.
+   *
+   * @param document the document
+   * @return true if the document can be converted
+   */
+  public static boolean isConvertible(DocumentEntity document) {
+    String type = type(document);
+    return type.contains("msword")
+        || type.contains("officedocument")
+        || type.contains("vnd.openxmlformats-officedocument")
+        || name(document).matches(".*\\.(doc|docx|xls|xlsx|ppt|pptx)$");
+  }
+
+  private static String type(DocumentEntity document) {
+    return document.getType() != null ? document.getType().toLowerCase(Locale.ROOT) : "";
+  }
+
+  private static String name(DocumentEntity document) {
+    return document.getName() != null ? document.getName().toLowerCase(Locale.ROOT) : "document";
+  }
+}
@@ -0,0 +1,152 @@
+package com.ase.dms.helpers;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 (FIPS 180-4) whose intermediate state can be saved and restored.
+ * Resumable uploads receive a file over many requests, possibly on different
+ * instances; the hash is carried along with the upload instead of reading the
+ * whole file back at the end. {@link java.security.MessageDigest} cannot
+ * export its state, hence this small implementation.
+ */
+public final class ResumableSha256 {
+
+  private static final int BLOCK_SIZE = 64;
+  private static final int ROUNDS = 64;
+  private static final int WORDS = 8;
+  private static final int LENGTH_FIELD = 8;
+  private static final byte PADDING_START = (byte) 0x80;
+  // Rotation amounts of the Sigma0, Sigma1, sigma0 and sigma1 functions; the last of sigma0/sigma1 is a shift
+  private static final int[] BIG_SIGMA0 = {2, 13, 22};
+  private static final int[] BIG_SIGMA1 = {6, 11, 25};
+  private static final int[] SMALL_SIGMA0 = {7, 18, 3};
+  private static final int[] SMALL_SIGMA1 = {17, 19, 10};
+  // Message schedule offsets of w[t-15], w[t-2], w[t-7] and w[t-16]
+  private static final int[] SCHEDULE = {15, 2, 7, 16};
+  private static final int[] INITIAL = {
+      0x6a09e667, 0xbb67ae85, 0x3c6ef372, 0xa54ff53a, 0x510e527f, 0x9b05688c, 0x1f83d9ab, 0x5be0cd19
+  };
+  private static final int[] K = {
+      0x428a2f98, 0x71374491, 0xb5c0fbcf, 0xe9b5dba5, 0x3956c25b, 0x59f111f1, 0x923f82a4, 0xab1c5ed5,
+      0xd807aa98, 0x12835b01, 0x243185be, 0x550c7dc3, 0x72be5d74, 0x80deb1fe, 0x9bdc06a7, 0xc19bf174,
+      0xe49b69c1, 0xefbe4786, 0x0fc19dc6, 0x240ca1cc, 0x2de92c6f, 0x4a7484aa, 0x5cb0a9dc, 0x76f988da,
+      0x983e5152, 0xa831c66d, 0xb00327c8, 0xbf597fc7, 0xc6e00bf3, 0xd5a79147, 0x06ca6351, 0x14292967,
+      0x27b70a85, 0x2e1b2138, 0x4d2c6dfc, 0x53380d13, 0x650a7354, 0x766a0abb, 0x81c2c92e, 0x92722c85,
+      0xa2bfe8a1, 0xa81a664b, 0xc24b8b70, 0xc76c51a3, 0xd192e819, 0xd6990624, 0xf40e3585, 0x106aa070,
+      0x19a4c116, 0x1e376c08, 0x2748774c, 0x34b0bcb5, 0x391c0cb3, 0x4ed8aa4a, 0x5b9cca4f, 0x682e6ff3,
+      0x748f82ee, 0x78a5636f, 0x84c87814, 0x8cc70208, 0x90befffa, 0xa4506ceb, 0xbef9a3f7, 0xc67178f2
+  };
+
+  private final int[] h;
+  private final byte[] block = new byte[BLOCK_SIZE];
+  private int blockLength;
+  private long length;
+  private final int[] w = new int[ROUNDS];
+
+  public ResumableSha256() {
+    this.h = INITIAL.clone();
+  }
+
+  /**
+   * @param state a state returned by {@link #saveState()}
+   * @return a hash that continues where the saved one stopped
+   */
+  public static ResumableSha256 restore(byte[] state) {
+    ByteBuffer buffer = ByteBuffer.wrap(state);
+    ResumableSha256 sha = new ResumableSha256();
+    for (int i = 0; i < WORDS; i++) {
+      sha.h[i] = buffer.getInt();
+    }
+    sha.length = buffer.getLong();
+    sha.blockLength = buffer.remaining();
+    buffer.get(sha.block, 0, sha.blockLength);
+    return sha;
+  }
+
+  /**
+   * @return the intermediate state, at most 103 bytes
+   */
+  public byte[] saveState() {
+    ByteBuffer buffer = ByteBuffer.allocate(WORDS * Integer.BYTES + Long.BYTES + blockLength);
+    for (int word : h) {
+      buffer.putInt(word);
+    }
+    buffer.putLong(length);
+    buffer.put(block, 0, blockLength);
+    return buffer.array();
+  }
+
+  public void update(byte[] data, int offset, int count) {
+    length += count;
+    int position = offset;
+    int end = offset + count;
+    while (position < end) {
+      int take = Math.min(BLOCK_SIZE - blockLength, end - position);
+      System.arraycopy(data, position, block, blockLength, take);
+      blockLength += take;
+      position += take;
+      if (blockLength == BLOCK_SIZE) {
+        compress(block);
+        blockLength = 0;
+      }
+    }
+  }
+
+  /**
+   * Finishes a copy of the hash; this instance can still be updated or saved.
+   *
+   * @return the SHA-256 of all data so far as lowercase hex
+   */
+  public String hexDigest() {
+    ResumableSha256 copy = restore(saveState());
+    long bits = copy.length * Byte.SIZE;
+    byte[] padding = new byte[BLOCK_SIZE * 2];
+    padding[0] = PADDING_START;
+    int padLength = (copy.blockLength < BLOCK_SIZE - LENGTH_FIELD ? BLOCK_SIZE : BLOCK_SIZE * 2)
+        - copy.blockLength - LENGTH_FIELD;
+    copy.update(padding, 0, padLength);
+    copy.update(ByteBuffer.allocate(LENGTH_FIELD).putLong(bits).array(), 0, LENGTH_FIELD);
+    ByteBuffer digest = ByteBuffer.allocate(WORDS * Integer.BYTES);
+    Arrays.stream(copy.h).forEach(digest::putInt);
+    return HexFormat.of().formatHex(digest.array());
+  }
+
+  private void compress(byte[] chunk) {
+    ByteBuffer words = ByteBuffer.wrap(chunk);
+    int first = SCHEDULE[SCHEDULE.length - 1];
+    for (int t = 0; t < first; t++) {
+      w[t] = words.getInt();
+    }
+    for (int t = first; t < ROUNDS; t++) {
+      int w15 = w[t - SCHEDULE[0]];
+      int w2 = w[t - SCHEDULE[1]];
+      int s0 = Integer.rotateRight(w15, SMALL_SIGMA0[0]) ^ Integer.rotateRight(w15, SMALL_SIGMA0[1])
+          ^ (w15 >>> SMALL_SIGMA0[2]);
+      int s1 = Integer.rotateRight(w2, SMALL_SIGMA1[0]) ^ Integer.rotateRight(w2, SMALL_SIGMA1[1])
+          ^ (w2 >>> SMALL_SIGMA1[2]);
+      w[t] = w[t - SCHEDULE[2 + 1]] + s0 + w[t - SCHEDULE[2]] + s1;
+    }
+
+    int[] v = h.clone();
+    for (int t = 0; t < ROUNDS; t++) {
+      int e = v[WORDS / 2];
+      int a = v[0];
+      int s1 = Integer.rotateRight(e, BIG_SIGMA1[0]) ^ Integer.rotateRight(e, BIG_SIGMA1[1])
+          ^ Integer.rotateRight(e, BIG_SIGMA1[2]);
+      int ch = (e & v[WORDS / 2 + 1]) ^ (~e & v[WORDS / 2 + 2]);
+      int temp1 = v[WORDS - 1] + s1 + ch + K[t] + w[t];
+      int s0 = Integer.rotateRight(a, BIG_SIGMA0[0]) ^ Integer.rotateRight(a, BIG_SIGMA0[1])
+          ^ Integer.rotateRight(a, BIG_SIGMA0[2]);
+      int maj = (a & v[1]) ^ (a & v[2]) ^ (v[1] & v[2]);
+      // Shift the working variables a..h by one and insert the new a and e
+      System.arraycopy(v, 0, v, 1, WORDS - 1);
+      v[0] = temp1 + s0 + maj;
+      v[WORDS / 2] += temp1;
+    }
+    for (int i = 0; i < WORDS; i++) {
+      h[i] += v[i];
+    }
+  }
+}
@@ -0,0 +1,73 @@
+package com.ase.dms.helpers;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key: the first caller runs the
+ * loader, everyone arriving while it is in flight waits for and receives
+ * the same result (or exception). Nothing is cached once the call completes.
+ *
+ * @param <K> key type
+ * @param <V> result type
+ */
+public class SingleFlight<K, V> {
+
+  private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+  private final LongAdder executed = new LongAdder();
+  private final LongAdder coalesced = new LongAdder();
+
+  public V execute(K key, Supplier<V> loader) {
+    CompletableFuture<V> own = new CompletableFuture<>();
+    CompletableFuture<V> existing = inFlight.putIfAbsent(key, own);
+    if (existing != null) {
+      coalesced.increment();
+      return join(existing);
+    }
+
+    executed.increment();
+    try {
+      V value = loader.get();
+      own.complete(value);
+      return value;
+    }
+    catch (RuntimeException | Error e) {
+      own.completeExceptionally(e);
+      throw e;
+    }
+    finally {
+      inFlight.remove(key, own);
+    }
+  }
+
+  private static <V> V join(CompletableFuture<V> future) {
+    try {
+      return future.join();
+    }
+    catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      if (e.getCause() instanceof Error cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  public long getExecutedCount() {
+    return executed.sum();
+  }
+
+  public long getCoalescedCount() {
+    return coalesced.sum();
+  }
+
+  public int getInFlightCount() {
+    return inFlight.size();
+  }
+}
@@ -0,0 +1,33 @@
+package com.ase.dms.repositories;
+
+import com.ase.dms.entities.BlobEntity;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface BlobRepository extends JpaRepository<BlobEntity, String> {
+  // Adds a reference to already stored content; 0 if the content is not stored yet
+  @Modifying
+  @Query("UPDATE BlobEntity b SET b.refCount = b.refCount + 1 WHERE b.hash = :hash")
+  int incrementRefCount(@Param("hash") String hash);
+
+  @Modifying
+  @Query("UPDATE BlobEntity b SET b.refCount = b.refCount - :count WHERE b.storageKey = :storageKey")
+  int decrementRefCount(@Param("storageKey") String storageKey, @Param("count") long count);
+
+  // Removes a row whose inserting transaction rolled back, unless another upload references it meanwhile
+  @Modifying
+  @Query("DELETE FROM BlobEntity b WHERE b.hash = :hash AND b.refCount <= 0")
+  int deleteUnreferenced(@Param("hash") String hash);
+
+  // Callers keep IN lists at most 1000 keys long
+  @Query("SELECT b.storageKey FROM BlobEntity b WHERE b.storageKey IN :storageKeys AND b.refCount <= 0")
+  List<String> findUnreferencedStorageKeys(@Param("storageKeys") Collection<String> storageKeys);
+
+  @Modifying
+  @Query("DELETE FROM BlobEntity b WHERE b.storageKey IN :storageKeys")
+  int deleteByStorageKeyIn(@Param("storageKeys") Collection<String> storageKeys);
+}
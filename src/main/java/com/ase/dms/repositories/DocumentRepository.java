@@ -1,9 +1,13 @@
 package com.ase.dms.repositories;
 
+import com.ase.dms.dtos.DocumentSummaryDTO;
 import com.ase.dms.entities.DocumentEntity;
 import com.ase.dms.entities.FolderEntity;
+import java.util.Collection;
 import java.util.List;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -14,4 +18,60 @@ public interface DocumentRepository extends JpaRepository<DocumentEntity, String
   // Find documents by folder ID using custom query
   @Query("SELECT d FROM DocumentEntity d WHERE d.folder.id = :folderId")
   List<DocumentEntity> findByFolderId(@Param("folderId") String folderId);
+
+  // Keyset page of the object keys rows point at, in key order (reconciler): documents stored under
+  // their own id or a storage key (also one whose blob row is gone), shared blobs and the tails of
+  // paused resumable uploads, which may be older than the grace period; UNION drops the keys a
+  // document shares with its blob; keys are UUIDs, so the order is collation independent
+  @Query(value = """
+      SELECT k.object_key FROM (
+        SELECT d.id AS object_key FROM document_entity d WHERE d.storage_key IS NULL AND d.id > :after
+        UNION
+        SELECT DISTINCT d.storage_key FROM document_entity d WHERE d.storage_key > :after
+        UNION
+        SELECT b.storage_key FROM content_blob b WHERE b.storage_key > :after
+        UNION
+        SELECT s.tail_object FROM upload_session s WHERE s.tail_object > :after
+      ) k
+      ORDER BY k.object_key
+      """, nativeQuery = true)
+  List<String> findObjectKeysAfter(@Param("after") String after, Pageable pageable);
+
+  // Storage key per document, read before a bulk delete so the blobs can be released
+  @Query("SELECT d.id AS documentId, d.storageKey AS storageKey FROM DocumentEntity d WHERE d.id IN :ids")
+  List<StorageKeyRow> findStorageKeysByIds(@Param("ids") Collection<String> ids);
+
+  // Which of the given content hashes are still used by any document
+  @Query("SELECT DISTINCT d.contentHash FROM DocumentEntity d WHERE d.contentHash IN :hashes")
+  List<String> findReferencedContentHashes(@Param("hashes") Collection<String> hashes);
+
+  // Set-based deletes for bulk folder removal; callers keep IN lists at most 1000 ids long
+  @Modifying
+  @Query(value = "DELETE FROM document_entity_tags WHERE document_entity_id IN :ids", nativeQuery = true)
+  int deleteTagLinksByDocumentIds(@Param("ids") Collection<String> ids);
+
+  @Modifying
+  @Query("DELETE FROM DocumentEntity d WHERE d.id IN :ids")
+  int deleteByIdIn(@Param("ids") Collection<String> ids);
+
+  // Listing projection, tags are loaded separately for all documents at once
+  @Query("SELECT new com.ase.dms.dtos.DocumentSummaryDTO(d.id, d.name, d.type, d.size, d.ownerId, "
+      + "d.createdDate, d.downloadUrl, d.folder.id) FROM DocumentEntity d WHERE d.folder.id = :folderId "
+      + "ORDER BY d.name")
+  List<DocumentSummaryDTO> findSummariesByFolderId(@Param("folderId") String folderId);
+
+  @Query("SELECT d.id AS documentId, t.uuid AS uuid, t.name AS name "
+      + "FROM DocumentEntity d JOIN d.tags t WHERE d.id IN :ids")
+  List<TagRow> findTagsByDocumentIds(@Param("ids") Collection<String> ids);
+
+  interface StorageKeyRow {
+    String getDocumentId();
+    String getStorageKey();
+  }
+
+  interface TagRow {
+    String getDocumentId();
+    String getUuid();
+    String getName();
+  }
 }
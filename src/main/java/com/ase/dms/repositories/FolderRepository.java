@@ -1,9 +1,12 @@
 package com.ase.dms.repositories;
 
+import com.ase.dms.dtos.FolderSummaryDTO;
 import com.ase.dms.entities.FolderEntity;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -20,4 +23,98 @@ public interface FolderRepository extends JpaRepository<FolderEntity, String> {
 
   // Find all root folders
   List<FolderEntity> findByParentIsNull();
+
+  // Listing projections: one level only, no entity graph is loaded
+  @Query("SELECT new com.ase.dms.dtos.FolderSummaryDTO(f.id, f.name, f.createdDate, p.id) "
+      + "FROM FolderEntity f LEFT JOIN f.parent p WHERE f.id = :id")
+  Optional<FolderSummaryDTO> findSummaryById(@Param("id") String id);
+
+  @Query("SELECT new com.ase.dms.dtos.FolderSummaryDTO(f.id, f.name, f.createdDate, p.id) "
+      + "FROM FolderEntity f LEFT JOIN f.parent p WHERE f.name = :name AND p IS NULL")
+  Optional<FolderSummaryDTO> findRootSummaryByName(@Param("name") String name);
+
+  @Query("SELECT new com.ase.dms.dtos.FolderSummaryDTO(f.id, f.name, f.createdDate, f.parent.id) "
+      + "FROM FolderEntity f WHERE f.parent.id = :parentId ORDER BY f.name")
+  List<FolderSummaryDTO> findSummariesByParentId(@Param("parentId") String parentId);
+
+  // Direct children visible to a cohort: public folders or folders listing the cohort
+  @Query("SELECT new com.ase.dms.dtos.FolderSummaryDTO(f.id, f.name, f.createdDate, f.parent.id) "
+      + "FROM FolderEntity f WHERE f.parent.id = :parentId "
+      + "AND (f.studyGroupIds IS EMPTY OR :cohort MEMBER OF f.studyGroupIds) ORDER BY f.name")
+  List<FolderSummaryDTO> findVisibleSummariesByParentId(@Param("parentId") String parentId,
+                                                        @Param("cohort") String cohort);
+
+  @Query("SELECT f.id AS folderId, g AS studyGroupId FROM FolderEntity f JOIN f.studyGroupIds g WHERE f.id IN :ids")
+  List<StudyGroupRow> findStudyGroupsByFolderIds(@Param("ids") Collection<String> ids);
+
+  /**
+   * Loads a folder and everything below it in one statement.
+   * Rows are tagged by kind: F = folder (parent), D = document (folder,
+   * content hash, size). Visibility is resolved by {@link #findVisibleFolderIds}.
+   * Consumed through {@link com.ase.dms.helpers.FolderSubtree}.
+   */
+  @Query(value = """
+      WITH RECURSIVE subtree(id, parent_id) AS (
+        SELECT f.id, f.parent_id FROM folder_entity f WHERE f.id = :rootId
+        UNION ALL
+        SELECT c.id, c.parent_id FROM folder_entity c JOIN subtree s ON c.parent_id = s.id
+      )
+      SELECT 'F' AS kind, s.id AS id, s.parent_id AS parent,
+             CAST(NULL AS VARCHAR(255)) AS detail, CAST(0 AS BIGINT) AS bytes
+        FROM subtree s
+      UNION ALL
+      SELECT 'D', d.id, d.folder_id, d.content_hash, d.size
+        FROM document_entity d JOIN subtree s ON d.folder_id = s.id
+      """, nativeQuery = true)
+  List<SubtreeRow> findSubtree(@Param("rootId") String rootId);
+
+  /**
+   * Ids of all folders below and including the root that a cohort may see.
+   * The recursion only descends into visible folders, so a hidden folder
+   * hides its whole subtree and hidden rows never leave the database.
+   * A null cohort sees public folders only.
+   */
+  @Query(value = """
+      WITH RECURSIVE visible(id) AS (
+        SELECT f.id FROM folder_entity f
+         WHERE f.id = :rootId
+           AND (NOT EXISTS (SELECT 1 FROM folder_study_groups g WHERE g.folder_id = f.id)
+                OR EXISTS (SELECT 1 FROM folder_study_groups g
+                            WHERE g.study_group_id = :cohort AND g.folder_id = f.id))
+        UNION ALL
+        SELECT c.id FROM folder_entity c JOIN visible v ON c.parent_id = v.id
+         WHERE NOT EXISTS (SELECT 1 FROM folder_study_groups g WHERE g.folder_id = c.id)
+            OR EXISTS (SELECT 1 FROM folder_study_groups g
+                        WHERE g.study_group_id = :cohort AND g.folder_id = c.id)
+      )
+      SELECT id FROM visible
+      """, nativeQuery = true)
+  List<String> findVisibleFolderIds(@Param("rootId") String rootId, @Param("cohort") String cohort);
+
+  // Set-based deletes for bulk folder removal; callers keep IN lists at most 1000 ids long
+  @Modifying
+  @Query(value = "DELETE FROM folder_study_groups WHERE folder_id IN :ids", nativeQuery = true)
+  int deleteStudyGroupsByFolderIds(@Param("ids") Collection<String> ids);
+
+  // Breaks the self reference so folders of one subtree can be deleted in any order
+  @Modifying
+  @Query("UPDATE FolderEntity f SET f.parent = NULL WHERE f.id IN :ids")
+  int detachByIdIn(@Param("ids") Collection<String> ids);
+
+  @Modifying(clearAutomatically = true)
+  @Query("DELETE FROM FolderEntity f WHERE f.id IN :ids")
+  int deleteByIdIn(@Param("ids") Collection<String> ids);
+
+  interface SubtreeRow {
+    String getKind();
+    String getId();
+    String getParent();
+    String getDetail();
+    Long getBytes();
+  }
+
+  interface StudyGroupRow {
+    String getFolderId();
+    String getStudyGroupId();
+  }
 }
@@ -0,0 +1,7 @@
+package com.ase.dms.repositories;
+
+import com.ase.dms.entities.ReconciliationCheckpointEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ReconciliationCheckpointRepository extends JpaRepository<ReconciliationCheckpointEntity, String> {
+}
@@ -0,0 +1,41 @@
+package com.ase.dms.repositories;
+
+import com.ase.dms.entities.RenditionJobEntity;
+import com.ase.dms.entities.RenditionJobStatus;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface RenditionJobRepository extends JpaRepository<RenditionJobEntity, String> {
+  // Latest job of a document in one of the given states (used to avoid duplicate jobs)
+  Optional<RenditionJobEntity> findFirstByDocumentIdAndStatusInOrderByCreatedDateDesc(
+      String documentId, Collection<RenditionJobStatus> statuses);
+
+  // Jobs in a state that have not been touched since the cutoff (sweeper)
+  List<RenditionJobEntity> findByStatusAndUpdatedDateBefore(
+      RenditionJobStatus status, LocalDateTime cutoff, Pageable pageable);
+
+  // Finished jobs past their retention (sweeper); clients poll a job only shortly after requesting it
+  @Modifying
+  @Transactional
+  @Query("DELETE FROM RenditionJobEntity j WHERE j.status IN :statuses AND j.updatedDate < :cutoff")
+  int deleteByStatusInAndUpdatedDateBefore(@Param("statuses") Collection<RenditionJobStatus> statuses,
+                                           @Param("cutoff") LocalDateTime cutoff);
+
+  // Atomically move a job from one state to another; returns 0 if someone else was faster
+  @Modifying
+  @Transactional
+  @Query("UPDATE RenditionJobEntity j SET j.status = :to, j.updatedDate = :now "
+      + "WHERE j.id = :id AND j.status = :from")
+  int transition(@Param("id") String id,
+                 @Param("from") RenditionJobStatus from,
+                 @Param("to") RenditionJobStatus to,
+                 @Param("now") LocalDateTime now);
+}
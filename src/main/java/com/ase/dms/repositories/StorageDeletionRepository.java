@@ -0,0 +1,12 @@
+package com.ase.dms.repositories;
+
+import com.ase.dms.entities.StorageDeletionEntity;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface StorageDeletionRepository extends JpaRepository<StorageDeletionEntity, Long> {
+  // Oldest entries that are due for a (re)try
+  List<StorageDeletionEntity> findByNextAttemptAtLessThanEqualOrderByIdAsc(LocalDateTime now, Pageable pageable);
+}
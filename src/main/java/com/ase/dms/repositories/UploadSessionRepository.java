@@ -0,0 +1,12 @@
+package com.ase.dms.repositories;
+
+import com.ase.dms.entities.UploadSessionEntity;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface UploadSessionRepository extends JpaRepository<UploadSessionEntity, String> {
+  // Sessions that were never completed (cleanup job)
+  List<UploadSessionEntity> findByExpiresAtBefore(LocalDateTime cutoff, Pageable pageable);
+}
@@ -0,0 +1,81 @@
+package com.ase.dms.security;
+
+import com.ase.dms.helpers.LruCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+/**
+ * Remembers successfully decoded tokens for a short time, so repeated
+ * requests with the same bearer token skip signature verification and claim
+ * conversion. Entries are keyed by the SHA-256 of the token, never outlive
+ * the token's expiry, and failures are not cached.
+ */
+public class CachingJwtDecoder implements JwtDecoder {
+
+  private record Entry(Jwt jwt, Instant validUntil) {
+  }
+
+  private final JwtDecoder delegate;
+  private final Duration ttl;
+  private final Clock clock;
+  private final LruCache<String, Entry> cache;
+  private final Counter hits;
+  private final Counter misses;
+
+  public CachingJwtDecoder(JwtDecoder delegate, Duration ttl, int maxEntries, Clock clock,
+                           MeterRegistry meterRegistry) {
+    this.delegate = delegate;
+    this.ttl = ttl;
+    this.clock = clock;
+    this.cache = new LruCache<>(maxEntries);
+    this.hits = decodes(meterRegistry, "hit");
+    this.misses = decodes(meterRegistry, "miss");
+  }
+
+  private static Counter decodes(MeterRegistry meterRegistry, String result) {
+    return Counter.builder("dms.jwt.decodes")
+        .description("Bearer tokens by decode cache result")
+        .tag("result", result)
+        .register(meterRegistry);
+  }
+
+  @Override
+  public Jwt decode(String token) throws JwtException {
+    String key = hash(token);
+    Instant now = clock.instant();
+    Entry entry = cache.get(key);
+    if (entry != null && now.isBefore(entry.validUntil())) {
+      hits.increment();
+      return entry.jwt();
+    }
+
+    misses.increment();
+    Jwt jwt = delegate.decode(token);
+    Instant validUntil = now.plus(ttl);
+    if (jwt.getExpiresAt() != null && jwt.getExpiresAt().isBefore(validUntil)) {
+      validUntil = jwt.getExpiresAt();
+    }
+    cache.put(key, new Entry(jwt, validUntil));
+    return jwt;
+  }
+
+  private static String hash(String token) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+      return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+    }
+    catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
+  }
+}
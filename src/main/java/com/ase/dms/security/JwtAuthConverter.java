@@ -4,25 +4,27 @@
 package com.ase.dms.security;
 
 import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.lang.NonNull;
-import java.util.Collection;
+import java.util.List;
 import java.util.stream.Collectors;
 
-public class JwtAuthConverter implements Converter<Jwt, Collection<GrantedAuthority>> {
+/**
+ * Builds the authentication for a validated JWT. Authorities come from the
+ * groups claim; all roles are parsed once and kept on the token for
+ * {@link UserInformationJWT#hasRole(String)}.
+ */
+public class JwtAuthConverter implements Converter<Jwt, AbstractAuthenticationToken> {
 
     @Override
-    public Collection<GrantedAuthority> convert(@NonNull Jwt jwt) {
-        var roles = jwt.getClaimAsStringList("groups");
-
-        // you can check the roles here if you want to
-        //for (String role : roles) {
-        //System.out.println("Role from JWT: " + role);
-        // }
-        return roles.stream()
+    public AbstractAuthenticationToken convert(@NonNull Jwt jwt) {
+        var groups = jwt.getClaimAsStringList("groups");
+        List<GrantedAuthority> authorities = groups == null ? List.of() : groups.stream()
                 .map(role -> new SimpleGrantedAuthority("ROLE_" + role))
                 .collect(Collectors.toList());
+        return new RoleAwareJwtAuthenticationToken(jwt, authorities, UserInformationJWT.extractRoles(jwt));
     }
 }
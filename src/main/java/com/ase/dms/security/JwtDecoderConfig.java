@@ -0,0 +1,56 @@
+package com.ase.dms.security;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+/**
+ * JwtDecoder for the resource server. Verification keys come from a
+ * {@link PersistentJwkSource} and decoded tokens are cached briefly by
+ * {@link CachingJwtDecoder}. Replaces the decoder Spring Boot would build
+ * from the same jwk-set-uri and issuer-uri.
+ */
+@Configuration
+public class JwtDecoderConfig {
+
+  @Bean
+  public JwtDecoder jwtDecoder(
+      @Value("${spring.security.oauth2.resourceserver.jwt.jwk-set-uri}") String jwkSetUri,
+      @Value("${spring.security.oauth2.resourceserver.jwt.issuer-uri}") String issuerUri,
+      @Value("${security.jwt.jws-algorithms:RS256}") Set<String> jwsAlgorithms,
+      @Value("${security.jwt.jwk-cache-file:}") String jwkCacheFile,
+      @Value("${security.jwt.jwk-timeout:PT5S}") Duration jwkTimeout,
+      @Value("${security.jwt.jwk-refresh-after:PT15M}") Duration jwkRefreshAfter,
+      @Value("${security.jwt.jwk-min-refresh-interval:PT30S}") Duration jwkMinRefreshInterval,
+      @Value("${security.jwt.token-cache.ttl:PT1M}") Duration tokenCacheTtl,
+      @Value("${security.jwt.token-cache.max-entries:10000}") int tokenCacheMaxEntries,
+      MeterRegistry meterRegistry) {
+    PersistentJwkSource jwkSource = new PersistentJwkSource(URI.create(jwkSetUri),
+        jwkCacheFile.isBlank() ? null : Path.of(jwkCacheFile), jwkTimeout, jwkRefreshAfter, jwkMinRefreshInterval);
+
+    DefaultJWTProcessor<SecurityContext> processor = new DefaultJWTProcessor<>();
+    processor.setJWSKeySelector(new JWSVerificationKeySelector<>(
+        jwsAlgorithms.stream().map(JWSAlgorithm::parse).collect(Collectors.toSet()), jwkSource));
+    // Claims are checked by Spring's validators below
+    processor.setJWTClaimsSetVerifier((claims, context) -> {
+    });
+
+    NimbusJwtDecoder decoder = new NimbusJwtDecoder(processor);
+    decoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(issuerUri));
+    return new CachingJwtDecoder(decoder, tokenCacheTtl, tokenCacheMaxEntries, Clock.systemUTC(), meterRegistry);
+  }
+}
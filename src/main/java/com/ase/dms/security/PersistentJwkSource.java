@@ -0,0 +1,209 @@
+package com.ase.dms.security;
+
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * JWK set of the identity provider, kept in memory and in a local file.
+ * The file is read on startup, so tokens can be verified before (and
+ * without) reaching the identity provider. Once the keys are older than
+ * the refresh interval they are refreshed in the background while the
+ * current keys keep being used; a token signed with an unknown key forces
+ * one synchronous refresh, rate limited to cover key rotation. A failed
+ * refresh keeps the last known keys.
+ */
+@Slf4j
+public class PersistentJwkSource implements JWKSource<SecurityContext> {
+
+  private static final int HTTP_OK = 200;
+
+  private record Keys(JWKSet jwkSet, long fetchedAt) {
+  }
+
+  private final URI jwkSetUri;
+  private final Path cacheFile;
+  private final HttpClient httpClient;
+  private final Duration timeout;
+  private final long refreshAfterNanos;
+  private final long minRefreshIntervalNanos;
+  private final AtomicBoolean refreshing = new AtomicBoolean();
+  // A lock rather than synchronized: the fetch blocks on I/O and must not pin a virtual thread
+  private final ReentrantLock fetchLock = new ReentrantLock();
+  private volatile Keys current;
+
+  /**
+   * @param jwkSetUri          JWK set endpoint of the identity provider
+   * @param cacheFile          file the keys are persisted to, or null to keep them in memory only
+   * @param timeout            connect and request timeout for the endpoint
+   * @param refreshAfter       age after which keys are refreshed in the background
+   * @param minRefreshInterval minimum time between refreshes caused by unknown keys
+   */
+  public PersistentJwkSource(URI jwkSetUri, Path cacheFile, Duration timeout, Duration refreshAfter,
+                             Duration minRefreshInterval) {
+    this.jwkSetUri = jwkSetUri;
+    this.cacheFile = cacheFile;
+    this.timeout = timeout;
+    this.httpClient = HttpClient.newBuilder().connectTimeout(timeout).build();
+    this.refreshAfterNanos = refreshAfter.toNanos();
+    this.minRefreshIntervalNanos = minRefreshInterval.toNanos();
+    this.current = loadFile();
+  }
+
+  @Override
+  public List<JWK> get(JWKSelector jwkSelector, SecurityContext context) throws KeySourceException {
+    Keys keys = current;
+    if (keys == null) {
+      keys = refresh(null);
+    }
+    else if (System.nanoTime() - keys.fetchedAt() >= refreshAfterNanos) {
+      refreshInBackground();
+    }
+
+    List<JWK> matches = jwkSelector.select(keys.jwkSet());
+    if (matches.isEmpty() && System.nanoTime() - keys.fetchedAt() >= minRefreshIntervalNanos) {
+      // Probably a rotated key
+      matches = jwkSelector.select(refresh(keys).jwkSet());
+    }
+    return matches;
+  }
+
+  // Fetches unless another thread already replaced the keys the caller saw
+  private Keys refresh(Keys seen) throws KeySourceException {
+    fetchLock.lock();
+    try {
+      Keys latest = current;
+      if (latest != null && latest != seen) {
+        return latest;
+      }
+      try {
+        return store(fetch());
+      }
+      catch (IOException | ParseException e) {
+        if (latest != null) {
+          log.warn("Refreshing JWK set from {} failed, keeping known keys: {}", jwkSetUri, e.getMessage());
+          return latest;
+        }
+        throw new KeySourceException("Could not load JWK set from " + jwkSetUri, e);
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new KeySourceException("Interrupted while loading JWK set", e);
+      }
+    }
+    finally {
+      fetchLock.unlock();
+    }
+  }
+
+  private void refreshInBackground() {
+    if (!refreshing.compareAndSet(false, true)) {
+      return;
+    }
+    httpClient.sendAsync(request(), HttpResponse.BodyHandlers.ofString())
+        .whenComplete((response, error) -> {
+          try {
+            if (error != null) {
+              log.warn("Refreshing JWK set from {} failed: {}", jwkSetUri, error.getMessage());
+            }
+            else {
+              store(parse(response));
+            }
+          }
+          catch (IOException | ParseException e) {
+            log.warn("Refreshing JWK set from {} failed: {}", jwkSetUri, e.getMessage());
+          }
+          finally {
+            refreshing.set(false);
+          }
+        });
+  }
+
+  private String fetch() throws IOException, InterruptedException {
+    return parse(httpClient.send(request(), HttpResponse.BodyHandlers.ofString()));
+  }
+
+  private HttpRequest request() {
+    return HttpRequest.newBuilder(jwkSetUri).timeout(timeout).GET().build();
+  }
+
+  private static String parse(HttpResponse<String> response) throws IOException {
+    if (response.statusCode() != HTTP_OK) {
+      throw new IOException("JWK set endpoint answered " + response.statusCode());
+    }
+    return response.body();
+  }
+
+  private Keys store(String json) throws ParseException {
+    JWKSet jwkSet = JWKSet.parse(json);
+    Keys keys = new Keys(jwkSet, System.nanoTime());
+    current = keys;
+    writeFile(jwkSet);
+    return keys;
+  }
+
+  private Keys loadFile() {
+    if (cacheFile == null || !Files.isRegularFile(cacheFile)) {
+      return null;
+    }
+    try {
+      JWKSet jwkSet = JWKSet.parse(Files.readString(cacheFile, StandardCharsets.UTF_8));
+      log.info("Loaded {} keys from {}", jwkSet.size(), cacheFile);
+      // Usable right away, but refreshed on first use
+      return new Keys(jwkSet, System.nanoTime() - Math.max(refreshAfterNanos, minRefreshIntervalNanos));
+    }
+    catch (IOException | ParseException e) {
+      log.warn("Ignoring unreadable JWK cache file {}: {}", cacheFile, e.getMessage());
+      return null;
+    }
+  }
+
+  // Written to a temporary file and moved, so a crash never leaves a half-written file
+  private void writeFile(JWKSet jwkSet) {
+    if (cacheFile == null) {
+      return;
+    }
+    Path temp = null;
+    try {
+      Path directory = cacheFile.toAbsolutePath().getParent();
+      Files.createDirectories(directory);
+      temp = Files.createTempFile(directory, "jwks-", ".tmp");
+      Files.writeString(temp, jwkSet.toString(true), StandardCharsets.UTF_8);
+      Files.move(temp, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    catch (IOException e) {
+      log.warn("Could not persist JWK set to {}: {}", cacheFile, e.getMessage());
+      deleteQuietly(temp);
+    }
+  }
+
+  private static void deleteQuietly(Path path) {
+    if (path == null) {
+      return;
+    }
+    try {
+      Files.deleteIfExists(path);
+    }
+    catch (IOException e) {
+      log.debug("Could not delete {}: {}", path, e.getMessage());
+    }
+  }
+}
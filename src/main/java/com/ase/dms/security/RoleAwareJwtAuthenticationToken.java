@@ -0,0 +1,55 @@
+package com.ase.dms.security;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+/**
+ * JWT authentication that carries the user's roles parsed once when the
+ * token is converted. Role checks are a lookup in a lowercase hash set,
+ * and the answer per checked role name is memoized, so repeated checks
+ * during a request neither re-read claims nor allocate.
+ */
+public class RoleAwareJwtAuthenticationToken extends JwtAuthenticationToken {
+
+  private final List<String> roles;
+  private final Set<String> normalizedRoles;
+  private final Map<String, Boolean> checkedRoles = new ConcurrentHashMap<>();
+
+  public RoleAwareJwtAuthenticationToken(Jwt jwt, Collection<? extends GrantedAuthority> authorities,
+                                         List<String> roles) {
+    super(jwt, authorities);
+    this.roles = List.copyOf(roles);
+    this.normalizedRoles = new HashSet<>();
+    roles.forEach(role -> normalizedRoles.add(role.toLowerCase(Locale.ROOT)));
+  }
+
+  /**
+   * @return all unique roles in their original spelling
+   */
+  public List<String> getRoles() {
+    return roles;
+  }
+
+  /**
+   * Case-insensitive role check.
+   *
+   * @param role the role to check
+   * @return true if the user has the role
+   */
+  public boolean hasRole(String role) {
+    Boolean known = checkedRoles.get(role);
+    if (known == null) {
+      known = normalizedRoles.contains(role.toLowerCase(Locale.ROOT));
+      checkedRoles.put(role, known);
+    }
+    return known;
+  }
+}
@@ -9,7 +9,6 @@ import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
-import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
 import org.springframework.security.web.SecurityFilterChain;
 
 @Configuration
@@ -19,8 +18,7 @@ public class SecurityConfig {
   @Bean
   @Profile("!local")
   public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
-    JwtAuthenticationConverter jwtConverter = new JwtAuthenticationConverter();
-    jwtConverter.setJwtGrantedAuthoritiesConverter(new JwtAuthConverter());
+    JwtAuthConverter jwtConverter = new JwtAuthConverter();
 
     http
         .csrf(AbstractHttpConfigurer::disable)
@@ -35,6 +33,10 @@ public class SecurityConfig {
             .requestMatchers(HttpMethod.GET, "/v1/folders/**")
             .hasAnyRole("Area-2.Team-7.Read.read-document", "Area-2.Team-7.ReadUpdateDelete.readwrite-document")
 
+            // Requesting a pdf rendition only reads the document
+            .requestMatchers(HttpMethod.POST, "/v1/documents/*/renditions/**")
+            .hasAnyRole("Area-2.Team-7.Read.read-document", "Area-2.Team-7.ReadUpdateDelete.readwrite-document")
+
             // Write access (POST, PATCH, DELETE) - only for non-Student roles
             .requestMatchers(HttpMethod.POST, "/v1/documents/**")
             .hasAnyRole("Area-2.Team-7.ReadUpdateDelete.readwrite-document")
@@ -42,6 +44,9 @@ public class SecurityConfig {
             .hasAnyRole("Area-2.Team-7.ReadUpdateDelete.readwrite-document")
             .requestMatchers(HttpMethod.DELETE, "/v1/documents/**")
             .hasAnyRole("Area-2.Team-7.ReadUpdateDelete.readwrite-document")
+            // Progress of a resumable upload is queried with HEAD
+            .requestMatchers(HttpMethod.HEAD, "/v1/documents/resumable-uploads/**")
+            .hasAnyRole("Area-2.Team-7.ReadUpdateDelete.readwrite-document")
 
             .requestMatchers(HttpMethod.POST, "/v1/folders/**")
             .hasAnyRole("Area-2.Team-7.ReadUpdateDelete.readwrite-document")
@@ -79,11 +79,24 @@ public class UserInformationJWT {
    * @return List of all unique roles or empty list if not available
    */
   public static List<String> getRoles() {
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    if (authentication instanceof RoleAwareJwtAuthenticationToken token) {
+      return token.getRoles();
+    }
+
     Jwt jwt = getCurrentJwt();
     if (jwt == null) {
       return List.of();
     }
+    return extractRoles(jwt);
+  }
 
+  /**
+   * Parses all roles from groups, realm_access.roles and resource_access.account.roles.
+   * @param jwt the token
+   * @return List of all unique roles
+   */
+  static List<String> extractRoles(Jwt jwt) {
     List<String> allRoles = new ArrayList<>();
 
     // combine all group fields
@@ -142,6 +155,12 @@ public class UserInformationJWT {
       return false;
     }
 
+    // Roles parsed at authentication time; other tokens are parsed on every call
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    if (authentication instanceof RoleAwareJwtAuthenticationToken token) {
+      return token.hasRole(role);
+    }
+
     List<String> roles = getRoles();
     return roles.stream()
         .anyMatch(r -> r.equalsIgnoreCase(role));
@@ -0,0 +1,14 @@
+package com.ase.dms.services;
+
+import com.ase.dms.entities.BlobEntity;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.core.io.InputStreamSource;
+
+public interface BlobService {
+  BlobEntity store(InputStreamSource content, long size, String contentType) throws IOException;
+  BlobEntity adopt(String hash, String storageKey, long size);
+  String hash(InputStreamSource content) throws IOException;
+  Set<String> release(Map<String, String> storageKeyByDocumentId);
+}
@@ -0,0 +1,254 @@
+package com.ase.dms.services;
+
+import com.ase.dms.entities.BlobEntity;
+import com.ase.dms.helpers.Batches;
+import com.ase.dms.repositories.BlobRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Stores uploaded content once per SHA-256.
+ * A document points at a blob through its content hash and storage key;
+ * uploading content that is already stored only increments the blob's
+ * reference count and skips the MinIO write. Deleting documents decrements
+ * it, and the object is handed to the storage deletion outbox when no
+ * document references it any more. The blob row is removed in the same
+ * transaction, so a concurrent upload of the same content either sees the
+ * row (and its reference keeps the object alive) or stores a fresh copy.
+ * New rows are inserted in a transaction of their own, so that of two
+ * concurrent first uploads of the same content the second one fails on the
+ * primary key without losing its own transaction, and references the first
+ * one's row instead.
+ */
+@Slf4j
+@Service
+public class BlobServiceImpl implements BlobService {
+
+  private static final String HASH_ALGORITHM = "SHA-256";
+  private static final int QUERY_BATCH_SIZE = 1000;
+  private static final int MAX_INSERT_ATTEMPTS = 3;
+
+  private final BlobRepository blobs;
+  private final MinIOService minIOService;
+  private final TransactionTemplate separateTransaction;
+  private final Counter deduplicated;
+  private final Counter savedBytes;
+
+  public BlobServiceImpl(BlobRepository blobs, MinIOService minIOService, PlatformTransactionManager transactionManager,
+                         MeterRegistry meterRegistry) {
+    this.blobs = blobs;
+    this.minIOService = minIOService;
+    this.separateTransaction = new TransactionTemplate(transactionManager);
+    this.separateTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    this.deduplicated = Counter.builder("dms.blobs.deduplicated")
+        .description("Uploads whose content was already stored")
+        .register(meterRegistry);
+    this.savedBytes = Counter.builder("dms.blobs.deduplicated.bytes")
+        .description("Bytes not written to MinIO because the content was already stored")
+        .baseUnit(BaseUnits.BYTES)
+        .register(meterRegistry);
+  }
+
+  /**
+   * Adds a reference to the blob holding the given content, storing it first
+   * if it is new. The content is read twice: once to hash it and, only for
+   * new content, once more to upload it. Multipart uploads are already
+   * spooled to local disk by the servlet container, so the first pass is
+   * cheap compared to the MinIO write it may save.
+   *
+   * @param content     the uploaded content
+   * @param size        the number of bytes in the content
+   * @param contentType the MIME type stored with a new object, may be null
+   * @return the blob the document has to point at
+   */
+  @Override
+  @Transactional(propagation = Propagation.MANDATORY)
+  public BlobEntity store(InputStreamSource content, long size, String contentType) throws IOException {
+    String hash = hash(content);
+    Optional<BlobEntity> existing = reference(hash, size);
+    if (existing.isPresent()) {
+      return existing.get();
+    }
+
+    String storageKey = UUID.randomUUID().toString();
+    try (InputStream in = content.getInputStream()) {
+      minIOService.setObject(storageKey, in, size, contentType);
+    }
+    return register(hash, storageKey, size, true);
+  }
+
+  /**
+   * Adds a reference to the blob holding the given content, taking over an
+   * object that was uploaded directly to storage if the content is new.
+   * If the content is already stored, the existing blob is returned and the
+   * caller has to dispose of the uploaded object.
+   *
+   * @param hash       the SHA-256 of the uploaded object
+   * @param storageKey the key of the uploaded object
+   * @param size       the size of the uploaded object
+   * @return the blob the document has to point at
+   */
+  @Override
+  @Transactional(propagation = Propagation.MANDATORY)
+  public BlobEntity adopt(String hash, String storageKey, long size) {
+    return reference(hash, size)
+        .orElseGet(() -> register(hash, storageKey, size, false));
+  }
+
+  // Two concurrent first uploads of the same content both get here; the
+  // second insert fails on the primary key, and that upload references the
+  // first one's blob and drops its own object if it wrote it
+  private BlobEntity register(String hash, String storageKey, long size, boolean ownsObject) {
+    for (int attempt = 0; attempt < MAX_INSERT_ATTEMPTS; attempt++) {
+      if (insert(hash, storageKey, size)) {
+        removeOnRollback(hash, ownsObject ? storageKey : null);
+        if (blobs.incrementRefCount(hash) == 0) {
+          throw new IllegalStateException("Blob " + hash + " was removed while it was being stored");
+        }
+        return blobs.findById(hash).orElseThrow();
+      }
+      Optional<BlobEntity> existing = reference(hash, size);
+      if (existing.isPresent()) {
+        if (ownsObject) {
+          deleteQuietly(storageKey);
+        }
+        return existing.get();
+      }
+      // The other upload rolled back and removed its row again
+    }
+    throw new IllegalStateException("Could not store blob " + hash + " after " + MAX_INSERT_ATTEMPTS + " attempts");
+  }
+
+  // The row is committed without a reference right away; the caller's transaction adds the reference
+  private boolean insert(String hash, String storageKey, long size) {
+    try {
+      separateTransaction.executeWithoutResult(status ->
+          blobs.saveAndFlush(new BlobEntity(hash, storageKey, size, 0, LocalDateTime.now())));
+      return true;
+    }
+    catch (DataIntegrityViolationException e) {
+      log.debug("Blob {} was stored by a concurrent upload", hash);
+      return false;
+    }
+  }
+
+  // If the caller's transaction rolls back, its reference is gone and the new row would keep the object forever
+  private void removeOnRollback(String hash, String ownedObject) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCompletion(int status) {
+        if (status != STATUS_ROLLED_BACK) {
+          return;
+        }
+        Integer removed = separateTransaction.execute(s -> blobs.deleteUnreferenced(hash));
+        if (removed != null && removed > 0 && ownedObject != null) {
+          deleteQuietly(ownedObject);
+        }
+      }
+    });
+  }
+
+  private void deleteQuietly(String objectName) {
+    try {
+      minIOService.deleteObject(objectName);
+    }
+    catch (RuntimeException e) {
+      // Left to the reconciler as an orphan
+      log.warn("Could not delete object {}", objectName, e);
+    }
+  }
+
+  private Optional<BlobEntity> reference(String hash, long size) {
+    if (blobs.incrementRefCount(hash) == 0) {
+      return Optional.empty();
+    }
+    deduplicated.increment();
+    savedBytes.increment(size);
+    log.debug("Upload of {} bytes deduplicated against blob {}", size, hash);
+    return Optional.of(blobs.findById(hash).orElseThrow());
+  }
+
+  /**
+   * Drops the references of deleted documents.
+   *
+   * @param storageKeyByDocumentId the storage key per document; null for
+   *                               documents stored under their own id before
+   *                               deduplication
+   * @return object names no document references any more
+   */
+  @Override
+  @Transactional(propagation = Propagation.MANDATORY)
+  public Set<String> release(Map<String, String> storageKeyByDocumentId) {
+    Set<String> released = new LinkedHashSet<>();
+    Map<String, Long> references = new HashMap<>();
+    storageKeyByDocumentId.forEach((documentId, storageKey) -> {
+      if (storageKey == null) {
+        released.add(documentId);
+      }
+      else {
+        references.merge(storageKey, 1L, Long::sum);
+      }
+    });
+
+    references.forEach(blobs::decrementRefCount);
+    for (List<String> batch : Batches.of(references.keySet(), QUERY_BATCH_SIZE)) {
+      List<String> unreferenced = blobs.findUnreferencedStorageKeys(batch);
+      if (!unreferenced.isEmpty()) {
+        blobs.deleteByStorageKeyIn(unreferenced);
+        released.addAll(unreferenced);
+      }
+    }
+    return released;
+  }
+
+  /**
+   * Computes the SHA-256 of the content as lowercase hex.
+   *
+   * @param content the content to read
+   * @return the hash blobs are keyed by
+   */
+  @Override
+  public String hash(InputStreamSource content) throws IOException {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance(HASH_ALGORITHM);
+    }
+    catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(HASH_ALGORITHM + " not available", e);
+    }
+    try (InputStream in = new DigestInputStream(content.getInputStream(), digest)) {
+      in.transferTo(OutputStream.nullOutputStream());
+    }
+    return HexFormat.of().formatHex(digest.digest());
+  }
+}
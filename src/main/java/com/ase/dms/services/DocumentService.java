@@ -1,13 +1,24 @@
 package com.ase.dms.services;
 
+import com.ase.dms.dtos.RenditionDTO;
+import com.ase.dms.entities.BlobEntity;
 import com.ase.dms.entities.DocumentEntity;
+import com.ase.dms.entities.FolderEntity;
+import com.ase.dms.entities.TagEntity;
+import java.util.List;
+import java.util.Optional;
 import org.springframework.web.multipart.MultipartFile;
 
 public interface DocumentService {
   DocumentEntity createDocument(MultipartFile file, String folderId, String[] tagUuids);
+  DocumentEntity registerDocument(String id, FolderEntity folder, String fileName, String contentType,
+                                  List<TagEntity> tags, BlobEntity blob);
+  List<TagEntity> resolveTags(String[] tagUuids);
   DocumentEntity updateDocument(String id, DocumentEntity document);
   void deleteDocument(String id);
   DocumentEntity getDocument(String id);
-  byte[] convertDocument(DocumentEntity document);
+  Optional<RenditionDTO> findPdf(DocumentEntity document);
+  void forgetPdf(DocumentEntity document);
+  RenditionDTO convertDocument(DocumentEntity document);
   DocumentEntity setDocumentTags(String id, String[] tags);
 }
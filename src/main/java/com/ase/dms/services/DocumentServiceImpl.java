@@ -1,7 +1,12 @@
 package com.ase.dms.services;
 
+import com.ase.dms.components.ConversionLimiter;
+import com.ase.dms.dtos.RenditionDTO;
+import com.ase.dms.entities.BlobEntity;
 import com.ase.dms.entities.DocumentEntity;
 import com.ase.dms.entities.FolderEntity;
+import com.ase.dms.entities.TagEntity;
+import com.ase.dms.events.DocumentCreatedEvent;
 import com.ase.dms.exceptions.DocumentConversionException;
 import com.ase.dms.exceptions.DocumentConversionInternalException;
 import com.ase.dms.exceptions.DocumentNotFoundException;
@@ -10,19 +15,26 @@ import com.ase.dms.exceptions.FolderNotFoundException;
 import com.ase.dms.exceptions.MinIOSetObjectDataException;
 import com.ase.dms.exceptions.TagNotFoundException;
 import com.ase.dms.helpers.NameIncrementHelper;
+import com.ase.dms.helpers.OfficeFormats;
 import com.ase.dms.helpers.UuidValidator;
 import com.ase.dms.repositories.DocumentRepository;
 import com.ase.dms.repositories.FolderRepository;
 import com.ase.dms.security.UserInformationJWT;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -33,6 +45,7 @@ import org.jodconverter.core.document.DefaultDocumentFormatRegistry;
 import org.jodconverter.core.document.DocumentFormat;
 import org.jodconverter.core.document.DocumentFormatRegistry;
 import org.jodconverter.core.office.OfficeException;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
@@ -46,12 +59,19 @@ import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 @RequiredArgsConstructor
 public class DocumentServiceImpl implements DocumentService {
 
+  private static final String TEMP_FILE_PREFIX = "dms-convert-";
+
   private final DocumentRepository documents;
   private final FolderRepository folders;
 
   private final MinIOService minIOService;
   private final DocumentConverter documentConverter;
   private final TagService tagService;
+  private final ConversionLimiter conversionLimiter;
+  private final RenditionService renditionService;
+  private final ApplicationEventPublisher eventPublisher;
+  private final StorageCleanupService storageCleanup;
+  private final BlobService blobService;
 
   /**
    * Create a new document in the given folder.
@@ -70,51 +90,12 @@ public class DocumentServiceImpl implements DocumentService {
         .orElseThrow(() -> new FolderNotFoundException(folderId));
 
     try {
-      DocumentEntity doc = new DocumentEntity();
-      doc.setId(UUID.randomUUID().toString());
-
-      // Set the folder relationship directly - cleaner approach
-      doc.setFolder(folder);
-
-      if (tagUuids != null && tagUuids.length > 0) {
-        doc.setTags(Arrays.stream(tagUuids).map(tagService::getTag).toList());
-      }
-      else {
-        doc.setTags(new java.util.ArrayList<>());
-      }
+      List<TagEntity> tags = resolveTags(tagUuids);
 
-      // Get siblings using JPA relationship
-      List<DocumentEntity> siblings = folder.getDocuments();
-      Set<String> siblingNames = NameIncrementHelper.collectSiblingNames(siblings, folderId, null);
-
-      String originalFilename = file.getOriginalFilename() != null ? file.getOriginalFilename() : "document";
-      doc.setName(NameIncrementHelper.getIncrementedName(originalFilename, siblingNames));
-      doc.setType(file.getContentType());
-      doc.setSize(file.getSize());
-      doc.setOwnerId(UserInformationJWT.getUserId());
-      doc.setCreatedDate(LocalDateTime.now());
-
-      // Build download URL - use request context if available, otherwise use relative path
-      String downloadUrl;
-      try {
-        downloadUrl = ServletUriComponentsBuilder.fromCurrentRequestUri()
-            .replacePath(ServletUriComponentsBuilder.fromCurrentContextPath().build().getPath())
-            .replaceQuery(null)
-            .path("/v1/documents/")
-            .path(doc.getId())
-            .path("/download")
-            .build()
-            .toUriString();
-      }
-      catch (IllegalStateException e) {
-        // No request context (e.g., in tests) - use relative path
-        downloadUrl = "/dms/v1/documents/" + doc.getId() + "/download";
-      }
-      doc.setDownloadUrl(downloadUrl);
-
-      minIOService.setObject(doc.getId(), file.getBytes());
-
-      return documents.save(doc);
+      // Identical content is stored once; the document points at the shared blob
+      BlobEntity blob = blobService.store(file, file.getSize(), file.getContentType());
+      return registerDocument(UUID.randomUUID().toString(), folder, file.getOriginalFilename(),
+          file.getContentType(), tags, blob);
     }
     catch (TagNotFoundException | MinIOSetObjectDataException e) {
       throw e;
@@ -125,6 +106,73 @@ public class DocumentServiceImpl implements DocumentService {
     }
   }
 
+  /**
+   * Saves the metadata of a document whose content is already stored.
+   * The name is made unique among the documents of the folder.
+   *
+   * @param id          the document UUID
+   * @param folder      the target folder
+   * @param fileName    the requested name, may be null
+   * @param contentType the MIME type
+   * @param tags        the tags of the document
+   * @param blob        the blob holding the content
+   * @return the created DocumentEntity
+   */
+  @Override
+  @Transactional
+  public DocumentEntity registerDocument(String id, FolderEntity folder, String fileName, String contentType,
+                                         List<TagEntity> tags, BlobEntity blob) {
+    DocumentEntity doc = new DocumentEntity();
+    doc.setId(id);
+
+    // Set the folder relationship directly - cleaner approach
+    doc.setFolder(folder);
+    doc.setTags(new ArrayList<>(tags));
+
+    // Get siblings using JPA relationship
+    List<DocumentEntity> siblings = folder.getDocuments();
+    Set<String> siblingNames = NameIncrementHelper.collectSiblingNames(siblings, folder.getId(), null);
+
+    doc.setName(NameIncrementHelper.getIncrementedName(fileName != null ? fileName : "document", siblingNames));
+    doc.setType(contentType);
+    doc.setSize(blob.getSize());
+    doc.setOwnerId(UserInformationJWT.getUserId());
+    doc.setCreatedDate(LocalDateTime.now());
+    doc.setDownloadUrl(downloadUrl(id));
+    doc.setContentHash(blob.getHash());
+    doc.setStorageKey(blob.getStorageKey());
+
+    DocumentEntity saved = documents.save(doc);
+    eventPublisher.publishEvent(new DocumentCreatedEvent(saved));
+    return saved;
+  }
+
+  @Override
+  public List<TagEntity> resolveTags(String[] tagUuids) {
+    if (tagUuids == null || tagUuids.length == 0) {
+      return new ArrayList<>();
+    }
+    return Arrays.stream(tagUuids).map(tagService::getTag).toList();
+  }
+
+  // Build download URL - use request context if available, otherwise use relative path
+  private static String downloadUrl(String id) {
+    try {
+      return ServletUriComponentsBuilder.fromCurrentRequestUri()
+          .replacePath(ServletUriComponentsBuilder.fromCurrentContextPath().build().getPath())
+          .replaceQuery(null)
+          .path("/v1/documents/")
+          .path(id)
+          .path("/download")
+          .build()
+          .toUriString();
+    }
+    catch (IllegalStateException e) {
+      // No request context (e.g., in tests) - use relative path
+      return "/dms/v1/documents/" + id + "/download";
+    }
+  }
+
   /**
    * Get a document by its ID.
    *
@@ -189,6 +237,8 @@ public class DocumentServiceImpl implements DocumentService {
 
   /**
    * Delete a document by its ID.
+   * The stored file and its rendition (unless shared with another document)
+   * are queued for removal in the same transaction and cleaned up later.
    *
    * @param id the document UUID
    */
@@ -196,89 +246,158 @@ public class DocumentServiceImpl implements DocumentService {
   @Transactional
   public void deleteDocument(String id) {
     UuidValidator.validateOrThrow(id);
-    if (!documents.existsById(id)) {
-      throw new DocumentNotFoundException(id);
-    }
-    minIOService.deleteObject(id);
+    DocumentEntity document = documents.findById(id)
+        .orElseThrow(() -> new DocumentNotFoundException(id));
     documents.deleteById(id);
+
+    Set<String> objectNames = new LinkedHashSet<>(
+        blobService.release(Collections.singletonMap(id, document.getStorageKey())));
+    objectNames.addAll(renditionService.releasePdfs(Collections.singletonMap(id, document.getContentHash())));
+    storageCleanup.enqueue(objectNames);
   }
 
   /**
-   * Converts the document to pdf.
+   * Looks up an existing pdf of the document without converting.
    *
    * @param document the document
-   * @return the bytes of the converted document (pdf)
+   * @return the location of the pdf, or empty if it still has to be converted
    */
   @Override
-  @Transactional
-  public byte[] convertDocument(DocumentEntity document) {
-    byte[] data = minIOService.getObjectData(document.getId());
+  public Optional<RenditionDTO> findPdf(DocumentEntity document) {
+    if (OfficeFormats.isPdf(document)) {
+      return Optional.of(new RenditionDTO(document.getObjectName(), document.getSize()));
+    }
+    requireConvertible(document);
+    return renditionService.findPdf(document);
+  }
 
-    // Determine if the document is an office document we can convert
-    String type = document.getType() != null ? document.getType().toLowerCase(Locale.ROOT) : "";
-    String name = document.getName() != null ? document.getName() : "document";
+  /**
+   * Forgets a pdf rendition that was found missing in storage, so the next
+   * lookup or conversion does not return it again. Pdf originals are their
+   * own rendition and are not affected.
+   *
+   * @param document the document
+   */
+  @Override
+  public void forgetPdf(DocumentEntity document) {
+    if (!OfficeFormats.isPdf(document)) {
+      renditionService.forgetPdf(document);
+    }
+  }
 
+  /**
+   * Converts the document to pdf.
+   * Renditions are cached in MinIO, so a repeated call streams the stored
+   * PDF without touching the office pool.
+   * Runs outside a transaction: the document is already loaded and the
+   * conversion may wait for an office process, which must not hold a
+   * database connection.
+   *
+   * @param document the document
+   * @return the location of the pdf (the original itself if it already is one)
+   */
+  @Override
+  public RenditionDTO convertDocument(DocumentEntity document) {
     // If already a PDF, just return it
-    if (type.contains("pdf") || name.toLowerCase(Locale.ROOT).endsWith(".pdf")) {
-      return data;
+    if (OfficeFormats.isPdf(document)) {
+      return new RenditionDTO(document.getObjectName(), document.getSize());
     }
+    requireConvertible(document);
 
-    // Supported input types/extensions (common office types)
-    boolean supported = type.contains("msword")
-        || type.contains("officedocument")
-        || type.contains("vnd.openxmlformats-officedocument")
-        || name.toLowerCase(Locale.ROOT).matches(".*\\.(doc|docx|xls|xlsx|ppt|pptx)$");
-
-    if (!supported) {
-      throw new DocumentConversionException("Failed to convert unsupported type: " + type);
-    }
+    String type = document.getType() != null ? document.getType().toLowerCase(Locale.ROOT) : "";
+    String name = document.getName() != null ? document.getName() : "document";
 
-    try (ByteArrayInputStream in = new ByteArrayInputStream(data);
-         ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+    // Concurrent requests for the same document share one conversion
+    return renditionService.getOrCreatePdf(document, () -> convertToPdf(document, type, name));
+  }
 
-      // Determine source and target document formats using the registry
-      DocumentFormatRegistry registry = DefaultDocumentFormatRegistry.getInstance();
+  private static void requireConvertible(DocumentEntity document) {
+    if (!OfficeFormats.isConvertible(document)) {
+      throw new DocumentConversionException("Failed to convert unsupported type: " + document.getType());
+    }
+  }
 
-      // Try to resolve source format from MIME type first, then from file extension
-      DocumentFormat sourceFormat = null;
-      if (document.getType() != null && !document.getType().isEmpty()) {
-        sourceFormat = registry.getFormatByMediaType(document.getType());
+  /**
+   * Converts the stored original to PDF and stores the rendition.
+   * Source and output are spooled through temp files so the heap never holds
+   * the whole document; both files are removed before returning.
+   */
+  private RenditionDTO convertToPdf(DocumentEntity document, String type, String name) {
+    // Determine source and target document formats using the registry
+    DocumentFormatRegistry registry = DefaultDocumentFormatRegistry.getInstance();
+
+    // Try to resolve source format from MIME type first, then from file extension
+    DocumentFormat sourceFormat = null;
+    if (document.getType() != null && !document.getType().isEmpty()) {
+      sourceFormat = registry.getFormatByMediaType(document.getType());
+    }
+    if (sourceFormat == null) {
+      String ext = "";
+      int dot = name.lastIndexOf('.');
+      if (dot >= 0 && dot < name.length() - 1) {
+        ext = name.substring(dot + 1).toLowerCase(Locale.ROOT);
       }
-      if (sourceFormat == null) {
-        String ext = "";
-        int dot = name.lastIndexOf('.');
-        if (dot >= 0 && dot < name.length() - 1) {
-          ext = name.substring(dot + 1).toLowerCase(Locale.ROOT);
-        }
-        if (!ext.isEmpty()) {
-          sourceFormat = registry.getFormatByExtension(ext);
-        }
+      if (!ext.isEmpty()) {
+        sourceFormat = registry.getFormatByExtension(ext);
       }
+    }
 
-      if (sourceFormat == null) {
-        throw new DocumentConversionException("Failed to resolve format of type: " + type);
-      }
+    if (sourceFormat == null) {
+      throw new DocumentConversionException("Failed to resolve format of type: " + type);
+    }
 
-      DocumentFormat pdfFormat = registry.getFormatByMediaType("application/pdf");
-      if (pdfFormat == null) {
-        pdfFormat = registry.getFormatByExtension("pdf");
-      }
+    DocumentFormat pdfFormat = registry.getFormatByMediaType("application/pdf");
+    if (pdfFormat == null) {
+      pdfFormat = registry.getFormatByExtension("pdf");
+    }
 
-      if (pdfFormat == null) {
-        throw new DocumentConversionInternalException("Internal misconfigured conversion");
-      }
+    if (pdfFormat == null) {
+      throw new DocumentConversionInternalException("Internal misconfigured conversion");
+    }
+
+    // Ensure pdfFormat is non-null for static analysis
+    Objects.requireNonNull(pdfFormat, "PDF DocumentFormat not available");
 
-      // Ensure pdfFormat is non-null for static analysis
-      Objects.requireNonNull(pdfFormat, "PDF DocumentFormat not available");
+    final DocumentFormat source = sourceFormat;
+    final DocumentFormat target = pdfFormat;
+    Path sourceFile = null;
+    Path pdfFile = null;
+    try {
+      sourceFile = Files.createTempFile(TEMP_FILE_PREFIX, "." + source.getExtension());
+      pdfFile = Files.createTempFile(TEMP_FILE_PREFIX, ".pdf");
+      try (InputStream in = minIOService.openObject(document.getObjectName(), 0, null)) {
+        Files.copy(in, sourceFile, StandardCopyOption.REPLACE_EXISTING);
+      }
 
-      // Convert to PDF using jodconverter with resolved formats
-      documentConverter.convert(in).as(sourceFormat).to(out).as(pdfFormat).execute();
+      // Convert to PDF using jodconverter with resolved formats, file to file
+      final File input = sourceFile.toFile();
+      final File output = pdfFile.toFile();
+      conversionLimiter.execute(() -> {
+        documentConverter.convert(input).as(source).to(output).as(target).execute();
+        return null;
+      });
 
-      return out.toByteArray();
+      return renditionService.storePdf(document, pdfFile);
     }
     catch (OfficeException | IOException e) {
       throw new DocumentConversionException("Internal conversion error", e);
     }
+    finally {
+      deleteTempFile(sourceFile);
+      deleteTempFile(pdfFile);
+    }
+  }
+
+  private static void deleteTempFile(Path file) {
+    if (file == null) {
+      return;
+    }
+    try {
+      Files.deleteIfExists(file);
+    }
+    catch (IOException e) {
+      log.warn("Could not delete temp file {}", file, e);
+    }
   }
 
   @Override
@@ -1,9 +1,12 @@
 package com.ase.dms.services;
 
+import com.ase.dms.dtos.FolderResponseDTO;
+import com.ase.dms.dtos.FolderSizeDTO;
 import com.ase.dms.entities.FolderEntity;
 
 public interface FolderService {
-  FolderEntity getFolderContents(String id);
+  FolderResponseDTO getFolderContents(String id);
+  FolderSizeDTO getFolderSize(String id);
   FolderEntity createFolder(FolderEntity folder);
   FolderEntity updateFolder(String id, FolderEntity folder);
   void deleteFolder(String id);
@@ -1,9 +1,18 @@
 package com.ase.dms.services;
 
+import com.ase.dms.components.FolderVisibilityCache;
+import com.ase.dms.dtos.DocumentSummaryDTO;
+import com.ase.dms.dtos.FolderResponseDTO;
+import com.ase.dms.dtos.FolderSizeDTO;
+import com.ase.dms.dtos.FolderSummaryDTO;
 import com.ase.dms.entities.FolderEntity;
+import com.ase.dms.entities.TagEntity;
 import com.ase.dms.exceptions.FolderNotFoundException;
+import com.ase.dms.helpers.Batches;
+import com.ase.dms.helpers.FolderSubtree;
 import com.ase.dms.helpers.NameIncrementHelper;
 import com.ase.dms.helpers.UuidValidator;
+import com.ase.dms.repositories.DocumentRepository;
 import com.ase.dms.repositories.FolderRepository;
 import com.ase.dms.security.UserInformationJWT;
 import com.ase.dms.services.UserClient;
@@ -12,13 +21,18 @@ import jakarta.validation.ValidationException;
 
 import com.ase.dms.dtos.UserInfoDTO;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
-import org.springframework.beans.factory.annotation.Autowired;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -26,86 +40,157 @@ import org.springframework.transaction.annotation.Transactional;
  * Implementation of FolderService for folder management operations.
  * Handles folder CRUD and navigation logic.
  */
+@Slf4j
 @Service
 public class FolderServiceImpl implements FolderService {
 
   /** Constant for the root folder identifier. */
   private static final String ROOT_ID = "root";
 
+  /** Maximum number of ids per bulk delete statement. */
+  private static final int DELETE_BATCH_SIZE = 1000;
+
   private final FolderRepository folders;
+  private final DocumentRepository documents;
   private final UserClient userClient;
+  private final RenditionService renditionService;
 
- @Autowired
-  private final MinIOService minIOService;
+  private final StorageCleanupService storageCleanup;
+  private final FolderVisibilityCache visibilityCache;
+  private final BlobService blobService;
 
   /**
    * Constructor for FolderServiceImpl.
    *
    * @param folders the folder repository
+   * @param documents the document repository
+   * @param visibilityCache per-cohort visible folder ids
+   * @param blobService the shared document contents
    */
-  public FolderServiceImpl(final FolderRepository folders,
-                           final MinIOService minIOService, final UserClient userClient) {
+  public FolderServiceImpl(final FolderRepository folders, final DocumentRepository documents,
+                           final UserClient userClient, final RenditionService renditionService,
+                           final StorageCleanupService storageCleanup,
+                           final FolderVisibilityCache visibilityCache,
+                           final BlobService blobService) {
     this.folders = Objects.requireNonNull(folders);
-    this.minIOService = minIOService;
+    this.documents = Objects.requireNonNull(documents);
     this.userClient = Objects.requireNonNull(userClient);
+    this.renditionService = Objects.requireNonNull(renditionService);
+    this.storageCleanup = Objects.requireNonNull(storageCleanup);
+    this.visibilityCache = Objects.requireNonNull(visibilityCache);
+    this.blobService = Objects.requireNonNull(blobService);
   }
 
   /**
-   * Retrieves the contents of a folder by ID or 'root'.
+   * Retrieves one level of a folder by ID or 'root'.
+   * The response is assembled from projection queries (folder, subfolders,
+   * documents, study groups, tags), so the number of statements does not
+   * depend on the size of the tree below the folder.
    *
    * @param id the folder UUID or 'root'
-   * @return FolderEntity with subfolders and documents accessible via JPA
-   *         relationships
+   * @return the folder with its direct subfolders and document metadata
    */
   @Override
   @Transactional(readOnly = true)
-  public FolderEntity getFolderContents(final String id) {
-    FolderEntity folder;
+  public FolderResponseDTO getFolderContents(final String id) {
+    FolderSummaryDTO summary;
     if (ROOT_ID.equals(id)) {
-      folder = folders.findByNameAndParentIsNull(ROOT_ID)
+      summary = folders.findRootSummaryByName(ROOT_ID)
           .orElseThrow(() -> new FolderNotFoundException("Root folder not found"));
     }
     else {
       UuidValidator.validateOrThrow(id);
-      folder = folders.findById(id)
+      summary = folders.findSummaryById(id)
           .orElseThrow(() -> new FolderNotFoundException("Ordner " + id + " nicht gefunden"));
     }
 
-    // Get Cohort from users API
-    String cohort = userClient.fetchCurrentUser()
-                  .map(UserInfoDTO::getCohort)
-                  .orElse(null);
+    // Students only see folders whose whole path from the root is visible to their cohort
+    boolean privileged = isPrivileged();
+    String cohort = privileged ? null : currentCohort();
+    if (!privileged && !visibleFolderIds(cohort).contains(summary.getId())) {
+      throw new FolderNotFoundException("Ordner " + id + " nicht gefunden");
+    }
+
+    // Hidden subfolders are filtered in the database
+    List<FolderSummaryDTO> subfolders = privileged
+        ? folders.findSummariesByParentId(summary.getId())
+        : folders.findVisibleSummariesByParentId(summary.getId(), cohort);
+    List<FolderSummaryDTO> listed = new ArrayList<>(subfolders);
+    listed.add(summary);
+    Map<String, FolderSummaryDTO> byId = listed.stream()
+        .collect(Collectors.toMap(FolderSummaryDTO::getId, Function.identity()));
+    folders.findStudyGroupsByFolderIds(byId.keySet())
+        .forEach(row -> byId.get(row.getFolderId()).getStudyGroupIds().add(row.getStudyGroupId()));
 
-    // Recursively filter subtree if student role
-    if (!UserInformationJWT.hasRole("Area-2.Team-7.ReadUpdateDelete.readwrite-document")) {
-      folder.setSubfolders(filterFolderTree(folder.getSubfolders(), cohort));
+    List<DocumentSummaryDTO> docs = documents.findSummariesByFolderId(summary.getId());
+    if (!docs.isEmpty()) {
+      Map<String, DocumentSummaryDTO> docsById = docs.stream()
+          .collect(Collectors.toMap(DocumentSummaryDTO::getId, Function.identity()));
+      documents.findTagsByDocumentIds(docsById.keySet())
+          .forEach(row -> docsById.get(row.getDocumentId()).getTags()
+              .add(new TagEntity(row.getUuid(), row.getName())));
     }
-    
-    // JPA relationships automatically provides access to subfolders and documents
-    return folder;
+
+    FolderResponseDTO response = new FolderResponseDTO(summary);
+    response.setSubfolders(subfolders);
+    response.setDocuments(docs);
+    return response;
   }
 
-  // visibility rule: empty = public. Else has to contain consort
-  private boolean isVisibleForCohort(FolderEntity f, String cohort) {
-    Set<String> groups = f.getStudyGroupIds(); // Field is non-null (emptySet = public)
-    if (groups == null || groups.isEmpty()) {
-      return true;
+  /**
+   * Aggregates folder count, document count and size of a folder subtree.
+   * Students only get the part of the subtree visible to their cohort.
+   *
+   * @param id the folder UUID or 'root'
+   * @return the aggregated sizes
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public FolderSizeDTO getFolderSize(final String id) {
+    String folderId = resolveFolderId(id);
+    FolderSubtree subtree = loadSubtree(folderId);
+    Set<String> folderIds = subtree.getFolderIds();
+    if (!isPrivileged()) {
+      Set<String> visible = visibleFolderIds(currentCohort());
+      if (!visible.contains(folderId)) {
+        throw new FolderNotFoundException("Ordner " + id + " nicht gefunden");
+      }
+      folderIds = folderIds.stream().filter(visible::contains).collect(Collectors.toSet());
     }
-    return cohort != null && groups.contains(cohort);
+    return new FolderSizeDTO(folderId, folderIds.size(),
+        subtree.getDocumentIdsIn(folderIds).size(), subtree.getSizeIn(folderIds));
   }
 
-  // recursive filter
-  private List<FolderEntity> filterFolderTree(List<FolderEntity> children, String cohort) {
-    if (children == null || children.isEmpty()) {
-      return List.of();
+  private String resolveFolderId(final String id) {
+    if (ROOT_ID.equals(id)) {
+      return folders.findRootSummaryByName(ROOT_ID)
+          .map(FolderSummaryDTO::getId)
+          .orElseThrow(() -> new FolderNotFoundException("Root folder not found"));
     }
-    return children.stream()
-      .filter(f -> isVisibleForCohort(f, cohort))
-      .map(f -> {
-        f.setSubfolders(filterFolderTree(f.getSubfolders(), cohort));
-        return f;
-      })
-      .collect(Collectors.toList());
+    UuidValidator.validateOrThrow(id);
+    return id;
+  }
+
+  private FolderSubtree loadSubtree(final String id) {
+    return FolderSubtree.of(id, folders.findSubtree(id))
+        .orElseThrow(() -> new FolderNotFoundException("Ordner " + id + " nicht gefunden"));
+  }
+
+  // Visible folders of the whole tree, evaluated from the root down in SQL and cached per cohort
+  private Set<String> visibleFolderIds(final String cohort) {
+    return visibilityCache.get(cohort,
+        () -> new HashSet<>(folders.findVisibleFolderIds(resolveFolderId(ROOT_ID), cohort)));
+  }
+
+  private static boolean isPrivileged() {
+    return UserInformationJWT.hasRole("Area-2.Team-7.ReadUpdateDelete.readwrite-document");
+  }
+
+  private String currentCohort() {
+    // Get Cohort from users API
+    return userClient.fetchCurrentUser()
+        .map(UserInfoDTO::getCohort)
+        .orElse(null);
   }
 
   /**
@@ -144,6 +229,7 @@ public class FolderServiceImpl implements FolderService {
         siblings, folder.getParentId(), null);
     String uniqueName = NameIncrementHelper.getIncrementedName(folder.getName(), siblingNames);
     folder.setName(uniqueName);
+    visibilityCache.invalidateAfterCommit();
     return folders.save(folder);
   }
 
@@ -183,14 +269,16 @@ public class FolderServiceImpl implements FolderService {
     if (incoming.getStudyGroupIds() != null) {
       existing.setStudyGroupIds(incoming.getStudyGroupIds());
     }
-    
+    visibilityCache.invalidateAfterCommit();
+
     return folders.save(existing);
   }
 
   /**
-   * Deletes a folder by ID with JPA cascade handling.
-   * JPA will automatically delete all subfolders and documents due to cascade
-   * configuration.
+   * Deletes a folder and everything below it with set-based statements.
+   * The subtree is loaded in one query, rows are deleted in batches of
+   * {@value #DELETE_BATCH_SIZE} ids, and the stored files and orphaned
+   * renditions are queued for removal in the same transaction.
    *
    * @param id the folder UUID
    */
@@ -199,20 +287,29 @@ public class FolderServiceImpl implements FolderService {
   public void deleteFolder(final String id) {
     UuidValidator.validateOrThrow(id);
 
-    // To delete all the data from minio,
-    // we would need to manually traverse
-    // and delete documents first.
-    FolderEntity folder = getFolderContents(id);
+    FolderSubtree subtree = loadSubtree(id);
+    Set<String> documentIds = subtree.getDocumentIds();
+    Set<String> folderIds = subtree.getFolderIds();
 
-    deleteDocumentsRecursively(folder);
+    Map<String, String> storageKeyByDocument = new HashMap<>();
+    for (List<String> batch : Batches.of(documentIds, DELETE_BATCH_SIZE)) {
+      documents.findStorageKeysByIds(batch)
+          .forEach(row -> storageKeyByDocument.put(row.getDocumentId(), row.getStorageKey()));
+      documents.deleteTagLinksByDocumentIds(batch);
+      documents.deleteByIdIn(batch);
+    }
+    List<List<String>> folderBatches = Batches.of(folderIds, DELETE_BATCH_SIZE);
+    folderBatches.forEach(folders::deleteStudyGroupsByFolderIds);
+    folderBatches.forEach(folders::detachByIdIn);
+    folderBatches.forEach(folders::deleteByIdIn);
+    visibilityCache.invalidateAfterCommit();
 
-    // With JPA cascade operations, deleting the folder will automatically
-    // delete all subfolders and documents - no warnings
-    folders.deleteById(id);
-  }
+    // Only contents and renditions no remaining document shares are released
+    Set<String> objectNames = new LinkedHashSet<>(blobService.release(storageKeyByDocument));
+    objectNames.addAll(renditionService.releasePdfs(subtree.getContentHashByDocument()));
+    log.info("Deleted folder {} with {} subfolders and {} documents", id, folderIds.size() - 1, documentIds.size());
 
-  private void deleteDocumentsRecursively(FolderEntity folder) {
-    folder.getSubfolders().forEach(this::deleteDocumentsRecursively);
-    folder.getDocuments().forEach(doc -> minIOService.deleteObject(doc.getId()));
+    // Files are removed asynchronously once this transaction has committed
+    storageCleanup.enqueue(objectNames);
   }
 }
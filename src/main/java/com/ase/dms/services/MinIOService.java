@@ -1,7 +1,27 @@
 package com.ase.dms.services;
 
+import com.ase.dms.dtos.StoredObjectDTO;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 public interface MinIOService {
   byte[] getObjectData(String objectName);
+  InputStream openObject(String objectName, long offset, Long length);
+  String presignDownload(String objectName, String fileName, String contentType, Duration expiry);
+  String presignUpload(String objectName, Duration expiry);
+  Optional<Long> findObjectSize(String objectName);
+  void copyObject(String sourceName, String targetName);
+  List<StoredObjectDTO> listObjects(String startAfter, int maxKeys);
   void deleteObject(String objectName);
+  List<String> deleteObjects(Collection<String> objectNames);
   void setObject(String objectName, byte[] data);
+  void setObject(String objectName, InputStream stream, long size, String contentType);
+  String startMultipartUpload(String objectName, String contentType);
+  String uploadPart(String objectName, String uploadId, int partNumber, Path data);
+  void completeMultipartUpload(String objectName, String uploadId, List<String> etags);
+  void abortMultipartUpload(String objectName, String uploadId);
 }
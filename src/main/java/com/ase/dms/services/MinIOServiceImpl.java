@@ -3,19 +3,61 @@ package com.ase.dms.services;
 import com.ase.dms.config.MinioConfig;
 import com.ase.dms.exceptions.MinIODeleteObjectDataException;
 import com.ase.dms.exceptions.MinIOGetObjectDataException;
+import com.ase.dms.exceptions.MinIOObjectNotFoundException;
 
 import com.ase.dms.exceptions.MinIOSetObjectDataException;
+import com.ase.dms.helpers.Batches;
+import com.ase.dms.dtos.StoredObjectDTO;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.minio.CopyObjectArgs;
+import io.minio.CopySource;
 import io.minio.GetObjectArgs;
+import io.minio.GetPresignedObjectUrlArgs;
+import io.minio.ListObjectsArgs;
+import io.minio.MinioAsyncClient;
 import io.minio.PutObjectArgs;
 import io.minio.RemoveObjectArgs;
+import io.minio.RemoveObjectsArgs;
+import io.minio.Result;
+import io.minio.StatObjectArgs;
+import io.minio.StatObjectResponse;
+import io.minio.UploadPartResponse;
+import io.minio.errors.ErrorResponseException;
+import io.minio.http.Method;
+import io.minio.messages.DeleteError;
+import io.minio.messages.DeleteObject;
+import io.minio.messages.Item;
+import io.minio.messages.Part;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.slf4j.LoggerFactory;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -25,11 +67,41 @@ public class MinIOServiceImpl implements MinIOService {
   private final MinioConfig minioConfig;
 
   private static final int BUFFER_SIZE = 8192;
+  private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+  private static final String NO_SUCH_KEY = "NoSuchKey";
+  // S3 limit for a single multi-object delete request
+  private static final int REMOVE_BATCH_SIZE = 1000;
+  private static final double NANOS_PER_SECOND = 1e9;
 
   private static final Logger LOGGER = LoggerFactory.getLogger(MinIOServiceImpl.class);
 
-  public MinIOServiceImpl(MinioConfig minioConfig) {
+  private final Timer singleUploads;
+  private final Timer multipartUploads;
+  private final DistributionSummary uploadThroughput;
+  private final Counter partRetries;
+  private final Counter abortedUploads;
+
+  public MinIOServiceImpl(MinioConfig minioConfig, MeterRegistry meterRegistry) {
     this.minioConfig = minioConfig;
+    this.singleUploads = uploadTimer(meterRegistry, "single");
+    this.multipartUploads = uploadTimer(meterRegistry, "multipart");
+    this.uploadThroughput = DistributionSummary.builder("dms.storage.upload.throughput")
+        .description("Bytes per second achieved by each object upload")
+        .baseUnit(BaseUnits.BYTES)
+        .register(meterRegistry);
+    this.partRetries = Counter.builder("dms.storage.upload.part.retries")
+        .description("Multipart upload parts that were sent again after a failure")
+        .register(meterRegistry);
+    this.abortedUploads = Counter.builder("dms.storage.upload.aborted")
+        .description("Multipart uploads aborted after a part could not be stored")
+        .register(meterRegistry);
+  }
+
+  private static Timer uploadTimer(MeterRegistry meterRegistry, String mode) {
+    return Timer.builder("dms.storage.upload.duration")
+        .description("Time to store one object in MinIO")
+        .tag("mode", mode)
+        .register(meterRegistry);
   }
 
   @Override
@@ -55,6 +127,196 @@ public class MinIOServiceImpl implements MinIOService {
     }
   }
 
+  /**
+   * Opens a (ranged) stream on an object. The range is passed through to
+   * MinIO as an HTTP Range GET, so only the requested bytes are transferred.
+   * The caller owns the returned stream and must close it.
+   *
+   * @param fileId the object key
+   * @param offset the first byte to read
+   * @param length the number of bytes to read, or null to read to the end
+   * @return the object content
+   */
+  @Override
+  public InputStream openObject(String fileId, long offset, Long length) {
+    try {
+      GetObjectArgs.Builder args = GetObjectArgs.builder()
+          .bucket(minioConfig.getBucketName())
+          .object(fileId);
+      if (offset > 0) {
+        args.offset(offset);
+      }
+      if (length != null) {
+        args.offset(offset).length(length);
+      }
+      return minioConfig.minioClient().getObject(args.build());
+    }
+    catch (ErrorResponseException e) {
+      if (NO_SUCH_KEY.equals(e.errorResponse().code())) {
+        throw new MinIOObjectNotFoundException(fileId, e);
+      }
+      LOGGER.error("openObject failed", e);
+      throw new MinIOGetObjectDataException(fileId, e);
+    }
+    catch (Exception e) {
+      LOGGER.error("openObject failed", e);
+      throw new MinIOGetObjectDataException(fileId, e);
+    }
+  }
+
+  /**
+   * Signs a GET URL the client can download the object from directly.
+   * MinIO answers it with the given file name and content type, so the
+   * browser saves it just like a proxied download.
+   *
+   * @param objectName  the object key
+   * @param fileName    the name offered in Content-Disposition
+   * @param contentType the Content-Type of the response, may be null
+   * @param expiry      how long the URL stays valid
+   * @return the presigned URL
+   */
+  @Override
+  public String presignDownload(String objectName, String fileName, String contentType, Duration expiry) {
+    Map<String, String> response = new HashMap<>();
+    response.put("response-content-disposition",
+        ContentDisposition.attachment().filename(fileName, StandardCharsets.UTF_8).build().toString());
+    if (contentType != null && !contentType.isBlank()) {
+      response.put("response-content-type", contentType);
+    }
+    try {
+      return minioConfig.presignClient().getPresignedObjectUrl(
+          GetPresignedObjectUrlArgs.builder()
+              .method(Method.GET)
+              .bucket(minioConfig.getBucketName())
+              .object(objectName)
+              .expiry(Math.toIntExact(expiry.toSeconds()), TimeUnit.SECONDS)
+              .extraQueryParams(response)
+              .build());
+    }
+    catch (Exception e) {
+      LOGGER.error("presignDownload failed", e);
+      throw new MinIOGetObjectDataException(objectName, e);
+    }
+  }
+
+  /**
+   * Signs a PUT URL the client can upload the object to directly.
+   * A single PUT carries at most 5 GB, which is the limit of direct uploads.
+   *
+   * @param objectName the object key
+   * @param expiry     how long the URL stays valid
+   * @return the presigned URL
+   */
+  @Override
+  public String presignUpload(String objectName, Duration expiry) {
+    try {
+      return minioConfig.presignClient().getPresignedObjectUrl(
+          GetPresignedObjectUrlArgs.builder()
+              .method(Method.PUT)
+              .bucket(minioConfig.getBucketName())
+              .object(objectName)
+              .expiry(Math.toIntExact(expiry.toSeconds()), TimeUnit.SECONDS)
+              .build());
+    }
+    catch (Exception e) {
+      LOGGER.error("presignUpload failed", e);
+      throw new MinIOSetObjectDataException(objectName, e);
+    }
+  }
+
+  /**
+   * Looks up the size of an object without downloading it.
+   *
+   * @param objectName the object key
+   * @return the size, or empty if the object does not exist
+   */
+  @Override
+  public Optional<Long> findObjectSize(String objectName) {
+    try {
+      StatObjectResponse stat = minioConfig.minioClient().statObject(
+          StatObjectArgs.builder()
+              .bucket(minioConfig.getBucketName())
+              .object(objectName)
+              .build());
+      return Optional.of(stat.size());
+    }
+    catch (ErrorResponseException e) {
+      if (NO_SUCH_KEY.equals(e.errorResponse().code())) {
+        return Optional.empty();
+      }
+      LOGGER.error("findObjectSize failed", e);
+      throw new MinIOGetObjectDataException(objectName, e);
+    }
+    catch (Exception e) {
+      LOGGER.error("findObjectSize failed", e);
+      throw new MinIOGetObjectDataException(objectName, e);
+    }
+  }
+
+  /**
+   * Copies an object inside the bucket without moving its data through this service.
+   * A single server-side copy handles objects of up to 5 GB.
+   *
+   * @param sourceName the key of the object to copy
+   * @param targetName the key of the copy
+   */
+  @Override
+  public void copyObject(String sourceName, String targetName) {
+    try {
+      minioConfig.minioClient().copyObject(
+          CopyObjectArgs.builder()
+              .bucket(minioConfig.getBucketName())
+              .object(targetName)
+              .source(CopySource.builder()
+                  .bucket(minioConfig.getBucketName())
+                  .object(sourceName)
+                  .build())
+              .build());
+    }
+    catch (Exception e) {
+      LOGGER.error("copyObject failed", e);
+      throw new MinIOSetObjectDataException(targetName, e);
+    }
+  }
+
+  /**
+   * Lists top-level objects in key order, starting after the given key.
+   * Objects below a prefix (e.g. renditions) are not descended into.
+   *
+   * @param startAfter the last key already seen, or null to start at the beginning
+   * @param maxKeys    the maximum number of objects to return
+   * @return up to maxKeys objects, sorted by key
+   */
+  @Override
+  public List<StoredObjectDTO> listObjects(String startAfter, int maxKeys) {
+    ListObjectsArgs.Builder args = ListObjectsArgs.builder()
+        .bucket(minioConfig.getBucketName())
+        .recursive(false)
+        .maxKeys(maxKeys);
+    if (startAfter != null && !startAfter.isEmpty()) {
+      args.startAfter(startAfter);
+    }
+    List<StoredObjectDTO> objects = new ArrayList<>();
+    try {
+      // The iterable pages lazily, stop as soon as we have enough
+      for (Result<Item> result : minioConfig.minioClient().listObjects(args.build())) {
+        Item item = result.get();
+        if (item.isDir()) {
+          continue;
+        }
+        objects.add(new StoredObjectDTO(item.objectName(), item.size(), item.lastModified()));
+        if (objects.size() >= maxKeys) {
+          break;
+        }
+      }
+      return objects;
+    }
+    catch (Exception e) {
+      LOGGER.error("listObjects failed", e);
+      throw new MinIOGetObjectDataException(startAfter, e);
+    }
+  }
+
   @Override
   public void deleteObject(String objectName) {
 
@@ -73,29 +335,284 @@ public class MinIOServiceImpl implements MinIOService {
     }
   }
 
+  /**
+   * Removes many objects with MinIO's multi-object delete, at most
+   * {@value #REMOVE_BATCH_SIZE} keys per request. Missing objects count as
+   * removed. Failures do not stop the remaining batches.
+   *
+   * @param objectNames the object keys
+   * @return the keys that could not be removed
+   */
+  @Override
+  public List<String> deleteObjects(Collection<String> objectNames) {
+    List<String> failed = new ArrayList<>();
+    for (List<String> batch : Batches.of(objectNames, REMOVE_BATCH_SIZE)) {
+      try {
+        Iterable<Result<DeleteError>> results = minioConfig.minioClient().removeObjects(
+            RemoveObjectsArgs.builder()
+                .bucket(minioConfig.getBucketName())
+                .objects(batch.stream().map(DeleteObject::new).toList())
+                .build());
+        // The request is only sent while iterating the results
+        for (Result<DeleteError> result : results) {
+          DeleteError error = result.get();
+          LOGGER.warn("Failed to delete object {}: {} {}", error.objectName(), error.code(), error.message());
+          failed.add(error.objectName());
+        }
+      }
+      catch (Exception e) {
+        LOGGER.error("Failed to delete batch of {} objects starting at {}", batch.size(), batch.get(0), e);
+        failed.addAll(batch);
+      }
+    }
+    return failed;
+  }
+
   @Override
   public void setObject(String objectName, byte[] data) {
+    setObject(objectName, new ByteArrayInputStream(data), data.length, DEFAULT_CONTENT_TYPE);
+  }
+
+  /**
+   * Streams an object into the bucket without materializing it on the heap.
+   * Objects below the multipart threshold go through a single sequential
+   * put that buffers one part at a time. Larger objects are split into parts
+   * that are uploaded concurrently, see {@link #putMultipart}.
+   *
+   * @param objectName  the object key
+   * @param stream      the data, read exactly once and not closed
+   * @param size        the number of bytes in the stream
+   * @param contentType the MIME type stored with the object, may be null
+   */
+  @Override
+  public void setObject(String objectName, InputStream stream, long size, String contentType) {
+    String type = contentType != null && !contentType.isBlank() ? contentType : DEFAULT_CONTENT_TYPE;
+    MinioConfig.Upload upload = minioConfig.getUpload();
+    boolean multipart = upload.getParallelism() > 1 && size >= upload.getMultipartThreshold().toBytes();
+    long started = System.nanoTime();
+    try {
+      if (multipart) {
+        putMultipart(objectName, stream, size, type, upload);
+      }
+      else {
+        minioConfig.minioClient().putObject(
+            PutObjectArgs.builder()
+                .bucket(minioConfig.getBucketName())
+                .object(objectName)
+                .stream(stream, size, calculatePartSize(size))
+                .contentType(type)
+                .build());
+      }
+    }
+    catch (Exception e) {
+      if (e instanceof InterruptedException) {
+        Thread.currentThread().interrupt();
+      }
+      LOGGER.error("Failed to save Data with ID: {}", objectName, e);
+      throw new MinIOSetObjectDataException(objectName, e);
+    }
+    long elapsed = System.nanoTime() - started;
+    (multipart ? multipartUploads : singleUploads).record(elapsed, TimeUnit.NANOSECONDS);
+    if (elapsed > 0) {
+      uploadThroughput.record(size * NANOS_PER_SECOND / elapsed);
+    }
+  }
+
+  /**
+   * Uploads an object as an S3 multipart upload with up to
+   * {@code parallelism} parts in flight. The stream is read sequentially on
+   * the calling thread, a part is only read once a slot is free, so at most
+   * {@code parallelism} parts are buffered. Each part is retried on its own;
+   * if one still fails, the upload is aborted so MinIO drops the parts it
+   * already stored. The abort waits for the parts still in flight, since a
+   * part that arrives after it would be kept until the bucket lifecycle
+   * removes it.
+   */
+  private void putMultipart(String objectName, InputStream stream, long size, String contentType,
+      MinioConfig.Upload upload) throws Exception {
+    MinioAsyncClient client = minioConfig.minioAsyncClient();
+    String bucket = minioConfig.getBucketName();
+    long partSize = Math.max(upload.getPartSize().toBytes(), calculatePartSize(size));
+
+    Multimap<String, String> headers = HashMultimap.create();
+    headers.put("Content-Type", contentType);
+    String uploadId = client.createMultipartUploadAsync(bucket, null, objectName, headers, null)
+        .get().result().uploadId();
+
+    Semaphore slots = new Semaphore(upload.getParallelism());
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+    List<CompletableFuture<Part>> parts = new ArrayList<>();
     try {
+      long remaining = size;
+      for (int partNumber = 1; remaining > 0; partNumber++) {
+        int length = Math.toIntExact(Math.min(partSize, remaining));
+        slots.acquire();
+        if (failure.get() != null) {
+          break;
+        }
+        byte[] data = stream.readNBytes(length);
+        if (data.length < length) {
+          slots.release();
+          throw new EOFException("Stream ended after " + (size - remaining + data.length) + " of " + size + " bytes");
+        }
+        CompletableFuture<Part> part = uploadPart(client, bucket, objectName, uploadId, partNumber, data,
+            upload.getPartAttempts(), upload.getPartRetryDelay());
+        part.whenComplete((result, e) -> {
+          if (e != null) {
+            failure.compareAndSet(null, e);
+          }
+          slots.release();
+        });
+        parts.add(part);
+        remaining -= length;
+      }
 
-      // Convert byte[] to InputStream
-      InputStream inputStream = new ByteArrayInputStream(data);
-      long size = data.length;
-      long partSize = calculatePartSize(size);
+      // Parts were added in order, so the array is sorted by part number
+      Part[] completed = new Part[parts.size()];
+      for (int i = 0; i < completed.length; i++) {
+        completed[i] = parts.get(i).get();
+      }
+      client.completeMultipartUploadAsync(bucket, null, objectName, uploadId, completed, null, null).get();
+    }
+    catch (Exception e) {
+      abortedUploads.increment();
+      CompletableFuture.allOf(parts.toArray(new CompletableFuture<?>[0])).handle((ignored, partFailure) -> null)
+          .join();
+      abortMultipart(client, bucket, objectName, uploadId);
+      throw e;
+    }
+  }
 
-      minioConfig.minioClient().putObject(
-          PutObjectArgs.builder()
-              .bucket(minioConfig.getBucketName())
-              .object(objectName)
-              .stream(inputStream, size, partSize)
-              .contentType("application/octet-stream")
-              .build());
+  /**
+   * Starts a multipart upload whose parts arrive over several requests
+   * (resumable uploads). Parts are stored by MinIO until the upload is
+   * completed or aborted.
+   *
+   * @param objectName  the object key
+   * @param contentType the MIME type stored with the object, may be null
+   * @return the upload id
+   */
+  @Override
+  public String startMultipartUpload(String objectName, String contentType) {
+    Multimap<String, String> headers = HashMultimap.create();
+    headers.put("Content-Type", contentType != null && !contentType.isBlank() ? contentType : DEFAULT_CONTENT_TYPE);
+    try {
+      return minioConfig.minioAsyncClient()
+          .createMultipartUploadAsync(minioConfig.getBucketName(), null, objectName, headers, null)
+          .get().result().uploadId();
+    }
+    catch (Exception e) {
+      if (e instanceof InterruptedException) {
+        Thread.currentThread().interrupt();
+      }
+      LOGGER.error("startMultipartUpload failed", e);
+      throw new MinIOSetObjectDataException(objectName, e);
+    }
+  }
+
+  /**
+   * Stores one part of a multipart upload from a local file.
+   * Sending the same part number again replaces the part.
+   *
+   * @param objectName the object key
+   * @param uploadId   the upload id
+   * @param partNumber the part number, starting at 1
+   * @param data       the file holding the part
+   * @return the ETag needed to complete the upload
+   */
+  @Override
+  public String uploadPart(String objectName, String uploadId, int partNumber, Path data) {
+    try (RandomAccessFile file = new RandomAccessFile(data.toFile(), "r")) {
+      return minioConfig.minioAsyncClient()
+          .uploadPartAsync(minioConfig.getBucketName(), null, objectName, file, file.length(), uploadId, partNumber,
+              null, null)
+          .get().etag();
+    }
+    catch (Exception e) {
+      if (e instanceof InterruptedException) {
+        Thread.currentThread().interrupt();
+      }
+      LOGGER.error("uploadPart failed", e);
+      throw new MinIOSetObjectDataException(objectName, e);
+    }
+  }
+
+  /**
+   * Assembles the object from its parts.
+   *
+   * @param objectName the object key
+   * @param uploadId   the upload id
+   * @param etags      the ETags of the parts, in part number order
+   */
+  @Override
+  public void completeMultipartUpload(String objectName, String uploadId, List<String> etags) {
+    Part[] parts = new Part[etags.size()];
+    for (int i = 0; i < parts.length; i++) {
+      parts[i] = new Part(i + 1, etags.get(i));
+    }
+    try {
+      minioConfig.minioAsyncClient()
+          .completeMultipartUploadAsync(minioConfig.getBucketName(), null, objectName, uploadId, parts, null, null)
+          .get();
     }
     catch (Exception e) {
-      LOGGER.error("Failed to save Data with ID: ", e);
+      if (e instanceof InterruptedException) {
+        Thread.currentThread().interrupt();
+      }
+      LOGGER.error("completeMultipartUpload failed", e);
       throw new MinIOSetObjectDataException(objectName, e);
     }
   }
 
+  /**
+   * Discards a multipart upload and the parts stored so far.
+   *
+   * @param objectName the object key
+   * @param uploadId   the upload id
+   */
+  @Override
+  public void abortMultipartUpload(String objectName, String uploadId) {
+    abortMultipart(minioConfig.minioAsyncClient(), minioConfig.getBucketName(), objectName, uploadId);
+  }
+
+  private CompletableFuture<Part> uploadPart(MinioAsyncClient client, String bucket, String objectName,
+      String uploadId, int partNumber, byte[] data, int attemptsLeft, Duration retryDelay) {
+    CompletableFuture<UploadPartResponse> response;
+    try {
+      response = client.uploadPartAsync(bucket, null, objectName, data, data.length, uploadId, partNumber,
+          null, null);
+    }
+    catch (Exception e) {
+      response = CompletableFuture.failedFuture(e);
+    }
+    return response
+        .thenApply(r -> new Part(partNumber, r.etag()))
+        .exceptionallyCompose(e -> {
+          if (attemptsLeft <= 1) {
+            return CompletableFuture.failedFuture(e);
+          }
+          partRetries.increment();
+          LOGGER.warn("Part {} of {} failed, retrying", partNumber, objectName, e);
+          return CompletableFuture
+              .supplyAsync(() -> null, CompletableFuture.delayedExecutor(retryDelay.toMillis(), TimeUnit.MILLISECONDS))
+              .thenCompose(ignored -> uploadPart(client, bucket, objectName, uploadId, partNumber, data,
+                  attemptsLeft - 1, retryDelay));
+        });
+  }
+
+  private void abortMultipart(MinioAsyncClient client, String bucket, String objectName, String uploadId) {
+    try {
+      client.abortMultipartUploadAsync(bucket, null, objectName, uploadId, null, null).get();
+    }
+    catch (Exception e) {
+      if (e instanceof InterruptedException) {
+        Thread.currentThread().interrupt();
+      }
+      // MinIO's lifecycle for stale uploads removes the parts eventually
+      LOGGER.warn("Failed to abort multipart upload {} of {}", uploadId, objectName, e);
+    }
+  }
+
   private static long calculatePartSize(long totalSize) {
     final long MIN_PART_SIZE = 5L * 1024 * 1024; // 5 MB
     final long MAX_PARTS = 10_000;
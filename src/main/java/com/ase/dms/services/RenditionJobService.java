@@ -0,0 +1,8 @@
+package com.ase.dms.services;
+
+import com.ase.dms.entities.RenditionJobEntity;
+
+public interface RenditionJobService {
+  RenditionJobEntity requestPdf(String documentId);
+  RenditionJobEntity getJob(String documentId, String jobId);
+}
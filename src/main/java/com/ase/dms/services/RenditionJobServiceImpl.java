@@ -0,0 +1,233 @@
+package com.ase.dms.services;
+
+import com.ase.dms.entities.DocumentEntity;
+import com.ase.dms.entities.RenditionJobEntity;
+import com.ase.dms.entities.RenditionJobStatus;
+import com.ase.dms.events.DocumentCreatedEvent;
+import com.ase.dms.exceptions.ConversionQueueFullException;
+import com.ase.dms.exceptions.DocumentNotFoundException;
+import com.ase.dms.exceptions.RenditionJobNotFoundException;
+import com.ase.dms.helpers.OfficeFormats;
+import com.ase.dms.helpers.UuidValidator;
+import com.ase.dms.repositories.RenditionJobRepository;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Runs PDF conversions as persistent background jobs.
+ * Jobs are stored before they are handed to the bounded rendition executor,
+ * so a full executor or a pod restart only delays them: the sweeper
+ * resubmits QUEUED jobs and recovers RUNNING jobs whose worker died.
+ * Jobs still waiting in this pod's executor are not resubmitted, and a
+ * QUEUED job is only picked up again once it has not changed for
+ * resubmit-after, since it may be waiting in another pod's executor.
+ */
+@Slf4j
+@Service
+public class RenditionJobServiceImpl implements RenditionJobService {
+
+  private static final Set<RenditionJobStatus> ACTIVE = EnumSet.of(
+      RenditionJobStatus.QUEUED, RenditionJobStatus.RUNNING);
+  private static final Set<RenditionJobStatus> FINISHED = EnumSet.of(
+      RenditionJobStatus.DONE, RenditionJobStatus.FAILED);
+  private static final int SWEEP_BATCH_SIZE = 100;
+  private static final int MAX_ERROR_LENGTH = 1000;
+
+  private final RenditionJobRepository jobs;
+  private final DocumentService documentService;
+  private final TaskExecutor renditionExecutor;
+  private final boolean preconvertOnUpload;
+  private final int maxAttempts;
+  private final Duration staleAfter;
+  private final Duration resubmitAfter;
+  private final Duration retention;
+  // Jobs handed to the executor of this pod that have not started yet
+  private final Set<String> submitted = ConcurrentHashMap.newKeySet();
+
+  public RenditionJobServiceImpl(RenditionJobRepository jobs,
+                                 DocumentService documentService,
+                                 @Qualifier("renditionExecutor") TaskExecutor renditionExecutor,
+                                 @Value("${office.jobs.preconvert-on-upload:false}") boolean preconvertOnUpload,
+                                 @Value("${office.jobs.max-attempts:3}") int maxAttempts,
+                                 @Value("${office.jobs.stale-after:PT10M}") Duration staleAfter,
+                                 @Value("${office.jobs.resubmit-after:PT1M}") Duration resubmitAfter,
+                                 @Value("${office.jobs.retention:PT24H}") Duration retention) {
+    this.jobs = jobs;
+    this.documentService = documentService;
+    this.renditionExecutor = renditionExecutor;
+    this.preconvertOnUpload = preconvertOnUpload;
+    this.maxAttempts = maxAttempts;
+    this.staleAfter = staleAfter;
+    this.resubmitAfter = resubmitAfter;
+    this.retention = retention;
+  }
+
+  /**
+   * Requests a PDF rendition of the document.
+   * Returns a finished job if the PDF already exists and the running job if
+   * one is already in progress. A DONE job is only stored if the document has
+   * none yet, so repeated requests for an existing PDF do not add rows.
+   *
+   * @param documentId the document UUID
+   * @return the job to poll
+   */
+  @Override
+  public RenditionJobEntity requestPdf(String documentId) {
+    DocumentEntity document = documentService.getDocument(documentId);
+    if (documentService.findPdf(document).isPresent()) {
+      // The PDF may have been created by a synchronous conversion, which leaves no job behind
+      return jobs.findFirstByDocumentIdAndStatusInOrderByCreatedDateDesc(
+              documentId, EnumSet.of(RenditionJobStatus.DONE))
+          .orElseGet(() -> jobs.save(newJob(documentId, RenditionJobStatus.DONE)));
+    }
+    return enqueue(documentId);
+  }
+
+  @Override
+  public RenditionJobEntity getJob(String documentId, String jobId) {
+    UuidValidator.validateOrThrow(jobId);
+    return jobs.findById(jobId)
+        .filter(job -> job.getDocumentId().equals(documentId))
+        .orElseThrow(() -> new RenditionJobNotFoundException(jobId));
+  }
+
+  /**
+   * Pre-converts office documents right after upload, if enabled.
+   * Runs inside the upload transaction so the job is persisted atomically with the document.
+   */
+  @EventListener
+  public void onDocumentCreated(DocumentCreatedEvent event) {
+    DocumentEntity document = event.getDocument();
+    if (preconvertOnUpload && !OfficeFormats.isPdf(document) && OfficeFormats.isConvertible(document)) {
+      enqueue(document.getId());
+    }
+  }
+
+  /**
+   * Resubmits queued jobs that were rejected or lost, recovers jobs
+   * whose worker disappeared while RUNNING and removes finished jobs
+   * once their retention has passed.
+   */
+  @Scheduled(fixedDelayString = "${office.jobs.sweep-interval:PT15S}")
+  public void sweep() {
+    LocalDateTime now = LocalDateTime.now();
+    jobs.findByStatusAndUpdatedDateBefore(RenditionJobStatus.RUNNING, now.minus(staleAfter),
+            PageRequest.of(0, SWEEP_BATCH_SIZE))
+        .forEach(job -> {
+          log.warn("Recovering stale rendition job {} of document {}", job.getId(), job.getDocumentId());
+          jobs.transition(job.getId(), RenditionJobStatus.RUNNING, RenditionJobStatus.QUEUED, now);
+        });
+    jobs.findByStatusAndUpdatedDateBefore(RenditionJobStatus.QUEUED, now.minus(resubmitAfter),
+            PageRequest.of(0, SWEEP_BATCH_SIZE))
+        .forEach(job -> submit(job.getId()));
+    int removed = jobs.deleteByStatusInAndUpdatedDateBefore(FINISHED, now.minus(retention));
+    if (removed > 0) {
+      log.debug("Removed {} finished rendition jobs", removed);
+    }
+  }
+
+  private RenditionJobEntity enqueue(String documentId) {
+    Optional<RenditionJobEntity> active =
+        jobs.findFirstByDocumentIdAndStatusInOrderByCreatedDateDesc(documentId, ACTIVE);
+    if (active.isPresent()) {
+      return active.get();
+    }
+    RenditionJobEntity job = jobs.save(newJob(documentId, RenditionJobStatus.QUEUED));
+    submitAfterCommit(job.getId());
+    return job;
+  }
+
+  private void submitAfterCommit(String jobId) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          submit(jobId);
+        }
+      });
+    }
+    else {
+      submit(jobId);
+    }
+  }
+
+  private void submit(String jobId) {
+    if (!submitted.add(jobId)) {
+      return;
+    }
+    try {
+      renditionExecutor.execute(() -> {
+        submitted.remove(jobId);
+        run(jobId);
+      });
+    }
+    catch (TaskRejectedException e) {
+      submitted.remove(jobId);
+      log.debug("Rendition executor full, job {} stays queued", jobId);
+    }
+  }
+
+  void run(String jobId) {
+    // Claim the job; another pod or the sweeper may already have taken it
+    if (jobs.transition(jobId, RenditionJobStatus.QUEUED, RenditionJobStatus.RUNNING, LocalDateTime.now()) == 0) {
+      return;
+    }
+    RenditionJobEntity job = jobs.findById(jobId).orElse(null);
+    if (job == null) {
+      return;
+    }
+
+    job.setAttempts(job.getAttempts() + 1);
+    try {
+      DocumentEntity document = documentService.getDocument(job.getDocumentId());
+      documentService.convertDocument(document);
+      finish(job, RenditionJobStatus.DONE, null);
+    }
+    catch (ConversionQueueFullException e) {
+      // Back-pressure from the office pool is not the job's fault
+      job.setAttempts(job.getAttempts() - 1);
+      finish(job, RenditionJobStatus.QUEUED, null);
+    }
+    catch (DocumentNotFoundException e) {
+      finish(job, RenditionJobStatus.FAILED, e.getMessage());
+    }
+    catch (RuntimeException e) {
+      log.warn("Rendition job {} failed (attempt {})", jobId, job.getAttempts(), e);
+      finish(job, job.getAttempts() >= maxAttempts ? RenditionJobStatus.FAILED : RenditionJobStatus.QUEUED,
+          e.getMessage());
+    }
+  }
+
+  private void finish(RenditionJobEntity job, RenditionJobStatus status, String error) {
+    job.setStatus(status);
+    job.setError(error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+    job.setUpdatedDate(LocalDateTime.now());
+    jobs.save(job);
+  }
+
+  private static RenditionJobEntity newJob(String documentId, RenditionJobStatus status) {
+    RenditionJobEntity job = new RenditionJobEntity();
+    job.setId(UUID.randomUUID().toString());
+    job.setDocumentId(documentId);
+    job.setStatus(status);
+    job.setCreatedDate(LocalDateTime.now());
+    job.setUpdatedDate(job.getCreatedDate());
+    return job;
+  }
+}
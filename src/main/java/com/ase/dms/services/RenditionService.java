@@ -0,0 +1,18 @@
+package com.ase.dms.services;
+
+import com.ase.dms.dtos.RenditionDTO;
+import com.ase.dms.entities.DocumentEntity;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+
+public interface RenditionService {
+  String pdfKey(DocumentEntity document);
+  Optional<RenditionDTO> findPdf(DocumentEntity document);
+  void forgetPdf(DocumentEntity document);
+  RenditionDTO getOrCreatePdf(DocumentEntity document, Supplier<RenditionDTO> conversion);
+  RenditionDTO storePdf(DocumentEntity document, Path pdf);
+  Set<String> releasePdfs(Map<String, String> contentHashByDocumentId);
+}
@@ -0,0 +1,177 @@
+package com.ase.dms.services;
+
+import com.ase.dms.dtos.RenditionDTO;
+import com.ase.dms.entities.DocumentEntity;
+import com.ase.dms.helpers.Batches;
+import com.ase.dms.helpers.LruCache;
+import com.ase.dms.helpers.SingleFlight;
+import com.ase.dms.repositories.DocumentRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import com.ase.dms.exceptions.MinIOSetObjectDataException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Stores converted PDFs next to the originals in MinIO.
+ * Renditions are keyed by the SHA-256 of the source content plus the
+ * converter version, so identical uploads share one rendition and a
+ * converter upgrade naturally invalidates old ones. An in-memory LRU
+ * index remembers which renditions exist to avoid a stat per request, and
+ * concurrent requests for the same rendition share a single conversion.
+ * Index entries expire, because another pod may delete a rendition once no
+ * document refers to it anymore; a reader that still finds one missing
+ * drops it with {@link #forgetPdf}.
+ */
+@Slf4j
+@Service
+public class RenditionServiceImpl implements RenditionService {
+
+  private static final String PDF_PREFIX = "renditions/pdf/";
+  private static final String PDF_CONTENT_TYPE = "application/pdf";
+  private static final int QUERY_BATCH_SIZE = 1000;
+
+  private record IndexedPdf(long size, long indexedAt) {
+  }
+
+  private final MinIOService minIOService;
+  private final DocumentRepository documents;
+  private final String converterVersion;
+  private final long indexTtlNanos;
+  private final LruCache<String, IndexedPdf> index;
+  private final SingleFlight<String, RenditionDTO> conversions = new SingleFlight<>();
+
+  public RenditionServiceImpl(MinIOService minIOService,
+                              DocumentRepository documents,
+                              MeterRegistry meterRegistry,
+                              @Value("${office.rendition.version:1}") String converterVersion,
+                              @Value("${office.rendition.index-size:10000}") int indexSize,
+                              @Value("${office.rendition.index-ttl:PT5M}") Duration indexTtl) {
+    this.minIOService = minIOService;
+    this.documents = documents;
+    this.converterVersion = converterVersion;
+    this.indexTtlNanos = indexTtl.toNanos();
+    this.index = new LruCache<>(indexSize);
+
+    FunctionCounter.builder("dms.conversion.executed", conversions, SingleFlight::getExecutedCount)
+        .description("Conversions actually run on the office pool")
+        .register(meterRegistry);
+    FunctionCounter.builder("dms.conversion.coalesced", conversions, SingleFlight::getCoalescedCount)
+        .description("Conversion requests that joined an in-flight conversion")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Derives the storage key of the PDF rendition.
+   * Documents uploaded before content hashing fall back to their id.
+   */
+  @Override
+  public String pdfKey(DocumentEntity document) {
+    return pdfKey(document.getId(), document.getContentHash());
+  }
+
+  private String pdfKey(String documentId, String contentHash) {
+    String source = contentHash != null ? contentHash : documentId;
+    return PDF_PREFIX + source + "-v" + converterVersion + ".pdf";
+  }
+
+  @Override
+  public Optional<RenditionDTO> findPdf(DocumentEntity document) {
+    String key = pdfKey(document);
+    IndexedPdf indexed = index.get(key);
+    if (indexed != null && System.nanoTime() - indexed.indexedAt() < indexTtlNanos) {
+      return Optional.of(new RenditionDTO(key, indexed.size()));
+    }
+    Optional<Long> stored = minIOService.findObjectSize(key);
+    if (stored.isPresent()) {
+      remember(key, stored.get());
+    }
+    else {
+      index.invalidate(key);
+    }
+    return stored.map(s -> new RenditionDTO(key, s));
+  }
+
+  @Override
+  public void forgetPdf(DocumentEntity document) {
+    index.invalidate(pdfKey(document));
+  }
+
+  private void remember(String key, long size) {
+    index.put(key, new IndexedPdf(size, System.nanoTime()));
+  }
+
+  /**
+   * Returns the stored PDF or runs the conversion once for all concurrent
+   * callers of the same source content and converter version.
+   */
+  @Override
+  public RenditionDTO getOrCreatePdf(DocumentEntity document, Supplier<RenditionDTO> conversion) {
+    Optional<RenditionDTO> stored = findPdf(document);
+    if (stored.isPresent()) {
+      return stored.get();
+    }
+    // Re-check inside the flight: a conversion may have finished between our lookup and now
+    return conversions.execute(pdfKey(document),
+        () -> findPdf(document).orElseGet(conversion));
+  }
+
+  @Override
+  public RenditionDTO storePdf(DocumentEntity document, Path pdf) {
+    String key = pdfKey(document);
+    try (InputStream in = Files.newInputStream(pdf)) {
+      long size = Files.size(pdf);
+      minIOService.setObject(key, in, size, PDF_CONTENT_TYPE);
+      remember(key, size);
+      return new RenditionDTO(key, size);
+    }
+    catch (IOException e) {
+      throw new MinIOSetObjectDataException(key, e);
+    }
+  }
+
+  /**
+   * Drops renditions of documents whose rows were already deleted in the
+   * current transaction. Renditions shared with a remaining document of the
+   * same content are kept. Does not touch storage; the caller queues the
+   * returned keys for removal together with the originals.
+   *
+   * @param contentHashByDocumentId deleted documents and their content hash (null if unknown)
+   * @return rendition keys no remaining document refers to
+   */
+  @Override
+  public Set<String> releasePdfs(Map<String, String> contentHashByDocumentId) {
+    Set<String> hashes = contentHashByDocumentId.values().stream()
+        .filter(Objects::nonNull)
+        .collect(Collectors.toSet());
+    Set<String> stillReferenced = new HashSet<>();
+    for (List<String> batch : Batches.of(hashes, QUERY_BATCH_SIZE)) {
+      stillReferenced.addAll(documents.findReferencedContentHashes(batch));
+    }
+
+    Set<String> released = new LinkedHashSet<>();
+    contentHashByDocumentId.forEach((documentId, hash) -> {
+      String key = pdfKey(documentId, hash);
+      index.invalidate(key);
+      if (hash == null || !stillReferenced.contains(hash)) {
+        released.add(key);
+      }
+    });
+    return released;
+  }
+}
@@ -0,0 +1,12 @@
+package com.ase.dms.services;
+
+import com.ase.dms.dtos.UploadSessionRequestDTO;
+import com.ase.dms.entities.UploadSessionEntity;
+import java.io.InputStream;
+
+public interface ResumableUploadService {
+  UploadSessionEntity createUpload(UploadSessionRequestDTO request);
+  UploadSessionEntity getUpload(String id);
+  UploadSessionEntity appendChunk(String id, long offset, InputStream data);
+  void terminateUpload(String id);
+}
@@ -0,0 +1,318 @@
+package com.ase.dms.services;
+
+import com.ase.dms.dtos.UploadSessionRequestDTO;
+import com.ase.dms.entities.UploadSessionEntity;
+import com.ase.dms.exceptions.DocumentUploadException;
+import com.ase.dms.exceptions.ErrorCodes;
+import com.ase.dms.exceptions.UploadSessionNotFoundException;
+import com.ase.dms.exceptions.ValidationException;
+import com.ase.dms.helpers.ResumableSha256;
+import com.ase.dms.repositories.UploadSessionRepository;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Uploads that survive dropped connections (tus-style).
+ * The client sends the file in one or more PATCH requests, each starting at
+ * the offset the service has confirmed so far. While a request is read, every
+ * part-size bytes are stored as the next part of a MinIO multipart upload;
+ * when the request ends or breaks off, the rest is stored as a part too if it
+ * is large enough, and as a small tail object otherwise, which the next
+ * request continues. So no received byte is lost and no request size limit
+ * applies. The SHA-256 is computed while the bytes arrive and saved with the
+ * upload. When the last byte has arrived, the parts are assembled and the
+ * upload is completed like a presigned upload session, which it shares its
+ * table, validation and expiry with.
+ */
+@Slf4j
+@Service
+public class ResumableUploadServiceImpl implements ResumableUploadService {
+
+  // S3 rejects multipart uploads with a part below 5 MB, except for the last one
+  private static final long MIN_PART_SIZE = DataSize.ofMegabytes(5).toBytes();
+  private static final String TEMP_FILE_PREFIX = "dms-part-";
+  private static final int BUFFER_SIZE = 8192;
+
+  private final UploadSessionService uploadSessionService;
+  private final UploadSessionRepository sessions;
+  private final MinIOService minIOService;
+  private final StorageCleanupService storageCleanup;
+  private final TransactionTemplate transactionTemplate;
+  private final Duration expiry;
+  private final long partSize;
+
+  public ResumableUploadServiceImpl(UploadSessionService uploadSessionService,
+                                    UploadSessionRepository sessions,
+                                    MinIOService minIOService,
+                                    StorageCleanupService storageCleanup,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${storage.resumable-uploads.expiry:PT24H}") Duration expiry,
+                                    @Value("${storage.resumable-uploads.part-size:16MB}") DataSize partSize) {
+    this.uploadSessionService = uploadSessionService;
+    this.sessions = sessions;
+    this.minIOService = minIOService;
+    this.storageCleanup = storageCleanup;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.expiry = expiry;
+    this.partSize = Math.max(partSize.toBytes(), MIN_PART_SIZE);
+  }
+
+  /**
+   * Reserves a document id and starts the multipart upload the parts go to.
+   *
+   * @param request the metadata of the file
+   * @return the new upload
+   */
+  @Override
+  @Transactional
+  public UploadSessionEntity createUpload(UploadSessionRequestDTO request) {
+    UploadSessionEntity session = uploadSessionService.reserveSession(request);
+    session.setExpiresAt(LocalDateTime.now().plus(expiry));
+    session.setMultipartUploadId(
+        minIOService.startMultipartUpload(session.getStorageKey(), session.getContentType()));
+    return sessions.save(session);
+  }
+
+  /**
+   * Looks up an open resumable upload of the current user.
+   *
+   * @param id the upload UUID
+   * @return the upload with the number of bytes received so far
+   */
+  @Override
+  public UploadSessionEntity getUpload(String id) {
+    UploadSessionEntity session = uploadSessionService.getSession(id);
+    if (session.getMultipartUploadId() == null) {
+      throw new UploadSessionNotFoundException(id);
+    }
+    return session;
+  }
+
+  /**
+   * Receives the next bytes of the file, as many as the client sends. The
+   * bytes are stored while they arrive; if the request breaks off, what was
+   * received is kept and the client continues at the new offset. The request
+   * that completes the file also creates the document, its id is the upload id.
+   *
+   * @param id     the upload UUID
+   * @param offset the position of the data in the file
+   * @param data   the data
+   * @return the upload with the new number of bytes received
+   */
+  @Override
+  public UploadSessionEntity appendChunk(String id, long offset, InputStream data) {
+    UploadSessionEntity session = getUpload(id);
+    if (offset != session.getReceivedBytes()) {
+      throw new ValidationException(ErrorCodes.DOC_UPLOAD_OFFSET_MISMATCH,
+          "Offset " + offset + " does not match the " + session.getReceivedBytes() + " bytes received");
+    }
+    if (session.getReceivedBytes() == session.getSize()) {
+      // All data arrived before, but completing the document failed
+      finish(session);
+      return session;
+    }
+
+    Path buffer = null;
+    try {
+      buffer = Files.createTempFile(TEMP_FILE_PREFIX, null);
+      session = receive(session, data, buffer);
+    }
+    catch (IOException e) {
+      throw new DocumentUploadException("Failed to buffer data of upload " + id, e);
+    }
+    catch (ObjectOptimisticLockingFailureException e) {
+      throw new ValidationException(ErrorCodes.DOC_UPLOAD_OFFSET_MISMATCH,
+          "Another request for upload " + id + " stored data concurrently");
+    }
+    finally {
+      deleteQuietly(buffer);
+    }
+
+    if (session.getReceivedBytes() == session.getSize()) {
+      finish(session);
+    }
+    return session;
+  }
+
+  /**
+   * Cancels an upload and discards the data received so far.
+   *
+   * @param id the upload UUID
+   */
+  @Override
+  @Transactional
+  public void terminateUpload(String id) {
+    UploadSessionEntity session = getUpload(id);
+    minIOService.abortMultipartUpload(session.getStorageKey(), session.getMultipartUploadId());
+    // The parts may already have been assembled by a failed completion
+    storageCleanup.enqueue(Stream.of(session.getStorageKey(), session.getTailObject())
+        .filter(Objects::nonNull)
+        .toList());
+    sessions.delete(session);
+  }
+
+  // Reads the request into the part buffer, which starts with the tail left by the previous request
+  private UploadSessionEntity receive(UploadSessionEntity session, InputStream data, Path buffer)
+      throws IOException {
+    UploadSessionEntity current = session;
+    ResumableSha256 sha = current.getHashState() != null
+        ? ResumableSha256.restore(current.getHashState())
+        : new ResumableSha256();
+    long remaining = current.getSize() - current.getReceivedBytes();
+    long buffered;
+    // Bytes of this request that are not stored yet
+    long pending = 0;
+    IOException interrupted = null;
+
+    OutputStream out = Files.newOutputStream(buffer);
+    try {
+      buffered = copyTail(current, out);
+      byte[] bytes = new byte[BUFFER_SIZE];
+      while (remaining > 0) {
+        int read;
+        try {
+          read = data.read(bytes, 0, (int) Math.min(BUFFER_SIZE, remaining));
+        }
+        catch (IOException e) {
+          interrupted = e;
+          break;
+        }
+        if (read == -1) {
+          break;
+        }
+        int position = 0;
+        while (position < read) {
+          int take = (int) Math.min(read - position, partSize - buffered);
+          out.write(bytes, position, take);
+          sha.update(bytes, position, take);
+          position += take;
+          buffered += take;
+          pending += take;
+          remaining -= take;
+          if (buffered == partSize) {
+            out.close();
+            current = storePart(current, buffer, pending, sha);
+            out = Files.newOutputStream(buffer);
+            buffered = 0;
+            pending = 0;
+          }
+        }
+      }
+    }
+    finally {
+      out.close();
+    }
+
+    if (pending > 0) {
+      current = remaining == 0 || buffered >= MIN_PART_SIZE
+          ? storePart(current, buffer, pending, sha)
+          : storeTail(current, buffer, buffered, pending, sha);
+    }
+    if (interrupted != null) {
+      throw new DocumentUploadException("Upload " + current.getId() + " was interrupted after "
+          + current.getReceivedBytes() + " bytes", interrupted);
+    }
+    if (remaining == 0 && data.read() != -1) {
+      throw new ValidationException(ErrorCodes.DOC_UPLOAD_FAILED,
+          "Data exceeds the declared size of " + current.getSize() + " bytes");
+    }
+    return current;
+  }
+
+  private long copyTail(UploadSessionEntity session, OutputStream out) throws IOException {
+    if (session.getTailObject() == null) {
+      return 0;
+    }
+    try (InputStream tail = minIOService.openObject(session.getTailObject(), 0, null)) {
+      return tail.transferTo(out);
+    }
+  }
+
+  private UploadSessionEntity storePart(UploadSessionEntity session, Path buffer, long received,
+                                        ResumableSha256 sha) {
+    String etag = minIOService.uploadPart(session.getStorageKey(), session.getMultipartUploadId(),
+        session.getPartEtags().size() + 1, buffer);
+    session.getPartEtags().add(etag);
+    return persist(session, received, sha, null);
+  }
+
+  // Too few bytes for a part; they are kept in an object of their own until the next request
+  private UploadSessionEntity storeTail(UploadSessionEntity session, Path buffer, long size, long received,
+                                        ResumableSha256 sha) throws IOException {
+    String tail = UUID.randomUUID().toString();
+    try (InputStream in = Files.newInputStream(buffer)) {
+      minIOService.setObject(tail, in, size, null);
+    }
+    try {
+      return persist(session, received, sha, tail);
+    }
+    catch (RuntimeException e) {
+      deleteObjectQuietly(tail);
+      throw e;
+    }
+  }
+
+  private UploadSessionEntity persist(UploadSessionEntity session, long received, ResumableSha256 sha,
+                                      String tail) {
+    String previousTail = session.getTailObject();
+    session.setReceivedBytes(session.getReceivedBytes() + received);
+    session.setHashState(sha.saveState());
+    session.setTailObject(tail);
+    session.setExpiresAt(LocalDateTime.now().plus(expiry));
+    return transactionTemplate.execute(status -> {
+      UploadSessionEntity saved = sessions.save(session);
+      if (previousTail != null) {
+        storageCleanup.enqueue(List.of(previousTail));
+      }
+      return saved;
+    });
+  }
+
+  private void finish(UploadSessionEntity session) {
+    // A retry finds the object already assembled
+    if (minIOService.findObjectSize(session.getStorageKey()).isEmpty()) {
+      minIOService.completeMultipartUpload(session.getStorageKey(), session.getMultipartUploadId(),
+          session.getPartEtags());
+    }
+    uploadSessionService.finishSession(session.getId(), session.getStorageKey(), session.getSize(),
+        ResumableSha256.restore(session.getHashState()).hexDigest());
+  }
+
+  private void deleteObjectQuietly(String objectName) {
+    try {
+      minIOService.deleteObject(objectName);
+    }
+    catch (RuntimeException e) {
+      log.warn("Could not delete tail object {}", objectName, e);
+    }
+  }
+
+  private static void deleteQuietly(Path file) {
+    if (file == null) {
+      return;
+    }
+    try {
+      Files.deleteIfExists(file);
+    }
+    catch (IOException e) {
+      log.warn("Could not delete part file {}", file, e);
+    }
+  }
+}
@@ -0,0 +1,8 @@
+package com.ase.dms.services;
+
+import java.util.Collection;
+
+public interface StorageCleanupService {
+  void enqueue(Collection<String> objectNames);
+  int drain();
+}
@@ -0,0 +1,142 @@
+package com.ase.dms.services;
+
+import com.ase.dms.entities.StorageDeletionEntity;
+import com.ase.dms.repositories.StorageDeletionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Transactional outbox for MinIO deletes.
+ * Delete operations only record the object keys in the caller's
+ * transaction, so a rollback also drops the pending removal and the HTTP
+ * request never waits for S3. A scheduled worker drains the table with
+ * multi-object deletes and retries failures with exponential backoff.
+ * Removing an already missing object succeeds, so entries may safely be
+ * processed more than once (e.g. by two pods).
+ */
+@Slf4j
+@Service
+public class StorageCleanupServiceImpl implements StorageCleanupService {
+
+  private static final int MAX_BACKOFF_EXPONENT = 20;
+
+  private final StorageDeletionRepository deletions;
+  private final MinIOService minIOService;
+  private final int batchSize;
+  private final Duration initialBackoff;
+  private final Duration maxBackoff;
+  private final Counter removed;
+  private final Counter failed;
+
+  public StorageCleanupServiceImpl(StorageDeletionRepository deletions,
+                                   MinIOService minIOService,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${storage.cleanup.batch-size:1000}") int batchSize,
+                                   @Value("${storage.cleanup.initial-backoff:PT10S}") Duration initialBackoff,
+                                   @Value("${storage.cleanup.max-backoff:PT1H}") Duration maxBackoff) {
+    this.deletions = deletions;
+    this.minIOService = minIOService;
+    this.batchSize = batchSize;
+    this.initialBackoff = initialBackoff;
+    this.maxBackoff = maxBackoff;
+    this.removed = Counter.builder("dms.storage.deletions.removed")
+        .description("Objects removed from storage by the cleanup worker")
+        .register(meterRegistry);
+    this.failed = Counter.builder("dms.storage.deletions.failed")
+        .description("Object removals that failed and were rescheduled")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Records objects for removal. Must run inside the transaction that
+   * deletes the metadata referring to them.
+   *
+   * @param objectNames the object keys
+   */
+  @Override
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void enqueue(Collection<String> objectNames) {
+    LocalDateTime now = LocalDateTime.now();
+    deletions.saveAll(objectNames.stream()
+        .map(name -> new StorageDeletionEntity(null, name, 0, now, now))
+        .toList());
+  }
+
+  @Scheduled(fixedDelayString = "${storage.cleanup.interval:PT5S}")
+  public void scheduledDrain() {
+    int processed = drain();
+    if (processed > 0) {
+      log.debug("Storage cleanup processed {} objects", processed);
+    }
+  }
+
+  /**
+   * Processes due outbox entries batch by batch until none are left.
+   *
+   * @return the number of entries processed, successful or not
+   */
+  @Override
+  public int drain() {
+    int processed = 0;
+    List<StorageDeletionEntity> batch;
+    do {
+      LocalDateTime now = LocalDateTime.now();
+      batch = deletions.findByNextAttemptAtLessThanEqualOrderByIdAsc(now, PageRequest.of(0, batchSize));
+      if (batch.isEmpty()) {
+        break;
+      }
+      processBatch(batch, now);
+      processed += batch.size();
+    } while (batch.size() == batchSize);
+    return processed;
+  }
+
+  private void processBatch(List<StorageDeletionEntity> batch, LocalDateTime now) {
+    Set<String> names = batch.stream()
+        .map(StorageDeletionEntity::getObjectName)
+        .collect(Collectors.toCollection(LinkedHashSet::new));
+    Set<String> failedNames = new HashSet<>(minIOService.deleteObjects(names));
+
+    List<StorageDeletionEntity> done = batch.stream()
+        .filter(d -> !failedNames.contains(d.getObjectName()))
+        .toList();
+    List<StorageDeletionEntity> retry = batch.stream()
+        .filter(d -> failedNames.contains(d.getObjectName()))
+        .toList();
+
+    deletions.deleteAllInBatch(done);
+    removed.increment(done.size());
+
+    if (!retry.isEmpty()) {
+      retry.forEach(d -> {
+        d.setAttempts(d.getAttempts() + 1);
+        d.setNextAttemptAt(now.plus(backoff(d.getAttempts())));
+      });
+      deletions.saveAll(retry);
+      failed.increment(retry.size());
+      log.warn("{} storage deletions failed and were rescheduled", retry.size());
+    }
+  }
+
+  // initialBackoff * 2^(attempts - 1), capped at maxBackoff
+  Duration backoff(int attempts) {
+    int exponent = Math.min(Math.max(attempts - 1, 0), MAX_BACKOFF_EXPONENT);
+    Duration delay = initialBackoff.multipliedBy(1L << exponent);
+    return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+  }
+}
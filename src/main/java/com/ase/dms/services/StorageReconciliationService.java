@@ -0,0 +1,7 @@
+package com.ase.dms.services;
+
+import com.ase.dms.dtos.ReconciliationReportDTO;
+
+public interface StorageReconciliationService {
+  ReconciliationReportDTO reconcile();
+}
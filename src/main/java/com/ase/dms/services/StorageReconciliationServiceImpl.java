@@ -0,0 +1,247 @@
+package com.ase.dms.services;
+
+import com.ase.dms.dtos.ReconciliationReportDTO;
+import com.ase.dms.dtos.StoredObjectDTO;
+import com.ase.dms.entities.ReconciliationCheckpointEntity;
+import com.ase.dms.repositories.DocumentRepository;
+import com.ase.dms.repositories.ReconciliationCheckpointRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Finds objects in the bucket without a document or blob row (orphans) and
+ * rows whose object is missing.
+ * Object keys and the keys rows point at are both walked in key order, one page at
+ * a time, and compared with a sorted merge, so memory stays bounded by
+ * the page size. Each run handles a limited number of keys and stores its
+ * position in a checkpoint; a full pass over millions of objects is spread
+ * over many runs. Orphans younger than the grace period are skipped because
+ * an upload writes the object before its row is committed. Orphans are only
+ * reported unless deletion is enabled, in which case they go through the
+ * storage deletion outbox. Missing objects are always only reported.
+ */
+@Slf4j
+@Service
+public class StorageReconciliationServiceImpl implements StorageReconciliationService {
+
+  private static final String CHECKPOINT_NAME = "documents";
+  private static final int MAX_LOGGED_KEYS = 20;
+
+  private final DocumentRepository documents;
+  private final ReconciliationCheckpointRepository checkpoints;
+  private final MinIOService minIOService;
+  private final StorageCleanupService storageCleanup;
+  private final TransactionTemplate transactionTemplate;
+  private final boolean enabled;
+  private final boolean deleteOrphans;
+  private final int pageSize;
+  private final int keysPerRun;
+  private final Duration grace;
+  private final Counter orphanCounter;
+  private final Counter missingCounter;
+
+  public StorageReconciliationServiceImpl(DocumentRepository documents,
+                                          ReconciliationCheckpointRepository checkpoints,
+                                          MinIOService minIOService,
+                                          StorageCleanupService storageCleanup,
+                                          PlatformTransactionManager transactionManager,
+                                          MeterRegistry meterRegistry,
+                                          @Value("${storage.reconcile.enabled:true}") boolean enabled,
+                                          @Value("${storage.reconcile.delete-orphans:false}") boolean deleteOrphans,
+                                          @Value("${storage.reconcile.page-size:1000}") int pageSize,
+                                          @Value("${storage.reconcile.keys-per-run:50000}") int keysPerRun,
+                                          @Value("${storage.reconcile.grace:PT1H}") Duration grace) {
+    this.documents = documents;
+    this.checkpoints = checkpoints;
+    this.minIOService = minIOService;
+    this.storageCleanup = storageCleanup;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.enabled = enabled;
+    this.deleteOrphans = deleteOrphans;
+    this.pageSize = pageSize;
+    this.keysPerRun = keysPerRun;
+    this.grace = grace;
+    this.orphanCounter = Counter.builder("dms.reconcile.orphan.objects")
+        .description("Objects in the bucket without a document row")
+        .register(meterRegistry);
+    this.missingCounter = Counter.builder("dms.reconcile.missing.objects")
+        .description("Document rows whose object is missing from the bucket")
+        .register(meterRegistry);
+  }
+
+  @Scheduled(fixedDelayString = "${storage.reconcile.interval:PT10M}",
+      initialDelayString = "${storage.reconcile.initial-delay:PT5M}")
+  public void scheduledReconcile() {
+    if (!enabled) {
+      return;
+    }
+    try {
+      reconcile();
+    }
+    catch (ObjectOptimisticLockingFailureException e) {
+      log.info("Reconciliation checkpoint was advanced by another instance, skipping this run");
+    }
+  }
+
+  /**
+   * Compares the next slice of keys after the checkpoint and advances it.
+   *
+   * @return what this run found
+   */
+  @Override
+  public ReconciliationReportDTO reconcile() {
+    ReconciliationCheckpointEntity checkpoint = checkpoints.findById(CHECKPOINT_NAME)
+        .orElseGet(StorageReconciliationServiceImpl::newCheckpoint);
+    String startCursor = checkpoint.getCursor();
+    ZonedDateTime graceCutoff = ZonedDateTime.now().minus(grace);
+
+    KeyPager<StoredObjectDTO> objects = new KeyPager<>(
+        after -> minIOService.listObjects(after, pageSize), StoredObjectDTO::getObjectName, startCursor);
+    KeyPager<String> rows = new KeyPager<>(
+        after -> documents.findObjectKeysAfter(after, PageRequest.of(0, pageSize)), Function.identity(), startCursor);
+
+    List<String> orphans = new ArrayList<>();
+    List<String> missing = new ArrayList<>();
+    String cursor = startCursor;
+    int scanned = 0;
+    boolean passCompleted = false;
+    while (scanned < keysPerRun) {
+      StoredObjectDTO object = objects.peek();
+      String row = rows.peek();
+      if (object == null && row == null) {
+        passCompleted = true;
+        break;
+      }
+      int cmp = object == null ? 1 : row == null ? -1 : object.getObjectName().compareTo(row);
+      if (cmp < 0) {
+        objects.next();
+        cursor = object.getObjectName();
+        if (object.getLastModified() == null || object.getLastModified().isBefore(graceCutoff)) {
+          orphans.add(object.getObjectName());
+        }
+      }
+      else if (cmp > 0) {
+        rows.next();
+        cursor = row;
+        missing.add(row);
+      }
+      else {
+        objects.next();
+        rows.next();
+        cursor = row;
+      }
+      scanned++;
+    }
+
+    ReconciliationReportDTO report =
+        new ReconciliationReportDTO(startCursor, cursor, scanned, orphans, missing, passCompleted);
+    saveProgress(checkpoint, report);
+    logReport(report);
+    return report;
+  }
+
+  // Orphan removal and checkpoint move together: a failed save does not lose or repeat work
+  private void saveProgress(ReconciliationCheckpointEntity checkpoint, ReconciliationReportDTO report) {
+    transactionTemplate.executeWithoutResult(status -> {
+      if (deleteOrphans && !report.getOrphanObjects().isEmpty()) {
+        storageCleanup.enqueue(report.getOrphanObjects());
+      }
+      LocalDateTime now = LocalDateTime.now();
+      checkpoint.setScanned(checkpoint.getScanned() + report.getScanned());
+      checkpoint.setOrphanObjects(checkpoint.getOrphanObjects() + report.getOrphanObjects().size());
+      checkpoint.setMissingObjects(checkpoint.getMissingObjects() + report.getMissingObjects().size());
+      checkpoint.setLastRunAt(now);
+      if (report.isPassCompleted()) {
+        log.info("Reconciliation pass started {} finished: {} keys, {} orphan objects, {} missing objects",
+            checkpoint.getPassStartedAt(), checkpoint.getScanned(), checkpoint.getOrphanObjects(),
+            checkpoint.getMissingObjects());
+        checkpoint.setCursor("");
+        checkpoint.setLastPassCompletedAt(now);
+        checkpoint.setPassStartedAt(now);
+        checkpoint.setScanned(0);
+        checkpoint.setOrphanObjects(0);
+        checkpoint.setMissingObjects(0);
+      }
+      else {
+        checkpoint.setCursor(report.getEndCursor());
+      }
+      checkpoints.save(checkpoint);
+    });
+    orphanCounter.increment(report.getOrphanObjects().size());
+    missingCounter.increment(report.getMissingObjects().size());
+  }
+
+  private void logReport(ReconciliationReportDTO report) {
+    if (!report.getOrphanObjects().isEmpty()) {
+      log.warn("{} orphan objects after '{}'{}: {}", report.getOrphanObjects().size(), report.getStartCursor(),
+          deleteOrphans ? " queued for deletion" : "", head(report.getOrphanObjects()));
+    }
+    if (!report.getMissingObjects().isEmpty()) {
+      log.warn("{} documents without stored object after '{}': {}", report.getMissingObjects().size(),
+          report.getStartCursor(), head(report.getMissingObjects()));
+    }
+  }
+
+  private static List<String> head(List<String> keys) {
+    return keys.size() > MAX_LOGGED_KEYS ? keys.subList(0, MAX_LOGGED_KEYS) : keys;
+  }
+
+  private static ReconciliationCheckpointEntity newCheckpoint() {
+    ReconciliationCheckpointEntity checkpoint = new ReconciliationCheckpointEntity();
+    checkpoint.setName(CHECKPOINT_NAME);
+    checkpoint.setCursor("");
+    checkpoint.setPassStartedAt(LocalDateTime.now());
+    return checkpoint;
+  }
+
+  /**
+   * Walks a key-ordered source page by page, holding at most one page.
+   * A page shorter than requested marks the end of the source.
+   */
+  private final class KeyPager<T> {
+    private final Function<String, List<T>> fetch;
+    private final Function<T, String> key;
+    private List<T> page = List.of();
+    private int position;
+    private String after;
+    private boolean exhausted;
+
+    KeyPager(Function<String, List<T>> fetch, Function<T, String> key, String after) {
+      this.fetch = fetch;
+      this.key = key;
+      this.after = after;
+    }
+
+    T peek() {
+      if (position >= page.size() && !exhausted) {
+        page = fetch.apply(after);
+        position = 0;
+        exhausted = page.size() < pageSize;
+        if (!page.isEmpty()) {
+          after = key.apply(page.get(page.size() - 1));
+        }
+      }
+      return position < page.size() ? page.get(position) : null;
+    }
+
+    T next() {
+      T item = peek();
+      position++;
+      return item;
+    }
+  }
+}
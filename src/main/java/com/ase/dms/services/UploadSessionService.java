@@ -0,0 +1,15 @@
+package com.ase.dms.services;
+
+import com.ase.dms.dtos.UploadSessionDTO;
+import com.ase.dms.dtos.UploadSessionRequestDTO;
+import com.ase.dms.entities.DocumentEntity;
+import com.ase.dms.entities.UploadSessionEntity;
+
+public interface UploadSessionService {
+  UploadSessionDTO openSession(UploadSessionRequestDTO request);
+  UploadSessionEntity reserveSession(UploadSessionRequestDTO request);
+  UploadSessionEntity getSession(String id);
+  DocumentEntity completeSession(String id);
+  DocumentEntity finishSession(String id, String contentKey, long size, String hash);
+  void expireSessions();
+}
@@ -0,0 +1,286 @@
+package com.ase.dms.services;
+
+import com.ase.dms.dtos.UploadSessionDTO;
+import com.ase.dms.dtos.UploadSessionRequestDTO;
+import com.ase.dms.entities.BlobEntity;
+import com.ase.dms.entities.DocumentEntity;
+import com.ase.dms.entities.FolderEntity;
+import com.ase.dms.entities.TagEntity;
+import com.ase.dms.entities.UploadSessionEntity;
+import com.ase.dms.exceptions.DocumentUploadException;
+import com.ase.dms.exceptions.ErrorCodes;
+import com.ase.dms.exceptions.FolderNotFoundException;
+import com.ase.dms.exceptions.UploadSessionNotFoundException;
+import com.ase.dms.exceptions.ValidationException;
+import com.ase.dms.helpers.UuidValidator;
+import com.ase.dms.repositories.FolderRepository;
+import com.ase.dms.repositories.UploadSessionRepository;
+import com.ase.dms.security.UserInformationJWT;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Two-step uploads that bypass this service.
+ * Opening a session reserves the document id and hands out a presigned PUT
+ * URL; the client uploads straight to MinIO and then completes the session.
+ * Completing copies the object to a key the client cannot write to, verifies
+ * the copy against the declared size and checksum and creates the document
+ * like a regular upload, including deduplication of the name and of the
+ * content. Sessions that are not completed in time are
+ * removed together with whatever was uploaded for them.
+ */
+@Slf4j
+@Service
+public class UploadSessionServiceImpl implements UploadSessionService {
+
+  private static final String UPLOAD_METHOD = "PUT";
+  private static final Pattern SHA256_HEX = Pattern.compile("[0-9a-f]{64}");
+  private static final int EXPIRE_BATCH_SIZE = 100;
+
+  private final UploadSessionRepository sessions;
+  private final FolderRepository folders;
+  private final DocumentService documentService;
+  private final BlobService blobService;
+  private final MinIOService minIOService;
+  private final StorageCleanupService storageCleanup;
+  private final Duration expiry;
+  private final long maxSize;
+  private final TransactionTemplate transactionTemplate;
+
+  public UploadSessionServiceImpl(UploadSessionRepository sessions,
+                                  FolderRepository folders,
+                                  DocumentService documentService,
+                                  BlobService blobService,
+                                  MinIOService minIOService,
+                                  StorageCleanupService storageCleanup,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${storage.upload-sessions.expiry:PT1H}") Duration expiry,
+                                  @Value("${storage.upload-sessions.max-size:5GB}") DataSize maxSize) {
+    this.sessions = sessions;
+    this.folders = folders;
+    this.documentService = documentService;
+    this.blobService = blobService;
+    this.minIOService = minIOService;
+    this.storageCleanup = storageCleanup;
+    this.expiry = expiry;
+    this.maxSize = maxSize.toBytes();
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+  }
+
+  /**
+   * Reserves a document id and returns the URL the file has to be uploaded to.
+   *
+   * @param request the metadata of the file
+   * @return the session with the presigned upload URL
+   */
+  @Override
+  @Transactional
+  public UploadSessionDTO openSession(UploadSessionRequestDTO request) {
+    UploadSessionEntity session = reserveSession(request);
+    String uploadUrl = minIOService.presignUpload(session.getStorageKey(), expiry);
+    return new UploadSessionDTO(session.getId(), UPLOAD_METHOD, uploadUrl, session.getExpiresAt());
+  }
+
+  /**
+   * Validates the metadata and stores a new session for it.
+   * Folder and tags are checked now, so a completed upload does not fail on them.
+   *
+   * @param request the metadata of the file
+   * @return the saved session
+   */
+  @Override
+  @Transactional
+  public UploadSessionEntity reserveSession(UploadSessionRequestDTO request) {
+    UuidValidator.validateOrThrow(request.getFolderId());
+    if (!folders.existsById(request.getFolderId())) {
+      throw new FolderNotFoundException(request.getFolderId());
+    }
+    if (request.getFileName() == null || request.getFileName().isBlank()) {
+      throw new ValidationException(ErrorCodes.VAL_MISSING_PARAMETER, "File name is required");
+    }
+    if (request.getSize() <= 0) {
+      throw new ValidationException(ErrorCodes.VAL_MISSING_PARAMETER, "File size must be positive");
+    }
+    if (request.getSize() > maxSize) {
+      throw new ValidationException(ErrorCodes.DOC_SIZE_EXCEEDED,
+          "File size " + request.getSize() + " exceeds the limit of " + maxSize + " bytes");
+    }
+    String sha256 = request.getSha256() != null ? request.getSha256().toLowerCase(Locale.ROOT) : null;
+    if (sha256 != null && !SHA256_HEX.matcher(sha256).matches()) {
+      throw new ValidationException(ErrorCodes.VAL_MISSING_PARAMETER, "sha256 must be 64 hex digits");
+    }
+    List<String> tagIds = documentService.resolveTags(request.getTags()).stream()
+        .map(TagEntity::getUuid)
+        .toList();
+
+    LocalDateTime now = LocalDateTime.now();
+    UploadSessionEntity session = new UploadSessionEntity();
+    session.setId(UUID.randomUUID().toString());
+    session.setFolderId(request.getFolderId());
+    session.setFileName(request.getFileName());
+    session.setContentType(request.getContentType());
+    session.setSize(request.getSize());
+    session.setSha256(sha256);
+    session.setTagIds(new ArrayList<>(tagIds));
+    session.setOwnerId(UserInformationJWT.getUserId());
+    session.setStorageKey(UUID.randomUUID().toString());
+    session.setCreatedDate(now);
+    session.setExpiresAt(now.plus(expiry));
+    return sessions.save(session);
+  }
+
+  /**
+   * Looks up an open session of the current user.
+   *
+   * @param id the session UUID
+   * @return the session
+   */
+  @Override
+  public UploadSessionEntity getSession(String id) {
+    UuidValidator.validateOrThrow(id);
+    return sessions.findById(id)
+        .filter(s -> Objects.equals(s.getOwnerId(), UserInformationJWT.getUserId()))
+        .filter(s -> s.getExpiresAt().isAfter(LocalDateTime.now()))
+        .orElseThrow(() -> new UploadSessionNotFoundException(id));
+  }
+
+  /**
+   * Turns the uploaded object into a document.
+   * The upload key stays writable through the presigned URL until it expires,
+   * so the object is first copied server-side to a key that was never handed
+   * out; only the copy is checked and kept. It is read back once to hash it:
+   * S3 object metadata carries no SHA-256, and the hash is needed for content
+   * deduplication anyway. Copying and hashing happen outside of a transaction.
+   * A failed check keeps the session open, so the client can upload again.
+   *
+   * @param id the session UUID
+   * @return the created DocumentEntity
+   */
+  @Override
+  public DocumentEntity completeSession(String id) {
+    UploadSessionEntity session = getSession(id);
+    if (minIOService.findObjectSize(session.getStorageKey()).isEmpty()) {
+      throw new ValidationException(ErrorCodes.DOC_UPLOAD_INCOMPLETE,
+          "No file has been uploaded for session '" + id + "'");
+    }
+
+    String contentKey = UUID.randomUUID().toString();
+    minIOService.copyObject(session.getStorageKey(), contentKey);
+    try {
+      long size = minIOService.findObjectSize(contentKey).orElse(-1L);
+      if (size != session.getSize()) {
+        throw new ValidationException(ErrorCodes.DOC_UPLOAD_INCOMPLETE,
+            "Uploaded file has " + size + " bytes, expected " + session.getSize());
+      }
+      String hash;
+      try {
+        hash = blobService.hash(() -> minIOService.openObject(contentKey, 0, null));
+      }
+      catch (IOException e) {
+        throw new DocumentUploadException("Failed to read uploaded file: " + session.getFileName(), e);
+      }
+      return finishSession(id, contentKey, size, hash);
+    }
+    catch (RuntimeException e) {
+      deleteQuietly(contentKey);
+      throw e;
+    }
+  }
+
+  /**
+   * Creates the document of a session from an object that is already checked
+   * against the declared size and cannot change any more. The upload key is
+   * queued for deletion unless it is the content key itself, and so is the
+   * content key if the same content is already stored.
+   *
+   * @param id         the session UUID
+   * @param contentKey the key of the object holding the content
+   * @param size       the size of the object
+   * @param hash       the SHA-256 of the object
+   * @return the created DocumentEntity
+   */
+  @Override
+  public DocumentEntity finishSession(String id, String contentKey, long size, String hash) {
+    return transactionTemplate.execute(status -> {
+      // Read again: a concurrent completion may have finished the session meanwhile
+      UploadSessionEntity session = getSession(id);
+      if (session.getSha256() != null && !session.getSha256().equals(hash)) {
+        throw new ValidationException(ErrorCodes.DOC_UPLOAD_INCOMPLETE,
+            "Uploaded file does not match the declared SHA-256");
+      }
+      FolderEntity folder = folders.findById(session.getFolderId())
+          .orElseThrow(() -> new FolderNotFoundException(session.getFolderId()));
+      List<TagEntity> tags = documentService.resolveTags(session.getTagIds().toArray(String[]::new));
+
+      BlobEntity blob = blobService.adopt(hash, contentKey, size);
+      List<String> unused = new ArrayList<>();
+      if (!blob.getStorageKey().equals(contentKey)) {
+        // The content was already stored; the uploaded copy is not needed
+        unused.add(contentKey);
+      }
+      if (!session.getStorageKey().equals(contentKey)) {
+        unused.add(session.getStorageKey());
+      }
+      if (!unused.isEmpty()) {
+        storageCleanup.enqueue(unused);
+      }
+      DocumentEntity document = documentService.registerDocument(session.getId(), folder, session.getFileName(),
+          session.getContentType(), tags, blob);
+      sessions.delete(session);
+      return document;
+    });
+  }
+
+  private void deleteQuietly(String objectName) {
+    try {
+      minIOService.deleteObject(objectName);
+    }
+    catch (RuntimeException e) {
+      // Left to the reconciler as an orphan
+      log.warn("Could not delete object {}", objectName, e);
+    }
+  }
+
+  /**
+   * Removes sessions that were not completed in time, along with their
+   * objects and the parts of unfinished resumable uploads.
+   */
+  @Override
+  @Scheduled(fixedDelayString = "${storage.upload-sessions.cleanup-interval:PT15M}")
+  @Transactional
+  public void expireSessions() {
+    List<UploadSessionEntity> expired = sessions.findByExpiresAtBefore(
+        LocalDateTime.now(), PageRequest.of(0, EXPIRE_BATCH_SIZE));
+    if (expired.isEmpty()) {
+      return;
+    }
+    for (UploadSessionEntity session : expired) {
+      if (session.getMultipartUploadId() != null) {
+        minIOService.abortMultipartUpload(session.getStorageKey(), session.getMultipartUploadId());
+      }
+    }
+    storageCleanup.enqueue(expired.stream()
+        .flatMap(session -> Stream.of(session.getStorageKey(), session.getTailObject()))
+        .filter(Objects::nonNull)
+        .toList());
+    sessions.deleteAll(expired);
+    log.info("Removed {} expired upload sessions", expired.size());
+  }
+}
@@ -1,25 +1,100 @@
 package com.ase.dms.services;
 
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 
-import org.springframework.beans.factory.annotation.Value;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
+import com.ase.dms.config.UserServiceConfig;
 import com.ase.dms.dtos.UserInfoDTO;
+import com.ase.dms.helpers.CircuitBreaker;
+import com.ase.dms.helpers.LruCache;
+import com.ase.dms.helpers.SingleFlight;
 import com.ase.dms.security.UserInformationJWT;
 
+/**
+ * Looks up the current user in the user service.
+ * Results are cached per user id: fresh entries are answered locally, stale
+ * entries are answered locally while one background refresh runs, and
+ * concurrent misses for the same user share one remote call. If the user
+ * service fails, the last known answer is kept. Calls are limited in
+ * number and guarded by a circuit breaker: while it is open, lookups are
+ * answered from the cache without waiting on the user service. When a
+ * cohort claim is configured and present in the token, no remote call is
+ * made at all.
+ */
+@Slf4j
 @Service
 public class UserClientImpl implements UserClient {
 
-  private final RestTemplate restTemplate;
+  private record CachedUser(Optional<UserInfoDTO> user, long loadedAt) {
+  }
 
-  @Value("${userservice.base-url:https://sau-portal.de/team-11-api/api}")
-  private String baseUrl;
+  private final RestTemplate restTemplate;
+  private final TaskExecutor refreshExecutor;
+  private final String baseUrl;
+  private final String cohortClaim;
+  private final long ttlNanos;
+  private final long staleNanos;
+  private final LruCache<String, CachedUser> cache;
+  private final SingleFlight<String, CachedUser> loads = new SingleFlight<>();
+  private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+  private final Semaphore callPermits;
+  private final CircuitBreaker circuitBreaker;
+  private final Counter hits;
+  private final Counter staleHits;
+  private final Counter misses;
+  private final Counter failures;
+  private final Counter skipped;
 
-  public UserClientImpl(RestTemplate restTemplate) {
+  public UserClientImpl(RestTemplate restTemplate,
+                        @Qualifier("userRefreshExecutor") TaskExecutor refreshExecutor,
+                        MeterRegistry meterRegistry,
+                        UserServiceConfig config) {
     this.restTemplate = restTemplate;
+    this.refreshExecutor = refreshExecutor;
+    this.baseUrl = config.getBaseUrl();
+    this.cohortClaim = config.getCohortClaim() == null ? "" : config.getCohortClaim();
+    this.ttlNanos = config.getCache().getTtl().toNanos();
+    this.staleNanos = config.getCache().getTtl().plus(config.getCache().getStaleFor()).toNanos();
+    this.cache = new LruCache<>(config.getCache().getMaxEntries());
+    this.callPermits = new Semaphore(config.getHttp().getMaxConcurrentCalls());
+    this.circuitBreaker = new CircuitBreaker(config.getCircuit().getFailureThreshold(),
+        config.getCircuit().getOpenFor());
+    this.hits = lookups(meterRegistry, "hit");
+    this.staleHits = lookups(meterRegistry, "stale");
+    this.misses = lookups(meterRegistry, "miss");
+    this.failures = Counter.builder("dms.userservice.failures")
+        .description("Failed calls to the user service")
+        .register(meterRegistry);
+    this.skipped = Counter.builder("dms.userservice.skipped")
+        .description("Lookups answered without calling the user service (circuit open or call limit reached)")
+        .register(meterRegistry);
+    Gauge.builder("dms.userservice.circuit.open", circuitBreaker,
+            breaker -> breaker.getState() == CircuitBreaker.State.CLOSED ? 0 : 1)
+        .description("1 while calls to the user service are suspended")
+        .register(meterRegistry);
+  }
+
+  private static Counter lookups(MeterRegistry meterRegistry, String result) {
+    return Counter.builder("dms.userservice.lookups")
+        .description("User lookups by cache result")
+        .tag("result", result)
+        .register(meterRegistry);
   }
 
   @Override
@@ -29,15 +104,104 @@ public class UserClientImpl implements UserClient {
       return Optional.empty();
     }
 
+    Optional<UserInfoDTO> fromToken = userFromToken(userId);
+    if (fromToken.isPresent()) {
+      return fromToken;
+    }
+
+    CachedUser cached = cache.get(userId);
+    if (cached != null) {
+      long age = System.nanoTime() - cached.loadedAt();
+      if (age < ttlNanos) {
+        hits.increment();
+        return cached.user();
+      }
+      if (age < staleNanos) {
+        staleHits.increment();
+        refreshInBackground(userId, cached);
+        return cached.user();
+      }
+    }
+    misses.increment();
+    return loads.execute(userId, () -> load(userId, cached)).user();
+  }
+
+  private Optional<UserInfoDTO> userFromToken(String userId) {
+    if (cohortClaim.isBlank()) {
+      return Optional.empty();
+    }
+    String cohort = UserInformationJWT.getClaimAsString(cohortClaim);
+    if (cohort == null) {
+      return Optional.empty();
+    }
+    UserInfoDTO user = new UserInfoDTO();
+    user.setId(userId);
+    user.setCohort(cohort);
+    return Optional.of(user);
+  }
+
+  // The security context is handed over so the refresh call carries the caller's token
+  private void refreshInBackground(String userId, CachedUser cached) {
+    if (!refreshing.add(userId)) {
+      return;
+    }
+    Runnable refresh = () -> {
+      try {
+        loads.execute(userId, () -> load(userId, cached));
+      }
+      finally {
+        refreshing.remove(userId);
+      }
+    };
+    try {
+      refreshExecutor.execute(new DelegatingSecurityContextRunnable(refresh));
+    }
+    catch (RejectedExecutionException e) {
+      refreshing.remove(userId);
+    }
+  }
+
+  private CachedUser load(String userId, CachedUser fallback) {
+    // Failures are not cached; the last known answer is better than none
+    CachedUser unavailable = fallback != null ? fallback : new CachedUser(Optional.empty(), 0L);
+    if (!callPermits.tryAcquire()) {
+      skipped.increment();
+      return unavailable;
+    }
+    try {
+      if (!circuitBreaker.tryAcquire()) {
+        skipped.increment();
+        return unavailable;
+      }
+      CachedUser loaded = call(userId);
+      if (loaded == null) {
+        circuitBreaker.onFailure();
+        return unavailable;
+      }
+      circuitBreaker.onSuccess();
+      cache.put(userId, loaded);
+      return loaded;
+    }
+    finally {
+      callPermits.release();
+    }
+  }
+
+  // Returns null if the user service could not answer
+  private CachedUser call(String userId) {
     String url = String.format("%s/v1/users/%s", baseUrl, userId);
     try {
       ResponseEntity<UserInfoDTO> response =
           restTemplate.getForEntity(url, UserInfoDTO.class);
-      return Optional.ofNullable(response.getBody());
+      return new CachedUser(Optional.ofNullable(response.getBody()), System.nanoTime());
     }
-    catch (Exception ex) {
-      return Optional.empty();
+    catch (HttpClientErrorException.NotFound ex) {
+      return new CachedUser(Optional.empty(), System.nanoTime());
+    }
+    catch (RestClientException ex) {
+      failures.increment();
+      log.warn("User lookup for {} failed: {}", userId, ex.getMessage());
+      return null;
     }
   }
 }
-
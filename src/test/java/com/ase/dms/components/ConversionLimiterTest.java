@@ -0,0 +1,81 @@
+package com.ase.dms.components;
+
+import com.ase.dms.config.OfficePoolConfig;
+import com.ase.dms.exceptions.ConversionQueueFullException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConversionLimiterTest {
+
+  private static final long RETRY_AFTER = 7L;
+  private static final int TIMEOUT_SECONDS = 5;
+
+  private SimpleMeterRegistry registry;
+  private ConversionLimiter limiter;
+  private ExecutorService executor;
+
+  @BeforeEach
+  void setUp() {
+    OfficePoolConfig config = new OfficePoolConfig();
+    config.setPortNumbers(List.of(2002));
+    config.setMaxQueueSize(1);
+    config.setRetryAfterSeconds(RETRY_AFTER);
+    registry = new SimpleMeterRegistry();
+    limiter = new ConversionLimiter(config, registry);
+    executor = Executors.newFixedThreadPool(2);
+  }
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void execute_withFreeCapacity_runsTask() throws Exception {
+    assertEquals("done", limiter.execute(() -> "done"));
+    assertEquals(0, limiter.getActive());
+  }
+
+  @Test
+  void execute_whenPoolAndQueueFull_rejectsWithRetryAfter() throws Exception {
+    CountDownLatch started = new CountDownLatch(2);
+    CountDownLatch release = new CountDownLatch(1);
+    for (int i = 0; i < 2; i++) {
+      executor.submit(() -> limiter.execute(() -> {
+        started.countDown();
+        awaitQuietly(release);
+        return null;
+      }));
+    }
+    assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+    assertEquals(1, limiter.getActive());
+    assertEquals(1, limiter.getQueued());
+    ConversionQueueFullException ex = assertThrows(ConversionQueueFullException.class,
+        () -> limiter.execute(() -> null));
+    assertEquals(RETRY_AFTER, ex.getRetryAfterSeconds());
+    assertEquals(1.0, registry.get("dms.conversion.rejected").counter().count());
+
+    release.countDown();
+  }
+
+  private static void awaitQuietly(CountDownLatch latch) {
+    try {
+      latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,148 @@
+package com.ase.dms.components;
+
+import com.ase.dms.services.MinIOService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ObjectDiskCacheTest {
+
+  private static final long MAX_BYTES = 10;
+  private static final long OBJECT_SIZE = 4;
+
+  @TempDir
+  private Path directory;
+
+  @Mock
+  private MinIOService minIOService;
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private ObjectDiskCache cache;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    // Fills the cache on the calling thread
+    cache = new ObjectDiskCache(minIOService, meterRegistry, Runnable::run, true, directory,
+        DataSize.ofBytes(MAX_BYTES), DataSize.ofBytes(MAX_BYTES));
+  }
+
+  @Test
+  void open_miss_isFilledForTheNextRead() throws IOException {
+    stubObject("renditions/pdf/abc-v1.pdf", "hello");
+
+    assertFalse(cache.open("renditions/pdf/abc-v1.pdf", "hello".length()).isPresent());
+    assertEquals("hello", read(cache.open("renditions/pdf/abc-v1.pdf", "hello".length())));
+    assertEquals("hello", read(cache.open("renditions/pdf/abc-v1.pdf", "hello".length())));
+
+    verify(minIOService, times(1)).openObject("renditions/pdf/abc-v1.pdf", 0, null);
+    assertEquals(2.0, meterRegistry.counter("dms.object-cache.requests", "result", "hit").count());
+    assertEquals(1.0, meterRegistry.counter("dms.object-cache.requests", "result", "miss").count());
+  }
+
+  @Test
+  void open_overCapacity_evictsLeastRecentlyUsed() throws IOException {
+    stubObject("a", "aaaa");
+    stubObject("b", "bbbb");
+    stubObject("c", "cccc");
+
+    cache.open("a", OBJECT_SIZE);
+    cache.open("b", OBJECT_SIZE);
+    // A hit makes "a" the most recently used entry, so "b" is evicted for "c"
+    read(cache.open("a", OBJECT_SIZE));
+    cache.open("c", OBJECT_SIZE);
+
+    assertEquals(2 * OBJECT_SIZE, cache.getUsedBytes());
+    assertTrue(cache.open("a", OBJECT_SIZE).isPresent());
+    assertTrue(cache.open("c", OBJECT_SIZE).isPresent());
+    assertFalse(cache.open("b", OBJECT_SIZE).isPresent());
+  }
+
+  @Test
+  void open_pendingDownloads_countAgainstLimit() {
+    List<Runnable> pending = new ArrayList<>();
+    ObjectDiskCache queued = new ObjectDiskCache(minIOService, new SimpleMeterRegistry(), pending::add, true,
+        directory, DataSize.ofBytes(MAX_BYTES), DataSize.ofBytes(MAX_BYTES));
+
+    queued.open("a", OBJECT_SIZE);
+    queued.open("a", OBJECT_SIZE);
+    queued.open("b", OBJECT_SIZE);
+    queued.open("c", OBJECT_SIZE);
+
+    assertEquals(2, pending.size());
+    assertEquals(2 * OBJECT_SIZE, queued.getUsedBytes());
+  }
+
+  @Test
+  void open_objectRewrittenWithOtherSize_refillsCache() throws IOException {
+    when(minIOService.openObject("renditions/pdf/abc-v1.pdf", 0, null))
+        .thenAnswer(inv -> new ByteArrayInputStream("old".getBytes(StandardCharsets.UTF_8)))
+        .thenAnswer(inv -> new ByteArrayInputStream("newer".getBytes(StandardCharsets.UTF_8)));
+    cache.open("renditions/pdf/abc-v1.pdf", "old".length());
+
+    // A rendition converted again after it was removed; the cached copy no longer matches
+    assertFalse(cache.open("renditions/pdf/abc-v1.pdf", "newer".length()).isPresent());
+
+    assertEquals("newer", read(cache.open("renditions/pdf/abc-v1.pdf", "newer".length())));
+    assertEquals("newer".length(), cache.getUsedBytes());
+  }
+
+  @Test
+  void open_objectLargerThanLimit_bypassesCache() {
+    assertFalse(cache.open("large", MAX_BYTES + 1).isPresent());
+
+    verify(minIOService, never()).openObject(anyString(), anyLong(), any());
+  }
+
+  @Test
+  void constructor_removesFilesOfPreviousRun() throws IOException {
+    Path leftover = Files.writeString(directory.resolve("stale"), "old");
+
+    new ObjectDiskCache(minIOService, new SimpleMeterRegistry(), Runnable::run, true, directory,
+        DataSize.ofBytes(MAX_BYTES), DataSize.ofBytes(MAX_BYTES));
+
+    assertFalse(Files.exists(leftover));
+  }
+
+  private void stubObject(String objectName, String content) {
+    when(minIOService.openObject(objectName, 0, null))
+        .thenAnswer(inv -> new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  private static String read(Optional<FileChannel> cached) throws IOException {
+    assertTrue(cached.isPresent());
+    try (FileChannel channel = cached.get()) {
+      ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+      channel.read(buffer, 0);
+      return new String(buffer.array(), StandardCharsets.UTF_8);
+    }
+  }
+}
@@ -0,0 +1,130 @@
+package com.ase.dms.config;
+
+import com.ase.dms.dtos.UserInfoDTO;
+import com.ase.dms.services.UserClientImpl;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the user service RestTemplate against a local stub server.
+ */
+class AppConfigTest {
+
+  private static final Duration READ_TIMEOUT = Duration.ofMillis(200);
+  private static final Duration WARM_UP_TIMEOUT = Duration.ofSeconds(30);
+  private static final long SLOW_RESPONSE_MS = 2_000L;
+  private static final int FAILURE_THRESHOLD = 2;
+
+  private HttpServer server;
+  private ExecutorService serverThreads;
+  private final AtomicInteger requests = new AtomicInteger();
+  private UserServiceConfig config;
+  private RestTemplate restTemplate;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/v1/users/fast", exchange -> {
+      requests.incrementAndGet();
+      byte[] body = "{\"id\":\"fast\",\"cohort\":\"BIN-T23-F1\"}".getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().add("Content-Type", "application/json");
+      exchange.sendResponseHeaders(200, body.length);
+      exchange.getResponseBody().write(body);
+      exchange.close();
+    });
+    server.createContext("/v1/users/slow", exchange -> {
+      requests.incrementAndGet();
+      try {
+        Thread.sleep(SLOW_RESPONSE_MS);
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      exchange.sendResponseHeaders(204, -1);
+      exchange.close();
+    });
+    // Slow handlers must not hold up the requests behind them
+    serverThreads = Executors.newCachedThreadPool();
+    server.setExecutor(serverThreads);
+    server.start();
+
+    config = new UserServiceConfig();
+    config.setBaseUrl(baseUrl());
+    config.getCircuit().setFailureThreshold(FAILURE_THRESHOLD);
+    config.getHttp().setConnectTimeout(READ_TIMEOUT);
+    config.getHttp().setReadTimeout(READ_TIMEOUT);
+    restTemplate = new AppConfig().restTemplate(config);
+    warmUp();
+  }
+
+  // The first call in a JVM loads and initializes the HTTP client and message converter classes, which takes
+  // longer than the read timeout; the same client setup with generous timeouts takes that out of the measured calls
+  private void warmUp() {
+    UserServiceConfig untimed = new UserServiceConfig();
+    untimed.setBaseUrl(baseUrl());
+    untimed.getHttp().setConnectTimeout(WARM_UP_TIMEOUT);
+    untimed.getHttp().setReadTimeout(WARM_UP_TIMEOUT);
+    new AppConfig().restTemplate(untimed).getForObject(baseUrl() + "/v1/users/fast", UserInfoDTO.class);
+    requests.set(0);
+  }
+
+  @AfterEach
+  void tearDown() {
+    server.stop(0);
+    serverThreads.shutdownNow();
+    SecurityContextHolder.clearContext();
+  }
+
+  @Test
+  void restTemplate_fastService_returnsBody() {
+    UserInfoDTO user = restTemplate.getForObject(baseUrl() + "/v1/users/fast", UserInfoDTO.class);
+
+    assertEquals("BIN-T23-F1", user.getCohort());
+  }
+
+  @Test
+  void restTemplate_slowService_timesOutQuickly() {
+    long started = System.nanoTime();
+
+    assertThrows(ResourceAccessException.class,
+        () -> restTemplate.getForObject(baseUrl() + "/v1/users/slow", UserInfoDTO.class));
+
+    assertTrue(Duration.ofNanos(System.nanoTime() - started).toMillis() < SLOW_RESPONSE_MS);
+    assertEquals(1, requests.get());
+  }
+
+  @Test
+  void userClient_slowService_opensCircuitAndStopsCalling() {
+    Jwt jwt = Jwt.withTokenValue("token").header("alg", "none").subject("slow").build();
+    SecurityContextHolder.getContext().setAuthentication(new JwtAuthenticationToken(jwt));
+    UserClientImpl userClient = new UserClientImpl(restTemplate, Runnable::run, new SimpleMeterRegistry(), config);
+
+    for (int i = 0; i < FAILURE_THRESHOLD * 2; i++) {
+      assertTrue(userClient.fetchCurrentUser().isEmpty());
+    }
+
+    assertEquals(FAILURE_THRESHOLD, requests.get());
+  }
+
+  private String baseUrl() {
+    return "http://127.0.0.1:" + server.getAddress().getPort();
+  }
+}
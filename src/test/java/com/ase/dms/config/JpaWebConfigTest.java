@@ -0,0 +1,44 @@
+package com.ase.dms.config;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.handler.MappedInterceptor;
+import org.springframework.web.util.ServletRequestPathUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The entity manager stays open for regular requests but not while a pdf is
+ * converted synchronously.
+ */
+class JpaWebConfigTest {
+
+  @Test
+  void openEntityManagerInView_skipsSynchronousConversion() {
+    ExposedRegistry registry = new ExposedRegistry();
+    new JpaWebConfig().addInterceptors(registry);
+
+    List<Object> interceptors = registry.interceptors();
+    assertEquals(1, interceptors.size());
+    MappedInterceptor interceptor = (MappedInterceptor) interceptors.get(0);
+    assertTrue(interceptor.matches(get("/v1/documents/ef9b2274-817e-4cba-879e-383548577f4e")));
+    assertTrue(interceptor.matches(get("/v1/folders/ef9b2274-817e-4cba-879e-383548577f4e")));
+    assertFalse(interceptor.matches(get("/v1/documents/ef9b2274-817e-4cba-879e-383548577f4e/pdfconverter")));
+  }
+
+  private static MockHttpServletRequest get(String path) {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+    ServletRequestPathUtils.parseAndCache(request);
+    return request;
+  }
+
+  private static class ExposedRegistry extends InterceptorRegistry {
+    List<Object> interceptors() {
+      return getInterceptors();
+    }
+  }
+}
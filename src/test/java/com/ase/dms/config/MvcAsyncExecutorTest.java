@@ -0,0 +1,66 @@
+package com.ase.dms.config;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.test.context.ConfigDataApplicationContextInitializer;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Streamed downloads run on Spring's task executor, although AsyncConfig
+ * defines executors of its own.
+ */
+class MvcAsyncExecutorTest {
+
+  private static final int POOL_SIZE = 200;
+
+  private final WebApplicationContextRunner contextRunner = new WebApplicationContextRunner()
+      .withInitializer(new ConfigDataApplicationContextInitializer())
+      .withConfiguration(AutoConfigurations.of(TaskExecutionAutoConfiguration.class, WebMvcAutoConfiguration.class))
+      .withUserConfiguration(OfficePoolConfig.class, AsyncConfig.class);
+
+  @Test
+  void asyncRequests_runOnBoundedTaskExecutor() {
+    contextRunner.run(context -> {
+      AsyncTaskExecutor executor = mvcExecutor(context.getBean(RequestMappingHandlerAdapter.class));
+
+      assertSame(context.getBean(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME), executor);
+      ThreadPoolTaskExecutor pool = assertInstanceOf(ThreadPoolTaskExecutor.class, executor);
+      assertEquals(POOL_SIZE, pool.getMaxPoolSize());
+    });
+  }
+
+  @Test
+  @EnabledForJreRange(min = JRE.JAVA_21)
+  void asyncRequests_runOnVirtualThreadsInVirtualThreadMode() {
+    contextRunner.withPropertyValues("spring.threads.virtual.enabled=true").run(context -> {
+      AsyncTaskExecutor executor = mvcExecutor(context.getBean(RequestMappingHandlerAdapter.class));
+
+      assertSame(context.getBean(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME), executor);
+      assertInstanceOf(SimpleAsyncTaskExecutor.class, executor);
+      // Thread.isVirtual() exists from Java 21 on
+      Method isVirtual = Thread.class.getMethod("isVirtual");
+      Future<Object> virtual = executor.submit(() -> isVirtual.invoke(Thread.currentThread()));
+      assertTrue((Boolean) virtual.get());
+    });
+  }
+
+  private static AsyncTaskExecutor mvcExecutor(RequestMappingHandlerAdapter adapter) {
+    return (AsyncTaskExecutor) ReflectionTestUtils.getField(adapter, "taskExecutor");
+  }
+}
@@ -0,0 +1,298 @@
+package com.ase.dms.controllers;
+
+import com.ase.dms.components.ObjectDiskCache;
+import com.ase.dms.dtos.RenditionDTO;
+import com.ase.dms.entities.DocumentEntity;
+import com.ase.dms.exceptions.MinIOObjectNotFoundException;
+import com.ase.dms.services.DocumentService;
+import com.ase.dms.services.MinIOService;
+import com.ase.dms.services.RenditionJobService;
+import com.ase.dms.services.UploadSessionService;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Optional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.StandardServletAsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DocumentsControllerTest {
+
+  private static final String DOC_ID = "4111b676-474c-4014-a7ee-53fc5cb90127";
+  private static final String ETAG = "\"" + DOC_ID + "\"";
+  private static final int SIZE = 1000;
+  private static final int RANGE_START = 100;
+  private static final int RANGE_LENGTH = 100;
+  private static final int SUFFIX_LENGTH = 100;
+  private static final Duration REDIRECT_EXPIRY = Duration.ofMinutes(5);
+  private static final String PRESIGNED_URL = "https://minio.example.org/dms/" + DOC_ID + "?X-Amz-Signature=abc";
+  private static final LocalDateTime CREATED = LocalDateTime.of(2025, 1, 15, 10, 0);
+  private static final byte[] CONTENT = content();
+  private static final String PDF_KEY = "renditions/pdf/" + DOC_ID + "-v1.pdf";
+
+  @Mock
+  private DocumentService documentService;
+
+  @Mock
+  private MinIOService minIOService;
+
+  @Mock
+  private RenditionJobService renditionJobService;
+
+  @Mock
+  private UploadSessionService uploadSessionService;
+
+  @Mock
+  private ObjectDiskCache objectCache;
+
+  private DocumentsController controller;
+
+  private DocumentEntity document;
+
+  private MockHttpServletRequest request;
+
+  @BeforeEach
+  void setUp() {
+    request = new MockHttpServletRequest();
+    request.setAsyncSupported(true);
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    controller = controller(false, SIZE);
+    document = new DocumentEntity();
+    document.setId(DOC_ID);
+    document.setName("notes.txt");
+    document.setType("text/plain");
+    document.setSize(SIZE);
+    document.setCreatedDate(CREATED);
+    when(documentService.getDocument(DOC_ID)).thenReturn(document);
+  }
+
+  @AfterEach
+  void tearDown() {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  @Test
+  void download_withoutRange_returnsWholeFile() throws Exception {
+    stubObject(0, SIZE, null);
+
+    ResponseEntity<StreamingResponseBody> response = controller.downloadDocument(DOC_ID, new HttpHeaders());
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(SIZE, response.getHeaders().getContentLength());
+    assertEquals("bytes", response.getHeaders().getFirst(HttpHeaders.ACCEPT_RANGES));
+    assertEquals(ETAG, response.getHeaders().getETag());
+    assertArrayEquals(CONTENT, body(response));
+  }
+
+  @Test
+  void download_singleRange_returnsPartialContent() throws Exception {
+    stubObject(RANGE_START, RANGE_LENGTH, (long) RANGE_LENGTH);
+
+    ResponseEntity<StreamingResponseBody> response =
+        controller.downloadDocument(DOC_ID, range("bytes=100-199"));
+
+    assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+    assertEquals("bytes 100-199/1000", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+    assertEquals(RANGE_LENGTH, response.getHeaders().getContentLength());
+    assertArrayEquals(Arrays.copyOfRange(CONTENT, RANGE_START, RANGE_START + RANGE_LENGTH), body(response));
+  }
+
+  @Test
+  void download_suffixRange_returnsLastBytes() throws Exception {
+    stubObject(SIZE - SUFFIX_LENGTH, SUFFIX_LENGTH, (long) SUFFIX_LENGTH);
+
+    ResponseEntity<StreamingResponseBody> response = controller.downloadDocument(DOC_ID, range("bytes=-100"));
+
+    assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+    assertEquals("bytes 900-999/1000", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+    assertArrayEquals(Arrays.copyOfRange(CONTENT, SIZE - SUFFIX_LENGTH, SIZE), body(response));
+  }
+
+  @Test
+  void download_rangeStartingBeyondEnd_isNotSatisfiable() {
+    ResponseEntity<StreamingResponseBody> response = controller.downloadDocument(DOC_ID, range("bytes=1000-"));
+
+    assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, response.getStatusCode());
+    assertEquals("bytes */1000", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+    verify(minIOService, never()).openObject(anyString(), anyLong(), any());
+  }
+
+  @Test
+  void download_multipleRanges_returnsWholeFile() {
+    stubObject(0, SIZE, null);
+
+    ResponseEntity<StreamingResponseBody> response =
+        controller.downloadDocument(DOC_ID, range("bytes=0-9,20-29"));
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(SIZE, response.getHeaders().getContentLength());
+  }
+
+  @Test
+  void download_ifRangeMatchingEtag_returnsPartialContent() {
+    stubObject(RANGE_START, RANGE_LENGTH, (long) RANGE_LENGTH);
+    HttpHeaders headers = range("bytes=100-199");
+    headers.set(HttpHeaders.IF_RANGE, ETAG);
+
+    assertEquals(HttpStatus.PARTIAL_CONTENT, controller.downloadDocument(DOC_ID, headers).getStatusCode());
+  }
+
+  @Test
+  void download_ifRangeOtherEtag_returnsWholeFile() {
+    stubObject(0, SIZE, null);
+    HttpHeaders headers = range("bytes=100-199");
+    headers.set(HttpHeaders.IF_RANGE, "\"other\"");
+
+    ResponseEntity<StreamingResponseBody> response = controller.downloadDocument(DOC_ID, headers);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(SIZE, response.getHeaders().getContentLength());
+  }
+
+  @Test
+  void download_ifRangeMatchingDate_returnsPartialContent() {
+    stubObject(RANGE_START, RANGE_LENGTH, (long) RANGE_LENGTH);
+    HttpHeaders headers = range("bytes=100-199");
+    headers.setZonedDateTime(HttpHeaders.IF_RANGE, CREATED.atZone(ZoneId.systemDefault()));
+
+    assertEquals(HttpStatus.PARTIAL_CONTENT, controller.downloadDocument(DOC_ID, headers).getStatusCode());
+  }
+
+  @Test
+  void download_ifRangeOtherDate_returnsWholeFile() {
+    stubObject(0, SIZE, null);
+    HttpHeaders headers = range("bytes=100-199");
+    headers.setZonedDateTime(HttpHeaders.IF_RANGE, CREATED.minusDays(1).atZone(ZoneId.systemDefault()));
+
+    assertEquals(HttpStatus.OK, controller.downloadDocument(DOC_ID, headers).getStatusCode());
+  }
+
+  @Test
+  void download_redirectAtMinSize_redirectsWithoutCaching() {
+    when(minIOService.presignDownload(DOC_ID, "notes.txt", "text/plain", REDIRECT_EXPIRY)).thenReturn(PRESIGNED_URL);
+
+    ResponseEntity<StreamingResponseBody> response =
+        controller(true, SIZE).downloadDocument(DOC_ID, new HttpHeaders());
+
+    assertEquals(HttpStatus.FOUND, response.getStatusCode());
+    assertEquals(PRESIGNED_URL, response.getHeaders().getLocation().toString());
+    assertEquals("no-store", response.getHeaders().getCacheControl());
+    verify(minIOService, never()).openObject(anyString(), anyLong(), any());
+  }
+
+  @Test
+  void download_redirectBelowMinSize_isProxied() {
+    stubObject(0, SIZE, null);
+
+    ResponseEntity<StreamingResponseBody> response =
+        controller(true, SIZE + 1).downloadDocument(DOC_ID, new HttpHeaders());
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(SIZE, response.getHeaders().getContentLength());
+    verify(minIOService, never()).presignDownload(anyString(), anyString(), anyString(), any());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void convert_knownRenditionRemovedFromStorage_convertsAgain() throws Exception {
+    when(documentService.findPdf(document)).thenReturn(Optional.of(new RenditionDTO(PDF_KEY, SIZE)));
+    when(objectCache.open(PDF_KEY, SIZE)).thenReturn(Optional.empty());
+    when(minIOService.openObject(PDF_KEY, 0, null))
+        .thenThrow(new MinIOObjectNotFoundException(PDF_KEY, null))
+        .thenReturn(new ByteArrayInputStream(CONTENT));
+    when(documentService.convertDocument(document)).thenReturn(new RenditionDTO(PDF_KEY, SIZE));
+
+    ResponseEntity<?> response = controller.convertDocument(DOC_ID);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertArrayEquals(CONTENT, body((ResponseEntity<StreamingResponseBody>) response));
+    verify(documentService).forgetPdf(document);
+  }
+
+  @Test
+  void download_bodyNeverRuns_closesCachedFileWhenRequestCompletes(@TempDir Path tempDir) throws Exception {
+    FileChannel file = FileChannel.open(Files.write(tempDir.resolve("cached"), CONTENT));
+    when(objectCache.open(DOC_ID, SIZE)).thenReturn(Optional.of(file));
+    WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(request);
+    asyncManager.setAsyncWebRequest(new StandardServletAsyncWebRequest(request, new MockHttpServletResponse()));
+    asyncManager.setTaskExecutor(task -> {
+      throw new TaskRejectedException("executor full");
+    });
+
+    ResponseEntity<StreamingResponseBody> response = controller.downloadDocument(DOC_ID, new HttpHeaders());
+    // What Spring MVC does with the body; the full executor rejects it, so it is never written
+    asyncManager.startCallableProcessing(() -> {
+      response.getBody().writeTo(OutputStream.nullOutputStream());
+      return null;
+    });
+    request.getAsyncContext().complete();
+
+    assertFalse(file.isOpen());
+  }
+
+  private DocumentsController controller(boolean redirect, long redirectMinSize) {
+    return new DocumentsController(documentService, minIOService, renditionJobService, uploadSessionService,
+        objectCache, true, redirect, DataSize.ofBytes(redirectMinSize), REDIRECT_EXPIRY);
+  }
+
+  private void stubObject(int offset, int length, Long requestedLength) {
+    when(objectCache.open(DOC_ID, SIZE)).thenReturn(Optional.empty());
+    when(minIOService.openObject(DOC_ID, offset, requestedLength))
+        .thenReturn(new ByteArrayInputStream(CONTENT, offset, length));
+  }
+
+  private static HttpHeaders range(String value) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.set(HttpHeaders.RANGE, value);
+    return headers;
+  }
+
+  private static byte[] body(ResponseEntity<StreamingResponseBody> response) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    response.getBody().writeTo(out);
+    return out.toByteArray();
+  }
+
+  private static byte[] content() {
+    byte[] data = new byte[SIZE];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte) i;
+    }
+    return data;
+  }
+}
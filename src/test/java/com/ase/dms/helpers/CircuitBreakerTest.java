@@ -0,0 +1,53 @@
+package com.ase.dms.helpers;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTest {
+
+  private static final int THRESHOLD = 3;
+
+  @Test
+  void onFailure_thresholdReached_opensCircuit() {
+    CircuitBreaker breaker = new CircuitBreaker(THRESHOLD, Duration.ofMinutes(1));
+
+    for (int i = 0; i < THRESHOLD; i++) {
+      assertTrue(breaker.tryAcquire());
+      breaker.onFailure();
+    }
+
+    assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    assertFalse(breaker.tryAcquire());
+  }
+
+  @Test
+  void onSuccess_resetsFailureCount() {
+    CircuitBreaker breaker = new CircuitBreaker(THRESHOLD, Duration.ofMinutes(1));
+
+    breaker.onFailure();
+    breaker.onFailure();
+    breaker.onSuccess();
+    breaker.onFailure();
+
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+  }
+
+  @Test
+  void tryAcquire_afterOpenPeriod_allowsOneTrialCall() {
+    CircuitBreaker breaker = new CircuitBreaker(1, Duration.ZERO);
+    breaker.onFailure();
+
+    assertTrue(breaker.tryAcquire());
+    assertFalse(breaker.tryAcquire());
+    breaker.onFailure();
+    assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+    assertTrue(breaker.tryAcquire());
+    breaker.onSuccess();
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+  }
+}
@@ -0,0 +1,82 @@
+package com.ase.dms.helpers;
+
+import com.ase.dms.repositories.FolderRepository.SubtreeRow;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FolderSubtreeTest {
+
+  private static final long DOC_SIZE = 100L;
+
+  // root
+  // ├── public
+  // │   └── bin
+  // │       └── nested
+  // └── wi
+  private static final List<SubtreeRow> ROWS = List.of(
+      row("F", "root", null, null, 0),
+      row("F", "public", "root", null, 0),
+      row("F", "bin", "public", null, 0),
+      row("F", "nested", "bin", null, 0),
+      row("F", "wi", "root", null, 0),
+      row("D", "d-root", "root", "hash-a", DOC_SIZE),
+      row("D", "d-nested", "nested", "hash-a", DOC_SIZE),
+      row("D", "d-wi", "wi", "hash-b", DOC_SIZE));
+
+  @Test
+  void of_missingRoot_isEmpty() {
+    assertTrue(FolderSubtree.of("other", ROWS).isEmpty());
+  }
+
+  @Test
+  void aggregates_coverWholeSubtree() {
+    FolderSubtree tree = FolderSubtree.of("root", ROWS).orElseThrow();
+
+    assertEquals(Set.of("root", "public", "bin", "nested", "wi"), tree.getFolderIds());
+    assertEquals(Set.of("d-root", "d-nested", "d-wi"), tree.getDocumentIds());
+    assertEquals(Set.of("hash-a", "hash-b"), tree.getContentHashes());
+    assertEquals(3 * DOC_SIZE, tree.getTotalSize());
+  }
+
+  @Test
+  void sizeIn_countsOnlyGivenFolders() {
+    FolderSubtree tree = FolderSubtree.of("root", ROWS).orElseThrow();
+    Set<String> folders = Set.of("root", "public");
+
+    assertEquals(Set.of("d-root"), tree.getDocumentIdsIn(folders));
+    assertEquals(DOC_SIZE, tree.getSizeIn(folders));
+  }
+
+  private static SubtreeRow row(String kind, String id, String parent, String detail, long bytes) {
+    return new SubtreeRow() {
+      @Override
+      public String getKind() {
+        return kind;
+      }
+
+      @Override
+      public String getId() {
+        return id;
+      }
+
+      @Override
+      public String getParent() {
+        return parent;
+      }
+
+      @Override
+      public String getDetail() {
+        return detail;
+      }
+
+      @Override
+      public Long getBytes() {
+        return bytes;
+      }
+    };
+  }
+}
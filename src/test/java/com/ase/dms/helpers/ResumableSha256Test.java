@@ -0,0 +1,44 @@
+package com.ase.dms.helpers;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ResumableSha256Test {
+
+  private static final int[] SIZES = {0, 1, 55, 56, 63, 64, 65, 119, 120, 100_000};
+  private static final int MAX_STEP = 200;
+
+  @Test
+  void hexDigest_matchesKnownVector() {
+    byte[] abc = "abc".getBytes(StandardCharsets.US_ASCII);
+    ResumableSha256 sha = new ResumableSha256();
+    sha.update(abc, 0, abc.length);
+
+    assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", sha.hexDigest());
+  }
+
+  @Test
+  void restore_continuesWhereTheSavedStateStopped() throws Exception {
+    Random random = new Random(1);
+    for (int size : SIZES) {
+      byte[] data = new byte[size];
+      random.nextBytes(data);
+      ResumableSha256 sha = new ResumableSha256();
+      int position = 0;
+      while (position < size) {
+        int step = Math.min(size - position, 1 + random.nextInt(MAX_STEP));
+        sha.update(data, position, step);
+        position += step;
+        sha = ResumableSha256.restore(sha.saveState());
+      }
+
+      String expected = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+      assertEquals(expected, sha.hexDigest(), "size " + size);
+    }
+  }
+}
@@ -0,0 +1,87 @@
+package com.ase.dms.helpers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTest {
+
+  private static final int CALLERS = 8;
+  private static final int TIMEOUT_SECONDS = 5;
+
+  @Test
+  void execute_concurrentCallers_shareOneExecution() throws Exception {
+    SingleFlight<String, String> flight = new SingleFlight<>();
+    AtomicInteger loads = new AtomicInteger();
+    CountDownLatch leaderStarted = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+    try {
+      Future<String> leader = executor.submit(() -> flight.execute("doc", () -> {
+        loads.incrementAndGet();
+        leaderStarted.countDown();
+        await(release);
+        return "pdf";
+      }));
+      assertTrue(leaderStarted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+      List<Future<String>> followers = new ArrayList<>();
+      for (int i = 1; i < CALLERS; i++) {
+        followers.add(executor.submit(() -> flight.execute("doc", () -> {
+          loads.incrementAndGet();
+          return "other";
+        })));
+      }
+      // Followers are parked on the leader's future before we release it
+      while (flight.getCoalescedCount() < CALLERS - 1) {
+        Thread.onSpinWait();
+      }
+      release.countDown();
+
+      assertEquals("pdf", leader.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+      for (Future<String> follower : followers) {
+        assertEquals("pdf", follower.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+      }
+      assertEquals(1, loads.get());
+      assertEquals(1, flight.getExecutedCount());
+      assertEquals(0, flight.getInFlightCount());
+    }
+    finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void execute_failure_isRethrownAndNotRemembered() {
+    SingleFlight<String, String> flight = new SingleFlight<>();
+    IllegalStateException failure = new IllegalStateException("boom");
+
+    IllegalStateException thrown = assertThrows(IllegalStateException.class,
+        () -> flight.execute("doc", () -> {
+          throw failure;
+        }));
+
+    assertSame(failure, thrown);
+    assertEquals("ok", flight.execute("doc", () -> "ok"));
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,123 @@
+package com.ase.dms.repositories;
+
+import com.ase.dms.entities.BlobEntity;
+import com.ase.dms.entities.DocumentEntity;
+import com.ase.dms.entities.UploadSessionEntity;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DataJpaTest
+class DocumentRepositoryTest {
+
+  @Autowired
+  private TestEntityManager em;
+
+  @Autowired
+  private DocumentRepository documents;
+
+  @Autowired
+  private BlobRepository blobs;
+
+  @Test
+  void findObjectKeysAfter_mergesBlobKeysWithUnsharedDocuments() {
+    blob("hash-b", "00000000-0000-0000-0000-00000000000b", 2);
+    blob("hash-d", "00000000-0000-0000-0000-00000000000d", 1);
+    document("00000000-0000-0000-0000-00000000000a", null);
+    document("00000000-0000-0000-0000-00000000000c", null);
+    document("00000000-0000-0000-0000-000000000001", "00000000-0000-0000-0000-00000000000b");
+    document("00000000-0000-0000-0000-000000000002", "00000000-0000-0000-0000-00000000000b");
+    em.flush();
+
+    assertEquals(List.of(
+            "00000000-0000-0000-0000-00000000000a",
+            "00000000-0000-0000-0000-00000000000b",
+            "00000000-0000-0000-0000-00000000000c"),
+        documents.findObjectKeysAfter("", PageRequest.of(0, 3)));
+    assertEquals(List.of("00000000-0000-0000-0000-00000000000d"),
+        documents.findObjectKeysAfter("00000000-0000-0000-0000-00000000000c", PageRequest.of(0, 3)));
+  }
+
+  @Test
+  void findObjectKeysAfter_includesDocumentKeysWithoutBlob() {
+    // Blob row lost (e.g. cleaned up in error): the object is still referenced and must not become an orphan
+    blob("hash-c", "00000000-0000-0000-0000-00000000000c", 1);
+    document("00000000-0000-0000-0000-000000000001", "00000000-0000-0000-0000-00000000000b");
+    document("00000000-0000-0000-0000-000000000002", "00000000-0000-0000-0000-00000000000b");
+    document("00000000-0000-0000-0000-000000000003", "00000000-0000-0000-0000-00000000000c");
+    em.flush();
+
+    assertEquals(List.of(
+            "00000000-0000-0000-0000-00000000000b",
+            "00000000-0000-0000-0000-00000000000c"),
+        documents.findObjectKeysAfter("", PageRequest.of(0, 3)));
+  }
+
+  @Test
+  void findObjectKeysAfter_includesTailsOfResumableUploads() {
+    blob("hash-b", "00000000-0000-0000-0000-00000000000b", 1);
+    UploadSessionEntity upload = new UploadSessionEntity();
+    upload.setId("00000000-0000-0000-0000-00000000000e");
+    upload.setStorageKey("00000000-0000-0000-0000-00000000000f");
+    upload.setTailObject("00000000-0000-0000-0000-00000000000a");
+    em.persist(upload);
+    em.flush();
+
+    assertEquals(List.of(
+            "00000000-0000-0000-0000-00000000000a",
+            "00000000-0000-0000-0000-00000000000b"),
+        documents.findObjectKeysAfter("", PageRequest.of(0, 3)));
+  }
+
+  @Test
+  void refCounts_reachZeroOnlyAfterLastRelease() {
+    String key = "00000000-0000-0000-0000-00000000000b";
+    blob("hash-b", key, 1);
+    em.flush();
+
+    assertEquals(1, blobs.incrementRefCount("hash-b"));
+    assertEquals(0, blobs.incrementRefCount("hash-unknown"));
+    blobs.decrementRefCount(key, 1);
+    assertEquals(List.of(), blobs.findUnreferencedStorageKeys(List.of(key)));
+    blobs.decrementRefCount(key, 1);
+    assertEquals(List.of(key), blobs.findUnreferencedStorageKeys(List.of(key)));
+  }
+
+  @Test
+  void blobSave_storedHash_failsInsteadOfOverwriting() {
+    String key = "00000000-0000-0000-0000-00000000000b";
+    blob("hash-b", key, 2);
+    em.flush();
+    em.clear();
+
+    assertThrows(DataIntegrityViolationException.class, () -> blobs.saveAndFlush(
+        new BlobEntity("hash-b", "00000000-0000-0000-0000-00000000000c", 1L, 0, LocalDateTime.now())));
+
+    em.clear();
+    BlobEntity stored = em.find(BlobEntity.class, "hash-b");
+    assertEquals(key, stored.getStorageKey());
+    assertEquals(2, stored.getRefCount());
+  }
+
+  private void blob(String hash, String storageKey, long refCount) {
+    em.persist(new BlobEntity(hash, storageKey, 1L, refCount, LocalDateTime.now()));
+  }
+
+  private void document(String id, String storageKey) {
+    DocumentEntity document = new DocumentEntity();
+    document.setId(id);
+    document.setName("doc-" + id + ".txt");
+    document.setType("text/plain");
+    document.setCreatedDate(LocalDateTime.now());
+    document.setStorageKey(storageKey);
+    em.persist(document);
+  }
+}
@@ -0,0 +1,126 @@
+package com.ase.dms.repositories;
+
+import com.ase.dms.dtos.FolderSummaryDTO;
+import com.ase.dms.entities.DocumentEntity;
+import com.ase.dms.entities.FolderEntity;
+import com.ase.dms.entities.TagEntity;
+import com.ase.dms.helpers.FolderSubtree;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+class FolderRepositoryTest {
+
+  private static final long DOC_SIZE = 42L;
+
+  @Autowired
+  private TestEntityManager em;
+
+  @Autowired
+  private FolderRepository folders;
+
+  @Autowired
+  private DocumentRepository documents;
+
+  @Test
+  void findSubtree_loadsAllLevelsInOneQuery() {
+    FolderEntity root = folder(null, Set.of());
+    FolderEntity child = folder(root, Set.of("BIN-T23-F1"));
+    FolderEntity grandChild = folder(child, Set.of());
+    FolderEntity sibling = folder(null, Set.of());
+    document(root, "hash-a");
+    document(grandChild, "hash-a");
+    document(sibling, "hash-b");
+    em.flush();
+    em.clear();
+
+    FolderSubtree tree = FolderSubtree.of(root.getId(), folders.findSubtree(root.getId())).orElseThrow();
+
+    assertEquals(Set.of(root.getId(), child.getId(), grandChild.getId()), tree.getFolderIds());
+    assertEquals(2, tree.getDocumentIds().size());
+    assertEquals(Set.of("hash-a"), tree.getContentHashes());
+    assertEquals(2 * DOC_SIZE, tree.getTotalSize());
+  }
+
+  @Test
+  void visibilityQueries_returnOnlyFoldersVisibleToCohort() {
+    FolderEntity root = folder(null, Set.of());
+    FolderEntity open = folder(root, Set.of());
+    FolderEntity own = folder(root, Set.of("BIN-T23-F1", "BIN-T23-F4"));
+    FolderEntity other = folder(root, Set.of("BIN-T23-F4"));
+    folder(other, Set.of());
+    FolderEntity belowOwn = folder(own, Set.of());
+    em.flush();
+    em.clear();
+
+    assertEquals(Set.of(root.getId(), open.getId(), own.getId(), belowOwn.getId()),
+        Set.copyOf(folders.findVisibleFolderIds(root.getId(), "BIN-T23-F1")));
+    assertEquals(Set.of(root.getId(), open.getId()), Set.copyOf(folders.findVisibleFolderIds(root.getId(), null)));
+    assertEquals(Set.of(open.getId(), own.getId()),
+        folders.findVisibleSummariesByParentId(root.getId(), "BIN-T23-F1").stream()
+            .map(FolderSummaryDTO::getId).collect(Collectors.toSet()));
+  }
+
+  @Test
+  void bulkDelete_removesSubtreeRowsOnly() {
+    TagEntity tag = em.persist(TagEntity.builder().name("Klausur").build());
+    FolderEntity root = folder(null, Set.of());
+    FolderEntity child = folder(root, Set.of("BIN-T23-F1"));
+    FolderEntity sibling = folder(null, Set.of("BIN-T23-F1"));
+    DocumentEntity inChild = document(child, "hash-a");
+    inChild.setTags(new ArrayList<>(List.of(tag)));
+    DocumentEntity kept = document(sibling, "hash-a");
+    em.flush();
+    em.clear();
+
+    FolderSubtree tree = FolderSubtree.of(root.getId(), folders.findSubtree(root.getId())).orElseThrow();
+    List<String> documentIds = List.copyOf(tree.getDocumentIds());
+    List<String> folderIds = List.copyOf(tree.getFolderIds());
+    documents.deleteTagLinksByDocumentIds(documentIds);
+    documents.deleteByIdIn(documentIds);
+    folders.deleteStudyGroupsByFolderIds(folderIds);
+    folders.detachByIdIn(folderIds);
+    folders.deleteByIdIn(folderIds);
+
+    assertFalse(folders.existsById(root.getId()));
+    assertFalse(folders.existsById(child.getId()));
+    assertFalse(documents.existsById(inChild.getId()));
+    assertTrue(documents.existsById(kept.getId()));
+    assertEquals(Set.of("BIN-T23-F1"), folders.findById(sibling.getId()).orElseThrow().getStudyGroupIds());
+    assertEquals(List.of("hash-a"), documents.findReferencedContentHashes(List.of("hash-a", "hash-b")));
+  }
+
+  private FolderEntity folder(FolderEntity parent, Set<String> studyGroups) {
+    FolderEntity folder = new FolderEntity();
+    folder.setId(UUID.randomUUID().toString());
+    folder.setName("Ordner");
+    folder.setCreatedDate(LocalDateTime.now());
+    folder.setParent(parent);
+    folder.getStudyGroupIds().addAll(studyGroups);
+    return em.persist(folder);
+  }
+
+  private DocumentEntity document(FolderEntity folder, String contentHash) {
+    DocumentEntity document = new DocumentEntity();
+    document.setId(UUID.randomUUID().toString());
+    document.setName("doc.txt");
+    document.setType("text/plain");
+    document.setSize(DOC_SIZE);
+    document.setContentHash(contentHash);
+    document.setCreatedDate(LocalDateTime.now());
+    document.setFolder(folder);
+    return em.persist(document);
+  }
+}
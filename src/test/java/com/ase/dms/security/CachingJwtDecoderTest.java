@@ -0,0 +1,80 @@
+package com.ase.dms.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CachingJwtDecoderTest {
+
+  private static final Instant NOW = Instant.parse("2025-10-01T10:00:00Z");
+  private static final Duration TTL = Duration.ofMinutes(1);
+
+  @Mock
+  private JwtDecoder delegate;
+
+  @Mock
+  private Clock clock;
+
+  @Test
+  void decode_sameToken_verifiesOnce() {
+    Jwt jwt = jwt(NOW.plusSeconds(600));
+    when(delegate.decode("token")).thenReturn(jwt);
+    CachingJwtDecoder decoder = decoder(NOW);
+
+    decoder.decode("token");
+
+    assertSame(jwt, decoder.decode("token"));
+    verify(delegate, times(1)).decode("token");
+  }
+
+  @Test
+  void decode_afterTokenExpiry_verifiesAgain() {
+    when(delegate.decode("token")).thenReturn(jwt(NOW.plusSeconds(10)));
+    when(clock.instant()).thenReturn(NOW, NOW.plusSeconds(11));
+    CachingJwtDecoder decoder = new CachingJwtDecoder(delegate, TTL, 100, clock, new SimpleMeterRegistry());
+
+    decoder.decode("token");
+    decoder.decode("token");
+
+    verify(delegate, times(2)).decode("token");
+  }
+
+  @Test
+  void decode_invalidToken_isNotCached() {
+    when(delegate.decode("bad")).thenThrow(new BadJwtException("invalid signature"));
+    CachingJwtDecoder decoder = decoder(NOW);
+
+    assertThrows(BadJwtException.class, () -> decoder.decode("bad"));
+    assertThrows(BadJwtException.class, () -> decoder.decode("bad"));
+    verify(delegate, times(2)).decode("bad");
+  }
+
+  private CachingJwtDecoder decoder(Instant now) {
+    return new CachingJwtDecoder(delegate, TTL, 100, Clock.fixed(now, ZoneOffset.UTC), new SimpleMeterRegistry());
+  }
+
+  private static Jwt jwt(Instant expiresAt) {
+    return Jwt.withTokenValue("token")
+        .header("alg", "RS256")
+        .subject("user")
+        .issuedAt(NOW)
+        .expiresAt(expiresAt)
+        .build();
+  }
+}
@@ -0,0 +1,57 @@
+package com.ase.dms.security;
+
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JwtAuthConverterTest {
+
+  private static final String READ_WRITE = "Area-2.Team-7.ReadUpdateDelete.readwrite-document";
+
+  @AfterEach
+  void tearDown() {
+    SecurityContextHolder.clearContext();
+  }
+
+  @Test
+  void convert_parsesRolesOnceAndKeepsThemOnToken() {
+    Jwt jwt = Jwt.withTokenValue("token")
+        .header("alg", "none")
+        .subject("0b540a6e-988d-484a-9247-9e3a2f237438")
+        .claim("groups", List.of(READ_WRITE, "lecturer"))
+        .claim("realm_access", Map.of("roles", List.of("lecturer", "offline_access")))
+        .claim("resource_access", Map.of("account", Map.of("roles", List.of("view-profile"))))
+        .build();
+
+    AbstractAuthenticationToken authentication = new JwtAuthConverter().convert(jwt);
+    SecurityContextHolder.getContext().setAuthentication(authentication);
+
+    RoleAwareJwtAuthenticationToken token = assertInstanceOf(RoleAwareJwtAuthenticationToken.class, authentication);
+    assertEquals(UserInformationJWT.extractRoles(jwt), token.getRoles());
+    assertEquals(List.of("ROLE_" + READ_WRITE, "ROLE_lecturer"),
+        authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+    assertTrue(UserInformationJWT.hasRole(READ_WRITE.toUpperCase()));
+    assertTrue(UserInformationJWT.hasRole("View-Profile"));
+    assertFalse(UserInformationJWT.hasRole("admin"));
+    assertEquals(token.getRoles(), UserInformationJWT.getRoles());
+  }
+
+  @Test
+  void convert_withoutGroups_hasNoAuthorities() {
+    Jwt jwt = Jwt.withTokenValue("token").header("alg", "none").subject("user").build();
+
+    AbstractAuthenticationToken authentication = new JwtAuthConverter().convert(jwt);
+
+    assertTrue(authentication.getAuthorities().isEmpty());
+  }
+}
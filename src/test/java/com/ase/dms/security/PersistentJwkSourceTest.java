@@ -0,0 +1,90 @@
+package com.ase.dms.security;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Verifies tokens with keys from the cache file while the JWK endpoint is unreachable.
+ */
+class PersistentJwkSourceTest {
+
+  // Nothing listens here, every fetch fails
+  private static final URI UNREACHABLE = URI.create("http://127.0.0.1:9/certs");
+  private static final int KEY_SIZE = 2048;
+
+  @TempDir
+  private Path tempDir;
+
+  @Test
+  void decode_keysFromCacheFile_workWithoutNetwork() throws Exception {
+    RSAKey key = new RSAKeyGenerator(KEY_SIZE).keyID("k1").generate();
+    Path cacheFile = tempDir.resolve("jwks.json");
+    Files.writeString(cacheFile, new JWKSet(key).toString(true));
+
+    Jwt jwt = decoder(cacheFile).decode(sign(key, "0b540a6e-988d-484a-9247-9e3a2f237438"));
+
+    assertEquals("0b540a6e-988d-484a-9247-9e3a2f237438", jwt.getSubject());
+  }
+
+  @Test
+  void decode_unknownKeyAndNoEndpoint_fails() throws Exception {
+    RSAKey known = new RSAKeyGenerator(KEY_SIZE).keyID("k1").generate();
+    RSAKey unknown = new RSAKeyGenerator(KEY_SIZE).keyID("k2").generate();
+    Path cacheFile = tempDir.resolve("jwks.json");
+    Files.writeString(cacheFile, new JWKSet(known).toString(true));
+
+    NimbusJwtDecoder decoder = decoder(cacheFile);
+
+    assertThrows(JwtException.class, () -> decoder.decode(sign(unknown, "user")));
+  }
+
+  @Test
+  void decode_noCacheFileAndNoEndpoint_fails() {
+    NimbusJwtDecoder decoder = decoder(tempDir.resolve("missing.json"));
+
+    assertThrows(JwtException.class, () -> decoder.decode("eyJhbGciOiJSUzI1NiJ9.e30.c2ln"));
+  }
+
+  private static NimbusJwtDecoder decoder(Path cacheFile) {
+    PersistentJwkSource source = new PersistentJwkSource(UNREACHABLE, cacheFile, Duration.ofMillis(200),
+        Duration.ofMinutes(15), Duration.ofSeconds(30));
+    DefaultJWTProcessor<SecurityContext> processor = new DefaultJWTProcessor<>();
+    processor.setJWSKeySelector(new JWSVerificationKeySelector<>(JWSAlgorithm.RS256, source));
+    return new NimbusJwtDecoder(processor);
+  }
+
+  private static String sign(RSAKey key, String subject) throws JOSEException {
+    JWTClaimsSet claims = new JWTClaimsSet.Builder()
+        .subject(subject)
+        .issueTime(new Date())
+        .expirationTime(Date.from(Instant.now().plusSeconds(300)))
+        .build();
+    SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(key.getKeyID()).build(), claims);
+    jwt.sign(new RSASSASigner(key));
+    return jwt.serialize();
+  }
+}
@@ -0,0 +1,127 @@
+package com.ase.dms.services;
+
+import com.ase.dms.entities.BlobEntity;
+import com.ase.dms.repositories.BlobRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Two first uploads of the same content must end up sharing one blob,
+ * whichever of them inserts it first.
+ */
+@DataJpaTest
+@Import({BlobServiceImpl.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BlobServiceConcurrencyTest {
+
+  private static final long TIMEOUT_SECONDS = 10;
+
+  @Autowired
+  private BlobService blobService;
+
+  @Autowired
+  private BlobRepository blobs;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @MockitoBean
+  private MinIOService minIOService;
+
+  @AfterEach
+  void tearDown() {
+    blobs.deleteAll();
+  }
+
+  @Test
+  void store_twoFirstUploadsOfSameContent_shareOneBlob() throws Exception {
+    MockMultipartFile file = new MockMultipartFile("file", "handout.txt", "text/plain", "Hello Race".getBytes());
+    // Both uploads have found no blob and written their object before either inserts its row
+    CyclicBarrier bothUploaded = new CyclicBarrier(2);
+    doAnswer(inv -> {
+      bothUploaded.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+      return null;
+    }).when(minIOService).setObject(anyString(), any(InputStream.class), anyLong(), any());
+    TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+    Callable<BlobEntity> upload = () -> transaction.execute(status -> {
+      try {
+        return blobService.store(file, file.getSize(), file.getContentType());
+      }
+      catch (Exception e) {
+        throw new IllegalStateException(e);
+      }
+    });
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<BlobEntity> first = executor.submit(upload);
+      Future<BlobEntity> second = executor.submit(upload);
+      BlobEntity a = first.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+      BlobEntity b = second.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+      assertEquals(a.getStorageKey(), b.getStorageKey());
+    }
+    finally {
+      executor.shutdownNow();
+    }
+
+    List<BlobEntity> stored = blobs.findAll();
+    assertEquals(1, stored.size());
+    assertEquals(2, stored.get(0).getRefCount());
+    // The losing upload drops its own object, never the shared one
+    ArgumentCaptor<String> written = ArgumentCaptor.forClass(String.class);
+    verify(minIOService, times(2)).setObject(written.capture(), any(InputStream.class), anyLong(), any());
+    String dropped = written.getAllValues().stream()
+        .filter(key -> !key.equals(stored.get(0).getStorageKey()))
+        .findFirst()
+        .orElseThrow();
+    verify(minIOService).deleteObject(dropped);
+  }
+
+  @Test
+  void store_rolledBackUpload_removesItsBlobAgain() throws Exception {
+    MockMultipartFile file = new MockMultipartFile("file", "handout.txt", "text/plain", "Hello Rollback".getBytes());
+    ArgumentCaptor<String> written = ArgumentCaptor.forClass(String.class);
+
+    new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+      try {
+        blobService.store(file, file.getSize(), file.getContentType());
+      }
+      catch (Exception e) {
+        throw new IllegalStateException(e);
+      }
+      status.setRollbackOnly();
+    });
+
+    assertEquals(List.of(), blobs.findAll());
+    verify(minIOService).setObject(written.capture(), any(InputStream.class), anyLong(), any());
+    verify(minIOService).deleteObject(written.getValue());
+  }
+}
@@ -0,0 +1,166 @@
+package com.ase.dms.services;
+
+import com.ase.dms.entities.BlobEntity;
+import com.ase.dms.repositories.BlobRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BlobServiceImplTest {
+
+  // sha256("Hello Stream")
+  private static final String HASH = "7cffcba569dbf9843db07d7e186fdab5c8b059276026106ba80cf85b2f5959a2";
+  private static final String STORAGE_KEY = "5d7a2c1e-0f3b-4a8e-9c61-2b0f5e7d9a14";
+  private static final String OTHER_STORAGE_KEY = "9e0b1f4c-6a2d-4c7e-8b35-1d2f3a4b5c6d";
+
+  @Mock
+  private BlobRepository blobRepository;
+
+  @Mock
+  private MinIOService minIOService;
+
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private BlobServiceImpl blobService;
+
+  private final MockMultipartFile file = new MockMultipartFile(
+      "file", "handout.txt", "text/plain", "Hello Stream".getBytes());
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    blobService = new BlobServiceImpl(blobRepository, minIOService, transactionManager, meterRegistry);
+  }
+
+  @Test
+  void store_newContent_uploadsAndCreatesBlob() throws Exception {
+    when(blobRepository.incrementRefCount(HASH)).thenReturn(0, 1);
+    ArgumentCaptor<BlobEntity> inserted = ArgumentCaptor.forClass(BlobEntity.class);
+    when(blobRepository.saveAndFlush(inserted.capture())).thenAnswer(inv -> inv.getArgument(0));
+    when(blobRepository.findById(HASH)).thenAnswer(inv -> Optional.of(inserted.getValue()));
+
+    BlobEntity blob = blobService.store(file, file.getSize(), "text/plain");
+
+    assertEquals(HASH, blob.getHash());
+    // Inserted without a reference; the caller's transaction adds it
+    assertEquals(0, inserted.getValue().getRefCount());
+    verify(minIOService).setObject(eq(blob.getStorageKey()), any(InputStream.class), eq(file.getSize()),
+        eq("text/plain"));
+    verify(minIOService, never()).deleteObject(anyString());
+  }
+
+  @Test
+  void store_concurrentFirstUpload_referencesTheOtherBlobAndDropsOwnObject() throws Exception {
+    BlobEntity stored = new BlobEntity(HASH, OTHER_STORAGE_KEY, file.getSize(), 1, LocalDateTime.now());
+    // Both uploads find no blob; the other one inserts first
+    when(blobRepository.incrementRefCount(HASH)).thenReturn(0, 1);
+    when(blobRepository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("duplicate key"));
+    when(blobRepository.findById(HASH)).thenReturn(Optional.of(stored));
+    ArgumentCaptor<String> ownKey = ArgumentCaptor.forClass(String.class);
+
+    BlobEntity blob = blobService.store(file, file.getSize(), "text/plain");
+
+    assertEquals(OTHER_STORAGE_KEY, blob.getStorageKey());
+    verify(minIOService).setObject(ownKey.capture(), any(InputStream.class), eq(file.getSize()), eq("text/plain"));
+    assertNotEquals(OTHER_STORAGE_KEY, ownKey.getValue());
+    verify(minIOService).deleteObject(ownKey.getValue());
+  }
+
+  @Test
+  void adopt_newContent_keepsUploadedObject() {
+    when(blobRepository.incrementRefCount(HASH)).thenReturn(0, 1);
+    when(blobRepository.saveAndFlush(any())).thenAnswer(inv -> inv.getArgument(0));
+    when(blobRepository.findById(HASH))
+        .thenReturn(Optional.of(new BlobEntity(HASH, STORAGE_KEY, file.getSize(), 1, LocalDateTime.now())));
+
+    BlobEntity blob = blobService.adopt(HASH, STORAGE_KEY, file.getSize());
+
+    assertEquals(STORAGE_KEY, blob.getStorageKey());
+    assertEquals(1, blob.getRefCount());
+  }
+
+  @Test
+  void adopt_concurrentFirstUpload_leavesUploadedObjectToCaller() {
+    when(blobRepository.incrementRefCount(HASH)).thenReturn(0, 1);
+    when(blobRepository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("duplicate key"));
+    when(blobRepository.findById(HASH))
+        .thenReturn(Optional.of(new BlobEntity(HASH, OTHER_STORAGE_KEY, file.getSize(), 2, LocalDateTime.now())));
+
+    BlobEntity blob = blobService.adopt(HASH, STORAGE_KEY, file.getSize());
+
+    assertEquals(OTHER_STORAGE_KEY, blob.getStorageKey());
+    verify(minIOService, never()).deleteObject(anyString());
+  }
+
+  @Test
+  void store_knownContent_skipsUpload() throws Exception {
+    BlobEntity existing = new BlobEntity(HASH, STORAGE_KEY, file.getSize(), 2, LocalDateTime.now());
+    when(blobRepository.incrementRefCount(HASH)).thenReturn(1);
+    when(blobRepository.findById(HASH)).thenReturn(Optional.of(existing));
+
+    BlobEntity blob = blobService.store(file, file.getSize(), "text/plain");
+
+    assertEquals(STORAGE_KEY, blob.getStorageKey());
+    verify(minIOService, never()).setObject(anyString(), any(InputStream.class), anyLong(), any());
+    verify(blobRepository, never()).saveAndFlush(any());
+    assertEquals(file.getSize(), meterRegistry.counter("dms.blobs.deduplicated.bytes").count());
+  }
+
+  @Test
+  void release_sharedBlob_decrementsOncePerDocumentAndKeepsObject() {
+    when(blobRepository.findUnreferencedStorageKeys(List.of(STORAGE_KEY))).thenReturn(List.of());
+
+    Set<String> released = blobService.release(Map.of("doc-a", STORAGE_KEY, "doc-b", STORAGE_KEY));
+
+    assertEquals(Set.of(), released);
+    verify(blobRepository).decrementRefCount(STORAGE_KEY, 2L);
+    verify(blobRepository, never()).deleteByStorageKeyIn(any());
+  }
+
+  @Test
+  void release_lastReference_releasesObjectAndDeletesBlob() {
+    when(blobRepository.findUnreferencedStorageKeys(List.of(STORAGE_KEY))).thenReturn(List.of(STORAGE_KEY));
+
+    Set<String> released = blobService.release(Map.of("doc-a", STORAGE_KEY));
+
+    assertEquals(Set.of(STORAGE_KEY), released);
+    verify(blobRepository).deleteByStorageKeyIn(List.of(STORAGE_KEY));
+  }
+
+  @Test
+  void release_documentWithoutBlob_releasesItsOwnObject() {
+    Map<String, String> storageKeys = new HashMap<>();
+    storageKeys.put("doc-legacy", null);
+
+    assertEquals(Set.of("doc-legacy"), blobService.release(storageKeys));
+    verify(blobRepository, never()).decrementRefCount(anyString(), anyLong());
+  }
+}
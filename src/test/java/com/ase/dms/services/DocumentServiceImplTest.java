@@ -1,10 +1,27 @@
 package com.ase.dms.services;
 
+import com.ase.dms.components.ConversionLimiter;
+import com.ase.dms.dtos.RenditionDTO;
+import com.ase.dms.entities.BlobEntity;
 import com.ase.dms.entities.DocumentEntity;
+import com.ase.dms.repositories.BlobRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
 import org.jodconverter.core.DocumentConverter;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -12,11 +29,19 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import org.mockito.Mock;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
 
 @ExtendWith(MockitoExtension.class)
 class DocumentServiceImplTest {
@@ -39,6 +64,26 @@ class DocumentServiceImplTest {
   @Mock
   private TagServiceImpl tagService;
 
+  @Mock
+  private ConversionLimiter conversionLimiter;
+
+  @Mock
+  private RenditionService renditionService;
+
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
+
+  @Mock
+  private StorageCleanupService storageCleanup;
+
+  @Mock
+  private BlobRepository blobRepository;
+
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
+  private final Map<String, BlobEntity> storedBlobs = new HashMap<>();
+
   private DocumentServiceImpl service;
 
   @BeforeEach
@@ -48,8 +93,29 @@ class DocumentServiceImplTest {
         folderRepository,
         minIOService,
         documentConverter,
-        tagService
+        tagService,
+        conversionLimiter,
+        renditionService,
+        eventPublisher,
+        storageCleanup,
+        new BlobServiceImpl(blobRepository, minIOService, transactionManager, new SimpleMeterRegistry())
     );
+    // The blob table, so that new content is inserted and then referenced
+    lenient().when(blobRepository.saveAndFlush(any())).thenAnswer(inv -> {
+      BlobEntity blob = inv.getArgument(0);
+      storedBlobs.put(blob.getHash(), blob);
+      return blob;
+    });
+    lenient().when(blobRepository.incrementRefCount(anyString())).thenAnswer(inv -> {
+      BlobEntity blob = storedBlobs.get(inv.<String>getArgument(0));
+      if (blob == null) {
+        return 0;
+      }
+      blob.setRefCount(blob.getRefCount() + 1);
+      return 1;
+    });
+    lenient().when(blobRepository.findById(anyString()))
+        .thenAnswer(inv -> Optional.ofNullable(storedBlobs.get(inv.<String>getArgument(0))));
   }
 
   @Test
@@ -118,6 +184,29 @@ class DocumentServiceImplTest {
     assertNotNull(service.getDocument(created.getId()));
   }
 
+  @Test
+  void testCreateDocument_streamsFileToMinio() {
+    MockMultipartFile file = new MockMultipartFile(
+        "file", "stream.txt", "text/plain", "Hello Stream".getBytes());
+
+    com.ase.dms.entities.FolderEntity mockFolder = new com.ase.dms.entities.FolderEntity();
+    mockFolder.setId("f1e1b676-474c-4014-a7ee-53fc5cb90127");
+    mockFolder.setDocuments(new java.util.ArrayList<>());
+    when(folderRepository.findById("f1e1b676-474c-4014-a7ee-53fc5cb90127")).thenReturn(Optional.of(mockFolder));
+    when(documentRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+    // Drain the stream like MinIO does
+    doAnswer(inv -> ((InputStream) inv.getArgument(1)).readAllBytes())
+        .when(minIOService).setObject(anyString(), any(InputStream.class), anyLong(), any());
+
+    DocumentEntity created = service.createDocument(file, "f1e1b676-474c-4014-a7ee-53fc5cb90127", new String[0]);
+
+    verify(minIOService).setObject(eq(created.getStorageKey()), any(InputStream.class), eq(file.getSize()),
+        eq("text/plain"));
+    verify(minIOService, never()).setObject(anyString(), any(byte[].class));
+    // sha256("Hello Stream")
+    assertEquals("7cffcba569dbf9843db07d7e186fdab5c8b059276026106ba80cf85b2f5959a2", created.getContentHash());
+  }
+
   @Test
   void testCreateDocument_withNameConflict_incrementsName() {
     // Mock the folder that documents will be created in
@@ -265,10 +354,11 @@ class DocumentServiceImplTest {
 
   @Test
   void testDeleteDocument_deletesDocumentSuccessfully() {
-    // existsById -> true, damit Delete erlaubt ist
-    when(documentRepository.existsById("4111b676-474c-4014-a7ee-53fc5cb90127")).thenReturn(true);
-    // Nach dem Löschen simulieren wir "nicht mehr vorhanden"
-    when(documentRepository.findById("4111b676-474c-4014-a7ee-53fc5cb90127")).thenReturn(Optional.empty());
+    DocumentEntity existing = new DocumentEntity();
+    existing.setId("4111b676-474c-4014-a7ee-53fc5cb90127");
+    // Erst vorhanden, damit Delete erlaubt ist; nach dem Löschen "nicht mehr vorhanden"
+    when(documentRepository.findById("4111b676-474c-4014-a7ee-53fc5cb90127"))
+        .thenReturn(Optional.of(existing), Optional.empty());
 
     // Act
     service.deleteDocument("4111b676-474c-4014-a7ee-53fc5cb90127");
@@ -279,14 +369,72 @@ class DocumentServiceImplTest {
     assertTrue(exception.getMessage().contains("4111b676-474c-4014-a7ee-53fc5cb90127"));
 
     verify(documentRepository).deleteById("4111b676-474c-4014-a7ee-53fc5cb90127");
+    verify(storageCleanup).enqueue(Set.of("4111b676-474c-4014-a7ee-53fc5cb90127"));
+    verify(minIOService, never()).deleteObject(anyString());
   }
 
   @Test
   void testDeleteDocument_nonExistingId_throwsException() {
     String nonExistingId = "12345678-1234-1234-1234-1234567890ab";
-    when(documentRepository.existsById(nonExistingId)).thenReturn(false);
+    when(documentRepository.findById(nonExistingId)).thenReturn(Optional.empty());
 
     RuntimeException exception = assertThrows(RuntimeException.class, () -> service.deleteDocument(nonExistingId));
     assertTrue(exception.getMessage().contains(nonExistingId));
   }
+
+  @Test
+  void testConvertDocument_cachedRendition_skipsConversion() throws Exception {
+    DocumentEntity doc = new DocumentEntity();
+    doc.setId("4111b676-474c-4014-a7ee-53fc5cb90127");
+    doc.setName("slides.pptx");
+    doc.setType("application/vnd.openxmlformats-officedocument.presentationml.presentation");
+    RenditionDTO stored = new RenditionDTO("renditions/pdf/abc-v1.pdf", SIZE_1_KB);
+    when(renditionService.getOrCreatePdf(eq(doc), any())).thenReturn(stored);
+
+    RenditionDTO result = service.convertDocument(doc);
+
+    assertEquals(stored, result);
+    verify(minIOService, never()).openObject(anyString(), anyLong(), any());
+    verify(conversionLimiter, never()).execute(any());
+  }
+
+  @Test
+  void testConvertDocument_conversion_spoolsThroughTempFilesAndDeletesThem() throws Exception {
+    DocumentEntity doc = new DocumentEntity();
+    doc.setId("4111b676-474c-4014-a7ee-53fc5cb90127");
+    doc.setName("letter.docx");
+    doc.setType("application/vnd.openxmlformats-officedocument.wordprocessingml.document");
+    when(renditionService.getOrCreatePdf(eq(doc), any()))
+        .thenAnswer(inv -> inv.<Supplier<RenditionDTO>>getArgument(1).get());
+    when(minIOService.openObject(doc.getId(), 0, null))
+        .thenReturn(new ByteArrayInputStream("docx bytes".getBytes(StandardCharsets.UTF_8)));
+    List<Path> spooled = new ArrayList<>();
+    when(renditionService.storePdf(eq(doc), any(Path.class))).thenAnswer(inv -> {
+      Path pdf = inv.getArgument(1);
+      spooled.add(pdf);
+      assertTrue(Files.exists(pdf));
+      return new RenditionDTO("renditions/pdf/abc-v1.pdf", Files.size(pdf));
+    });
+
+    service.convertDocument(doc);
+
+    verify(conversionLimiter).execute(any());
+    verify(minIOService, never()).getObjectData(anyString());
+    assertEquals(1, spooled.size());
+    assertFalse(Files.exists(spooled.get(0)));
+  }
+
+  @Test
+  void testConvertDocument_pdf_returnsOriginal() {
+    DocumentEntity doc = new DocumentEntity();
+    doc.setId("4111b676-474c-4014-a7ee-53fc5cb90127");
+    doc.setName("handout.pdf");
+    doc.setType("application/pdf");
+    doc.setSize(SIZE_100_B);
+
+    RenditionDTO result = service.convertDocument(doc);
+
+    assertEquals("4111b676-474c-4014-a7ee-53fc5cb90127", result.getObjectName());
+    assertEquals(SIZE_100_B, result.getSize());
+  }
 }
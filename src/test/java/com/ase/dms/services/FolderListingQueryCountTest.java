@@ -0,0 +1,120 @@
+package com.ase.dms.services;
+
+import com.ase.dms.components.FolderVisibilityCache;
+import com.ase.dms.dtos.FolderResponseDTO;
+import com.ase.dms.entities.DocumentEntity;
+import com.ase.dms.entities.FolderEntity;
+import com.ase.dms.entities.TagEntity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The folder listing must cost a fixed number of statements,
+ * no matter how many folders and documents sit below the listed folder.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({FolderServiceImpl.class, FolderVisibilityCache.class, SimpleMeterRegistry.class})
+class FolderListingQueryCountTest {
+
+  private static final int MAX_STATEMENTS = 7;
+
+  @Autowired
+  private TestEntityManager em;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  private FolderService folderService;
+
+  @Autowired
+  private FolderVisibilityCache visibilityCache;
+
+  @MockitoBean
+  private StorageCleanupService storageCleanup;
+
+  @MockitoBean
+  private UserClient userClient;
+
+  @MockitoBean
+  private RenditionService renditionService;
+
+  @MockitoBean
+  private BlobService blobService;
+
+  @Test
+  void getFolderContents_statementCountDoesNotGrowWithTree() {
+    TagEntity tag = em.persist(TagEntity.builder().name("Klausur").build());
+    FolderEntity root = folder("root", null);
+
+    long small = countStatements(root.getId(), () -> populate(root, 2, 2, tag));
+    long large = countStatements(root.getId(), () -> populate(root, 10, 8, tag));
+
+    assertTrue(small <= MAX_STATEMENTS, "listing took " + small + " statements");
+    assertEquals(small, large);
+  }
+
+  private long countStatements(String folderId, Runnable arrange) {
+    arrange.run();
+    em.flush();
+    em.clear();
+    // Both listings load the visible folders, as after a folder change
+    visibilityCache.invalidateAll();
+
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+    FolderResponseDTO listing = folderService.getFolderContents(folderId);
+    assertTrue(listing.getDocuments().stream().allMatch(d -> d.getTags().size() == 1));
+    return statistics.getPrepareStatementCount();
+  }
+
+  // Adds subfolders, each with its own subfolder and documents, plus documents in the parent itself
+  private void populate(FolderEntity parent, int folderCount, int documentsPerFolder, TagEntity tag) {
+    FolderEntity managedParent = em.find(FolderEntity.class, parent.getId());
+    for (int i = 0; i < folderCount; i++) {
+      FolderEntity child = folder("Ordner " + UUID.randomUUID(), managedParent);
+      child.setStudyGroupIds(Set.of("BIN-T23-F1"));
+      FolderEntity grandChild = folder("Unterordner", child);
+      for (int j = 0; j < documentsPerFolder; j++) {
+        document(child, tag);
+        document(grandChild, tag);
+      }
+      document(managedParent, tag);
+    }
+  }
+
+  private FolderEntity folder(String name, FolderEntity parent) {
+    FolderEntity folder = new FolderEntity();
+    folder.setId(UUID.randomUUID().toString());
+    folder.setName(name);
+    folder.setCreatedDate(LocalDateTime.now());
+    folder.setParent(parent);
+    return em.persist(folder);
+  }
+
+  private void document(FolderEntity folder, TagEntity tag) {
+    DocumentEntity document = new DocumentEntity();
+    document.setId(UUID.randomUUID().toString());
+    document.setName("doc-" + document.getId() + ".txt");
+    document.setType("text/plain");
+    document.setCreatedDate(LocalDateTime.now());
+    document.setFolder(folder);
+    document.setTags(List.of(tag));
+    em.persist(document);
+  }
+}
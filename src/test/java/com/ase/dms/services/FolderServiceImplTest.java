@@ -1,21 +1,37 @@
 package com.ase.dms.services;
 
+import com.ase.dms.components.FolderVisibilityCache;
+import com.ase.dms.dtos.DocumentSummaryDTO;
+import com.ase.dms.dtos.FolderResponseDTO;
+import com.ase.dms.dtos.FolderSizeDTO;
+import com.ase.dms.dtos.FolderSummaryDTO;
+import com.ase.dms.dtos.UserInfoDTO;
 import com.ase.dms.entities.DocumentEntity;
 import com.ase.dms.entities.FolderEntity;
 import com.ase.dms.exceptions.FolderNotFoundException;
+import com.ase.dms.repositories.DocumentRepository;
 import com.ase.dms.repositories.FolderRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -24,12 +40,22 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class FolderServiceImplTest {
   private static final long SIZE_10 = 10L;
+  private static final String ROOT_UUID = "00000000-0000-0000-0000-000000000000";
 
   @Mock
   private FolderRepository folderRepository;
 
   @Mock
-  private MinIOService minIOService;
+  private DocumentRepository documentRepository;
+
+  @Mock
+  private StorageCleanupService storageCleanup;
+
+  @Mock
+  private RenditionService renditionService;
+
+  @Mock
+  private BlobService blobService;
 
   private FolderServiceImpl folderService;
 
@@ -38,42 +64,47 @@ class FolderServiceImplTest {
 
   @BeforeEach
   void setUp() {
-    folderService = new FolderServiceImpl(folderRepository, minIOService, userClient);
+    folderService = new FolderServiceImpl(folderRepository, documentRepository, userClient,
+        renditionService, storageCleanup,
+        new FolderVisibilityCache(Duration.ofMinutes(1), 16, new SimpleMeterRegistry()), blobService);
+  }
+
+  @AfterEach
+  void clearSecurityContext() {
+    SecurityContextHolder.clearContext();
+  }
+
+  // Lecturers and admins see every folder
+  private static void asStaff() {
+    Jwt jwt = Jwt.withTokenValue("token")
+        .header("alg", "none")
+        .subject("0b540a6e-988d-484a-9247-9e3a2f237438")
+        .claim("groups", List.of("Area-2.Team-7.ReadUpdateDelete.readwrite-document"))
+        .build();
+    SecurityContextHolder.getContext().setAuthentication(new JwtAuthenticationToken(jwt));
   }
 
   @Test
   void getFolderContents_existingId_returnsFolderWithLists() {
     // Arrange
-    FolderEntity folder = new FolderEntity();
-    folder.setId("4111b676-474c-4014-a7ee-53fc5cb90127");
-    folder.setName("Root");
-    folder.setParentId("00000000-0000-0000-0000-000000000000");
-    folder.setCreatedDate(LocalDateTime.now());
-
-    FolderEntity sub = new FolderEntity();
-    sub.setId("f2e1b676-474c-4014-a7ee-53fc5cb90127");
-    sub.setName("Sub");
-    sub.setParentId("4111b676-474c-4014-a7ee-53fc5cb90127");
-    sub.setCreatedDate(LocalDateTime.now());
-
-    DocumentEntity doc = new DocumentEntity();
-    doc.setId("d1e1b676-474c-4014-a7ee-53fc5cb90127");
-    doc.setName("doc.txt");
-    doc.setType("text/plain");
-    doc.setSize(SIZE_10);
-    doc.setFolderId("4111b676-474c-4014-a7ee-53fc5cb90127");
-    doc.setOwnerId("owner");
-    doc.setCreatedDate(LocalDateTime.now());
-    doc.setDownloadUrl("/dms/v1/documents/d1e1b676-474c-4014-a7ee-53fc5cb90127/download");
-
-    // Set up JPA relationships - folder should contain the subfolder and document
-    folder.getSubfolders().add(sub);
-    folder.getDocuments().add(doc);
-
-    when(folderRepository.findById("4111b676-474c-4014-a7ee-53fc5cb90127")).thenReturn(Optional.of(folder));
+    FolderSummaryDTO folder = new FolderSummaryDTO("4111b676-474c-4014-a7ee-53fc5cb90127", "Root",
+        LocalDateTime.now(), "00000000-0000-0000-0000-000000000000");
+    FolderSummaryDTO sub = new FolderSummaryDTO("f2e1b676-474c-4014-a7ee-53fc5cb90127", "Sub",
+        LocalDateTime.now(), "4111b676-474c-4014-a7ee-53fc5cb90127");
+    DocumentSummaryDTO doc = new DocumentSummaryDTO("d1e1b676-474c-4014-a7ee-53fc5cb90127", "doc.txt",
+        "text/plain", SIZE_10, "owner", LocalDateTime.now(),
+        "/dms/v1/documents/d1e1b676-474c-4014-a7ee-53fc5cb90127/download",
+        "4111b676-474c-4014-a7ee-53fc5cb90127");
+
+    when(folderRepository.findSummaryById("4111b676-474c-4014-a7ee-53fc5cb90127")).thenReturn(Optional.of(folder));
+    when(folderRepository.findSummariesByParentId("4111b676-474c-4014-a7ee-53fc5cb90127")).thenReturn(List.of(sub));
+    when(documentRepository.findSummariesByFolderId("4111b676-474c-4014-a7ee-53fc5cb90127")).thenReturn(List.of(doc));
+    when(documentRepository.findTagsByDocumentIds(any())).thenReturn(List.of(tagRow(doc.getId(), "t1", "Klausur")));
+
+    asStaff();
 
     // Act
-    FolderEntity result = folderService.getFolderContents("4111b676-474c-4014-a7ee-53fc5cb90127");
+    FolderResponseDTO result = folderService.getFolderContents("4111b676-474c-4014-a7ee-53fc5cb90127");
 
     // Assert
     assertNotNull(result);
@@ -82,11 +113,70 @@ class FolderServiceImplTest {
     assertEquals("f2e1b676-474c-4014-a7ee-53fc5cb90127", result.getSubfolders().get(0).getId());
     assertEquals(1, result.getDocuments().size());
     assertEquals("d1e1b676-474c-4014-a7ee-53fc5cb90127", result.getDocuments().get(0).getId());
+    assertEquals("Klausur", result.getDocuments().get(0).getTags().get(0).getName());
+  }
+
+  @Test
+  void getFolderContents_student_hidesSubfoldersOfOtherCohorts() {
+    FolderSummaryDTO folder = new FolderSummaryDTO(ROOT_UUID, "root", LocalDateTime.now(), null);
+    FolderSummaryDTO open = new FolderSummaryDTO("f2e1b676-474c-4014-a7ee-53fc5cb90127", "Offen",
+        LocalDateTime.now(), ROOT_UUID);
+    FolderSummaryDTO restricted = new FolderSummaryDTO("f3e1b676-474c-4014-a7ee-53fc5cb90127", "BIN",
+        LocalDateTime.now(), ROOT_UUID);
+    UserInfoDTO user = new UserInfoDTO();
+    user.setCohort("BIN-T23-F1");
+
+    when(folderRepository.findRootSummaryByName("root")).thenReturn(Optional.of(folder));
+    when(folderRepository.findVisibleFolderIds(ROOT_UUID, "BIN-T23-F1")).thenReturn(List.of(ROOT_UUID, open.getId()));
+    when(folderRepository.findVisibleSummariesByParentId(ROOT_UUID, "BIN-T23-F1")).thenReturn(List.of(open));
+    when(userClient.fetchCurrentUser()).thenReturn(Optional.of(user));
+
+    FolderResponseDTO result = folderService.getFolderContents("root");
+
+    assertEquals(List.of(open), result.getSubfolders());
+    verify(folderRepository, never()).findSummariesByParentId(anyString());
+  }
+
+  @Test
+  void getFolderContents_student_hiddenFolder_throwsNotFound() {
+    String restrictedId = "f3e1b676-474c-4014-a7ee-53fc5cb90127";
+    FolderSummaryDTO root = new FolderSummaryDTO(ROOT_UUID, "root", LocalDateTime.now(), null);
+    FolderSummaryDTO restricted = new FolderSummaryDTO(restrictedId, "BIN", LocalDateTime.now(), ROOT_UUID);
+
+    when(folderRepository.findSummaryById(restrictedId)).thenReturn(Optional.of(restricted));
+    when(folderRepository.findRootSummaryByName("root")).thenReturn(Optional.of(root));
+    when(folderRepository.findVisibleFolderIds(ROOT_UUID, null)).thenReturn(List.of(ROOT_UUID));
+
+    assertThrows(FolderNotFoundException.class, () -> folderService.getFolderContents(restrictedId));
+    verify(folderRepository, never()).findVisibleSummariesByParentId(anyString(), any());
+  }
+
+  @Test
+  void getFolderContents_student_reusesVisibilityUntilFolderChanges() {
+    FolderSummaryDTO root = new FolderSummaryDTO(ROOT_UUID, "root", LocalDateTime.now(), null);
+    FolderEntity existing = new FolderEntity();
+    existing.setId("f1e1b676-474c-4014-a7ee-53fc5cb90127");
+    existing.setParentId(ROOT_UUID);
+
+    when(folderRepository.findRootSummaryByName("root")).thenReturn(Optional.of(root));
+    when(folderRepository.findVisibleFolderIds(ROOT_UUID, null)).thenReturn(List.of(ROOT_UUID));
+    when(folderRepository.findById(existing.getId())).thenReturn(Optional.of(existing));
+    when(folderRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+
+    folderService.getFolderContents("root");
+    folderService.getFolderContents("root");
+    verify(folderRepository, times(1)).findVisibleFolderIds(ROOT_UUID, null);
+
+    FolderEntity update = new FolderEntity();
+    update.setStudyGroupIds(Set.of("BIN-T23-F4"));
+    folderService.updateFolder(existing.getId(), update);
+    folderService.getFolderContents("root");
+    verify(folderRepository, times(2)).findVisibleFolderIds(ROOT_UUID, null);
   }
 
   @Test
   void getFolderContents_nonExisting_throws() {
-    when(folderRepository.findById("4111b676-474c-4014-a7ee-53fc5cb90127")).thenReturn(Optional.empty());
+    when(folderRepository.findSummaryById("4111b676-474c-4014-a7ee-53fc5cb90127")).thenReturn(Optional.empty());
 
     RuntimeException ex = assertThrows(RuntimeException.class,
         () -> folderService.getFolderContents("4111b676-474c-4014-a7ee-53fc5cb90127"));
@@ -96,7 +186,7 @@ class FolderServiceImplTest {
   @Test
   void getFolderContents_withInvalidId_throwsFolderNotFoundException() {
     String invalidId = "12345678-1234-1234-1234-1234567890ab"; // valid UUID, but not found
-    when(folderRepository.findById(invalidId)).thenReturn(Optional.empty());
+    when(folderRepository.findSummaryById(invalidId)).thenReturn(Optional.empty());
     FolderNotFoundException ex = assertThrows(FolderNotFoundException.class,
         () -> folderService.getFolderContents(invalidId));
     assertTrue(ex.getMessage().contains(invalidId));
@@ -104,15 +194,13 @@ class FolderServiceImplTest {
 
   @Test
   void getFolderContents_withRootId_alwaysReturnsFolder() {
-    FolderEntity rootFolder = new FolderEntity();
-    rootFolder.setId("00000000-0000-0000-0000-000000000000");
-    rootFolder.setName("root");
-    rootFolder.setParent(null);
-    rootFolder.setCreatedDate(LocalDateTime.now());
+    FolderSummaryDTO rootFolder = new FolderSummaryDTO("00000000-0000-0000-0000-000000000000", "root",
+        LocalDateTime.now(), null);
 
-    when(folderRepository.findByNameAndParentIsNull("root")).thenReturn(Optional.of(rootFolder));
+    when(folderRepository.findRootSummaryByName("root")).thenReturn(Optional.of(rootFolder));
+    asStaff();
 
-    FolderEntity response = folderService.getFolderContents("root");
+    FolderResponseDTO response = folderService.getFolderContents("root");
     assertNotNull(response);
     assertEquals("root", response.getName());
     assertNull(response.getParentId());
@@ -200,21 +288,141 @@ class FolderServiceImplTest {
     subDoc.setId("doc-sub");
     subFolder.getDocuments().add(subDoc);
 
-    when(folderRepository.findById("00000000-0000-0000-0000-000000000000")).thenReturn(Optional.of(existingRoot));
+    when(folderRepository.findSubtree(ROOT_UUID)).thenReturn(List.of(
+        subtreeRow("F", ROOT_UUID, null, null),
+        subtreeRow("F", subFolder.getId(), ROOT_UUID, null),
+        subtreeRow("D", rootDoc.getId(), ROOT_UUID, null),
+        subtreeRow("D", subDoc.getId(), subFolder.getId(), null)));
+    when(documentRepository.findStorageKeysByIds(List.of("doc-root", "doc-sub"))).thenReturn(List.of(
+        storageKeyRow("doc-root", null), storageKeyRow("doc-sub", "blob-sub")));
+    when(blobService.release(any())).thenReturn(Set.of("doc-root", "blob-sub"));
+    when(renditionService.releasePdfs(any())).thenReturn(Set.of("renditions/pdf/doc-root-v1.pdf"));
     folderService.deleteFolder("00000000-0000-0000-0000-000000000000");
 
-    verify(minIOService, times(2)).deleteObject(anyString());
-    verify(folderRepository, times(1)).deleteById("00000000-0000-0000-0000-000000000000");
+    Map<String, String> storageKeys = new HashMap<>();
+    storageKeys.put("doc-root", null);
+    storageKeys.put("doc-sub", "blob-sub");
+    verify(blobService).release(storageKeys);
+
+    verify(documentRepository).deleteTagLinksByDocumentIds(List.of("doc-root", "doc-sub"));
+    verify(documentRepository).deleteByIdIn(List.of("doc-root", "doc-sub"));
+    verify(folderRepository).deleteStudyGroupsByFolderIds(List.of(ROOT_UUID, subFolder.getId()));
+    verify(folderRepository).deleteByIdIn(List.of(ROOT_UUID, subFolder.getId()));
+    verify(storageCleanup).enqueue(Set.of("doc-root", "blob-sub", "renditions/pdf/doc-root-v1.pdf"));
+    verify(folderRepository, never()).deleteById(anyString());
   }
 
   @Test
   void deleteFolder_nonExisting_throws() {
     String nonExistingId = "12345678-1234-1234-1234-1234567890ab";
-    when(folderRepository.findById(nonExistingId))
-        .thenThrow(new FolderNotFoundException("Ordner " + nonExistingId + " nicht gefunden"));
+    when(folderRepository.findSubtree(nonExistingId)).thenReturn(List.of());
 
     FolderNotFoundException ex = assertThrows(FolderNotFoundException.class,
         () -> folderService.deleteFolder(nonExistingId));
     assertTrue(ex.getMessage().contains(nonExistingId));
+    verify(folderRepository, never()).deleteByIdIn(any());
+    verify(storageCleanup, never()).enqueue(any());
+  }
+
+  @Test
+  void getFolderSize_staff_sumsWholeSubtree() {
+    String subId = "f1e1b676-474c-4014-a7ee-53fc5cb90127";
+    when(folderRepository.findSubtree(subId)).thenReturn(List.of(
+        subtreeRow("F", subId, ROOT_UUID, null),
+        subtreeRow("F", "f4e1b676-474c-4014-a7ee-53fc5cb90127", subId, null),
+        sizedDocumentRow("d1", subId, SIZE_10),
+        sizedDocumentRow("d2", "f4e1b676-474c-4014-a7ee-53fc5cb90127", SIZE_10)));
+    asStaff();
+
+    FolderSizeDTO size = folderService.getFolderSize(subId);
+
+    assertEquals(2, size.getFolderCount());
+    assertEquals(2, size.getDocumentCount());
+    assertEquals(2 * SIZE_10, size.getTotalSize());
+  }
+
+  private static FolderRepository.StudyGroupRow studyGroupRow(String folderId, String studyGroupId) {
+    return new FolderRepository.StudyGroupRow() {
+      @Override
+      public String getFolderId() {
+        return folderId;
+      }
+
+      @Override
+      public String getStudyGroupId() {
+        return studyGroupId;
+      }
+    };
+  }
+
+  private static DocumentRepository.TagRow tagRow(String documentId, String uuid, String name) {
+    return new DocumentRepository.TagRow() {
+      @Override
+      public String getDocumentId() {
+        return documentId;
+      }
+
+      @Override
+      public String getUuid() {
+        return uuid;
+      }
+
+      @Override
+      public String getName() {
+        return name;
+      }
+    };
+  }
+
+  private static DocumentRepository.StorageKeyRow storageKeyRow(String documentId, String storageKey) {
+    return new DocumentRepository.StorageKeyRow() {
+      @Override
+      public String getDocumentId() {
+        return documentId;
+      }
+
+      @Override
+      public String getStorageKey() {
+        return storageKey;
+      }
+    };
+  }
+
+  private static FolderRepository.SubtreeRow subtreeRow(String kind, String id, String parent, String detail) {
+    return subtreeRow(kind, id, parent, detail, 0L);
+  }
+
+  private static FolderRepository.SubtreeRow sizedDocumentRow(String id, String folderId, long bytes) {
+    return subtreeRow("D", id, folderId, null, bytes);
+  }
+
+  private static FolderRepository.SubtreeRow subtreeRow(String kind, String id, String parent, String detail,
+                                                        long bytes) {
+    return new FolderRepository.SubtreeRow() {
+      @Override
+      public String getKind() {
+        return kind;
+      }
+
+      @Override
+      public String getId() {
+        return id;
+      }
+
+      @Override
+      public String getParent() {
+        return parent;
+      }
+
+      @Override
+      public String getDetail() {
+        return detail;
+      }
+
+      @Override
+      public Long getBytes() {
+        return bytes;
+      }
+    };
   }
 }
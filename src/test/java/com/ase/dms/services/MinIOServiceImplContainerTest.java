@@ -0,0 +1,127 @@
+package com.ase.dms.services;
+
+import com.ase.dms.config.MinioConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.minio.BucketExistsArgs;
+import io.minio.MakeBucketArgs;
+import io.minio.MinioClient;
+import io.minio.StatObjectArgs;
+import io.minio.StatObjectResponse;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+import org.testcontainers.containers.MinIOContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Uploads streams into a real MinIO server, both as a single put and as a
+ * parallel multipart upload. Skipped where Docker is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class MinIOServiceImplContainerTest {
+
+  private static final String BUCKET = "dms";
+  private static final int MINIO_PORT = 9000;
+  // Three parts at the 5 MB minimum part size, the last one short
+  private static final long MULTIPART_SIZE = 11L * 1024 * 1024;
+  private static final long SINGLE_PUT_SIZE = 3L * 1024 * 1024;
+
+  @Container
+  private static final MinIOContainer MINIO = new MinIOContainer("minio/minio:RELEASE.2023-09-04T19-57-37Z");
+
+  private MinioClient client;
+
+  private MinIOServiceImpl minIOService;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    MinioConfig minioConfig = new MinioConfig();
+    minioConfig.setEndpoint(MINIO.getHost());
+    minioConfig.setPort(MINIO.getMappedPort(MINIO_PORT));
+    minioConfig.setAccessKey(MINIO.getUserName());
+    minioConfig.setAccessSecret(MINIO.getPassword());
+    minioConfig.setBucketName(BUCKET);
+    minioConfig.getUpload().setMultipartThreshold(DataSize.ofMegabytes(10));
+    minioConfig.getUpload().setPartSize(DataSize.ofMegabytes(5));
+    client = minioConfig.minioClient();
+    if (!client.bucketExists(BucketExistsArgs.builder().bucket(BUCKET).build())) {
+      client.makeBucket(MakeBucketArgs.builder().bucket(BUCKET).build());
+    }
+    minIOService = new MinIOServiceImpl(minioConfig, new SimpleMeterRegistry());
+  }
+
+  @Test
+  void setObject_aboveThreshold_storesPartsAsOneObject() throws Exception {
+    MessageDigest sent = MessageDigest.getInstance("SHA-256");
+
+    minIOService.setObject("big.bin", new DigestInputStream(new PatternInputStream(MULTIPART_SIZE), sent),
+        MULTIPART_SIZE, "application/octet-stream");
+
+    StatObjectResponse stat = client.statObject(StatObjectArgs.builder().bucket(BUCKET).object("big.bin").build());
+    assertEquals(MULTIPART_SIZE, stat.size());
+    // S3 gives objects assembled from parts an ETag ending in the part count
+    assertTrue(stat.etag().replace("\"", "").endsWith("-3"), stat.etag());
+    assertArrayEquals(sent.digest(), storedDigest("big.bin"));
+  }
+
+  @Test
+  void setObject_belowThreshold_storesStream() throws Exception {
+    MessageDigest sent = MessageDigest.getInstance("SHA-256");
+
+    minIOService.setObject("small.bin", new DigestInputStream(new PatternInputStream(SINGLE_PUT_SIZE), sent),
+        SINGLE_PUT_SIZE, "application/octet-stream");
+
+    assertEquals(SINGLE_PUT_SIZE, minIOService.findObjectSize("small.bin").orElseThrow());
+    assertArrayEquals(sent.digest(), storedDigest("small.bin"));
+  }
+
+  private byte[] storedDigest(String objectName) throws Exception {
+    MessageDigest stored = MessageDigest.getInstance("SHA-256");
+    try (InputStream in = minIOService.openObject(objectName, 0, null)) {
+      in.transferTo(new DigestOutputStream(OutputStream.nullOutputStream(), stored));
+    }
+    return stored.digest();
+  }
+
+  /**
+   * Generates the object while it is read, so the test holds no copy of it.
+   * The bytes depend on their position, so parts stored out of order show.
+   */
+  private static final class PatternInputStream extends InputStream {
+    private static final int PERIOD = 251;
+
+    private final long size;
+    private long position;
+
+    PatternInputStream(long size) {
+      this.size = size;
+    }
+
+    @Override
+    public int read() {
+      return position < size ? (int) (position++ % PERIOD) : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+      if (position >= size) {
+        return -1;
+      }
+      int n = (int) Math.min(len, size - position);
+      for (int i = 0; i < n; i++) {
+        b[off + i] = (byte) (position++ % PERIOD);
+      }
+      return n;
+    }
+  }
+}
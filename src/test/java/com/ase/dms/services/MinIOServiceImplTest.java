@@ -3,24 +3,48 @@ package com.ase.dms.services;
 import com.ase.dms.config.MinioConfig;
 import com.ase.dms.exceptions.MinIODeleteObjectDataException;
 import com.ase.dms.exceptions.MinIOGetObjectDataException;
-
+import com.ase.dms.exceptions.MinIOObjectNotFoundException;
 import com.ase.dms.exceptions.MinIOSetObjectDataException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.minio.CreateMultipartUploadResponse;
 import io.minio.GetObjectArgs;
 import io.minio.GetObjectResponse;
+import io.minio.GetPresignedObjectUrlArgs;
 import io.minio.PutObjectArgs;
 import io.minio.RemoveObjectArgs;
+import io.minio.RemoveObjectsArgs;
+import io.minio.Result;
+import io.minio.UploadPartResponse;
+import io.minio.errors.ErrorResponseException;
+import io.minio.messages.DeleteError;
+import io.minio.messages.ErrorResponse;
+import io.minio.messages.InitiateMultipartUploadResult;
+import io.minio.messages.Part;
+import io.minio.MinioAsyncClient;
 import io.minio.MinioClient;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 
+import org.mockito.ArgumentCaptor;
 import org.mockito.stubbing.Answer;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.springframework.util.unit.DataSize;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -34,14 +58,33 @@ class MinIOServiceImplTest {
   @Mock
   private MinioClient minioClient;
 
+  @Mock
+  private MinioAsyncClient asyncClient;
+
+  private static final long LARGE_SIZE = 500L * 1024 * 1024;
+  // Three parts at the 5 MB minimum part size, the last one short
+  private static final int MULTIPART_SIZE = 11 * 1024 * 1024;
+  private static final long TIMEOUT_MILLIS = 5_000;
+  private static final long SETTLE_MILLIS = 200;
+
+  private final MinioConfig.Upload upload = new MinioConfig.Upload();
+
+  private SimpleMeterRegistry meterRegistry;
+
   private MinIOServiceImpl minIOService;
 
   @BeforeEach
   void setUp() {
-    when(minioConfig.minioClient()).thenReturn(minioClient);
+    lenient().when(minioConfig.minioClient()).thenReturn(minioClient);
+    lenient().when(minioConfig.minioAsyncClient()).thenReturn(asyncClient);
+    lenient().when(minioConfig.getUpload()).thenReturn(upload);
     when(minioConfig.getBucketName()).thenReturn("test-bucket");
+    upload.setPartSize(DataSize.ofMegabytes(5));
+    upload.setMultipartThreshold(DataSize.ofMegabytes(10));
+    upload.setPartRetryDelay(Duration.ZERO);
 
-    minIOService = new MinIOServiceImpl(minioConfig);
+    meterRegistry = new SimpleMeterRegistry();
+    minIOService = new MinIOServiceImpl(minioConfig, meterRegistry);
   }
 
   // GET OBJECT
@@ -89,6 +132,47 @@ class MinIOServiceImplTest {
     assertThrows(MinIOGetObjectDataException.class, () -> minIOService.getObjectData(objectName));
   }
 
+  @Test
+  void openObject_withRange_passesRangeToMinio() throws Exception {
+    GetObjectResponse response = mock(GetObjectResponse.class);
+    ArgumentCaptor<GetObjectArgs> captor = ArgumentCaptor.forClass(GetObjectArgs.class);
+    when(minioClient.getObject(captor.capture())).thenReturn(response);
+
+    InputStream result = minIOService.openObject("video.mp4", 1024L, 2048L);
+
+    assertSame(response, result);
+    assertEquals(1024L, captor.getValue().offset());
+    assertEquals(2048L, captor.getValue().length());
+  }
+
+  @Test
+  void openObject_withoutRange_readsWholeObject() throws Exception {
+    GetObjectResponse response = mock(GetObjectResponse.class);
+    ArgumentCaptor<GetObjectArgs> captor = ArgumentCaptor.forClass(GetObjectArgs.class);
+    when(minioClient.getObject(captor.capture())).thenReturn(response);
+
+    minIOService.openObject("video.mp4", 0, null);
+
+    assertNull(captor.getValue().offset());
+    assertNull(captor.getValue().length());
+  }
+
+  @Test
+  void openObject_exceptionThrown_throwsCustomException() throws Exception {
+    when(minioClient.getObject(any(GetObjectArgs.class))).thenThrow(new IOException("Simulated failure"));
+
+    assertThrows(MinIOGetObjectDataException.class, () -> minIOService.openObject("bad.txt", 0, null));
+  }
+
+  @Test
+  void openObject_missingKey_throwsObjectNotFound() throws Exception {
+    ErrorResponse missing = new ErrorResponse("NoSuchKey", "The specified key does not exist.", "dms",
+        "gone.pdf", "/dms/gone.pdf", null, null);
+    when(minioClient.getObject(any(GetObjectArgs.class))).thenThrow(new ErrorResponseException(missing, null, null));
+
+    assertThrows(MinIOObjectNotFoundException.class, () -> minIOService.openObject("gone.pdf", 0, null));
+  }
+
   // SET OBJECT
 
   @Test
@@ -112,6 +196,146 @@ class MinIOServiceImplTest {
     assertThrows(MinIOSetObjectDataException.class, () -> minIOService.setObject(objectName, data));
   }
 
+  @Test
+  void setObject_largeStream_isHandedToClientWithoutCopying() throws Exception {
+    upload.setMultipartThreshold(DataSize.ofGigabytes(1));
+    ArgumentCaptor<PutObjectArgs> captor = ArgumentCaptor.forClass(PutObjectArgs.class);
+    when(minioClient.putObject(captor.capture())).thenReturn(null);
+    // MinIO wraps any other stream in a BufferedInputStream; this one it keeps as is
+    InputStream stream = new BufferedInputStream(new SyntheticInputStream(LARGE_SIZE));
+
+    minIOService.setObject("large.bin", stream, LARGE_SIZE, "video/mp4");
+
+    PutObjectArgs args = captor.getValue();
+    assertSame(stream, args.stream());
+    assertEquals(LARGE_SIZE, args.objectSize());
+    assertEquals("video/mp4", args.contentType());
+  }
+
+  @Test
+  void setObject_aboveThreshold_uploadsPartsAndCompletesInOrder() throws Exception {
+    stubCreateMultipartUpload();
+    when(asyncClient.uploadPartAsync(eq("test-bucket"), isNull(), eq("big.mp4"), any(), anyLong(),
+        eq("upload-1"), anyInt(), isNull(), isNull()))
+        .thenAnswer(inv -> CompletableFuture.completedFuture(partResponse(inv.getArgument(6))));
+    when(asyncClient.completeMultipartUploadAsync(any(), any(), any(), any(), any(), any(), any()))
+        .thenReturn(CompletableFuture.completedFuture(null));
+
+    minIOService.setObject("big.mp4", new SyntheticInputStream(MULTIPART_SIZE), MULTIPART_SIZE, "video/mp4");
+
+    ArgumentCaptor<Part[]> parts = ArgumentCaptor.forClass(Part[].class);
+    verify(asyncClient).completeMultipartUploadAsync(eq("test-bucket"), isNull(), eq("big.mp4"), eq("upload-1"),
+        parts.capture(), isNull(), isNull());
+    assertArrayEquals(new int[] {1, 2, 3}, Arrays.stream(parts.getValue()).mapToInt(Part::partNumber).toArray());
+    assertEquals("etag-3", parts.getValue()[2].etag());
+    verify(minioClient, never()).putObject(any());
+  }
+
+  @Test
+  void setObject_partFailsOnce_isRetried() throws Exception {
+    stubCreateMultipartUpload();
+    AtomicInteger calls = new AtomicInteger();
+    when(asyncClient.uploadPartAsync(any(), any(), any(), any(), anyLong(), any(), anyInt(), any(), any()))
+        .thenAnswer(inv -> calls.getAndIncrement() == 0
+            ? CompletableFuture.failedFuture(new IOException("connection reset"))
+            : CompletableFuture.completedFuture(partResponse(inv.getArgument(6))));
+    when(asyncClient.completeMultipartUploadAsync(any(), any(), any(), any(), any(), any(), any()))
+        .thenReturn(CompletableFuture.completedFuture(null));
+
+    minIOService.setObject("big.mp4", new SyntheticInputStream(MULTIPART_SIZE), MULTIPART_SIZE, "video/mp4");
+
+    assertEquals(4, calls.get());
+    assertEquals(1.0, meterRegistry.counter("dms.storage.upload.part.retries").count());
+    verify(asyncClient, never()).abortMultipartUploadAsync(any(), any(), any(), any(), any(), any());
+  }
+
+  @Test
+  void setObject_partKeepsFailing_abortsUpload() throws Exception {
+    stubCreateMultipartUpload();
+    when(asyncClient.uploadPartAsync(any(), any(), any(), any(), anyLong(), any(), anyInt(), any(), any()))
+        .thenAnswer(inv -> CompletableFuture.failedFuture(new IOException("connection reset")));
+    when(asyncClient.abortMultipartUploadAsync(any(), any(), any(), any(), any(), any()))
+        .thenReturn(CompletableFuture.completedFuture(null));
+
+    assertThrows(MinIOSetObjectDataException.class, () -> minIOService.setObject("big.mp4",
+        new SyntheticInputStream(MULTIPART_SIZE), MULTIPART_SIZE, "video/mp4"));
+
+    verify(asyncClient).abortMultipartUploadAsync(eq("test-bucket"), isNull(), eq("big.mp4"), eq("upload-1"),
+        isNull(), isNull());
+    verify(asyncClient, never()).completeMultipartUploadAsync(any(), any(), any(), any(), any(), any(), any());
+  }
+
+  @Test
+  void setObject_failsWhilePartsInFlight_abortsOnceTheyFinish() throws Exception {
+    stubCreateMultipartUpload();
+    CompletableFuture<UploadPartResponse> inFlight = new CompletableFuture<>();
+    when(asyncClient.uploadPartAsync(any(), any(), any(), any(), anyLong(), any(), anyInt(), any(), any()))
+        .thenReturn(inFlight);
+    when(asyncClient.abortMultipartUploadAsync(any(), any(), any(), any(), any(), any()))
+        .thenReturn(CompletableFuture.completedFuture(null));
+
+    // The stream ends one byte early, while the first two parts are still being sent
+    CompletableFuture<Void> result = CompletableFuture.runAsync(() -> minIOService.setObject("big.mp4",
+        new SyntheticInputStream(MULTIPART_SIZE - 1), MULTIPART_SIZE, "video/mp4"));
+
+    verify(asyncClient, timeout(TIMEOUT_MILLIS).times(2))
+        .uploadPartAsync(any(), any(), any(), any(), anyLong(), any(), anyInt(), any(), any());
+    verify(asyncClient, after(SETTLE_MILLIS).never()).abortMultipartUploadAsync(any(), any(), any(), any(), any(),
+        any());
+    inFlight.complete(partResponse(1));
+
+    ExecutionException thrown = assertThrows(ExecutionException.class,
+        () -> result.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+    assertInstanceOf(MinIOSetObjectDataException.class, thrown.getCause());
+    verify(asyncClient).abortMultipartUploadAsync(eq("test-bucket"), isNull(), eq("big.mp4"), eq("upload-1"),
+        isNull(), isNull());
+  }
+
+  private void stubCreateMultipartUpload() throws Exception {
+    InitiateMultipartUploadResult result = mock(InitiateMultipartUploadResult.class);
+    when(result.uploadId()).thenReturn("upload-1");
+    CreateMultipartUploadResponse response = mock(CreateMultipartUploadResponse.class);
+    when(response.result()).thenReturn(result);
+    when(asyncClient.createMultipartUploadAsync(eq("test-bucket"), isNull(), eq("big.mp4"), any(), isNull()))
+        .thenReturn(CompletableFuture.completedFuture(response));
+  }
+
+  private static UploadPartResponse partResponse(int partNumber) {
+    return new UploadPartResponse(null, "test-bucket", null, "big.mp4", "upload-1", partNumber, "etag-" + partNumber);
+  }
+
+  // PRESIGNED DOWNLOAD
+
+  @Test
+  void presignDownload_setsResponseHeadersAndExpiry() throws Exception {
+    MinioClient presignClient = mock(MinioClient.class);
+    when(minioConfig.presignClient()).thenReturn(presignClient);
+    ArgumentCaptor<GetPresignedObjectUrlArgs> captor = ArgumentCaptor.forClass(GetPresignedObjectUrlArgs.class);
+    when(presignClient.getPresignedObjectUrl(captor.capture())).thenReturn("https://files.example.org/signed");
+
+    String url = minIOService.presignDownload("blob-1", "Klausur Lösung.pdf", "application/pdf",
+        Duration.ofMinutes(5));
+
+    assertEquals("https://files.example.org/signed", url);
+    GetPresignedObjectUrlArgs args = captor.getValue();
+    assertEquals("blob-1", args.object());
+    assertEquals(Duration.ofMinutes(5).toSeconds(), args.expiry());
+    assertEquals(List.of("application/pdf"), List.copyOf(args.extraQueryParams().get("response-content-type")));
+    String disposition = args.extraQueryParams().get("response-content-disposition").iterator().next();
+    assertTrue(disposition.startsWith("attachment;"));
+    assertTrue(disposition.contains("filename*=UTF-8''Klausur%20L%C3%B6sung.pdf"));
+  }
+
+  @Test
+  void presignDownload_signingFails_throwsCustomException() throws Exception {
+    MinioClient presignClient = mock(MinioClient.class);
+    when(minioConfig.presignClient()).thenReturn(presignClient);
+    when(presignClient.getPresignedObjectUrl(any())).thenThrow(new IOException("no credentials"));
+
+    assertThrows(MinIOGetObjectDataException.class,
+        () -> minIOService.presignDownload("blob-1", "a.pdf", null, Duration.ofMinutes(5)));
+  }
+
   // DELETE OBJECT
 
   @Test
@@ -132,4 +356,64 @@ class MinIOServiceImplTest {
 
     assertThrows(MinIODeleteObjectDataException.class, () -> minIOService.deleteObject(objectName));
   }
+
+  @Test
+  void deleteObjects_partialFailure_reportsFailedKeys() throws Exception {
+    DeleteError error = mock(DeleteError.class);
+    when(error.objectName()).thenReturn("locked.txt");
+    when(minioClient.removeObjects(any(RemoveObjectsArgs.class)))
+        .thenReturn(List.of(new Result<>(error)));
+
+    List<String> failed = minIOService.deleteObjects(List.of("a.txt", "locked.txt"));
+
+    assertEquals(List.of("locked.txt"), failed);
+  }
+
+  @Test
+  void deleteObjects_manyKeys_sendsBatchesOfThousand() {
+    List<String> keys = IntStream.range(0, 2500).mapToObj(i -> "doc-" + i).toList();
+    when(minioClient.removeObjects(any(RemoveObjectsArgs.class))).thenReturn(List.of());
+
+    assertTrue(minIOService.deleteObjects(keys).isEmpty());
+    verify(minioClient, times(3)).removeObjects(any(RemoveObjectsArgs.class));
+  }
+
+  @Test
+  void deleteObjects_batchThrows_reportsWholeBatch() {
+    when(minioClient.removeObjects(any(RemoveObjectsArgs.class)))
+        .thenReturn(List.of(new Result<>(new IOException("connection reset"))));
+
+    assertEquals(List.of("a.txt", "b.txt"), minIOService.deleteObjects(List.of("a.txt", "b.txt")));
+  }
+
+  /**
+   * Produces {@code size} zero bytes without ever holding them in memory.
+   */
+  private static final class SyntheticInputStream extends InputStream {
+    private long remaining;
+
+    SyntheticInputStream(long size) {
+      this.remaining = size;
+    }
+
+    @Override
+    public int read() {
+      if (remaining <= 0) {
+        return -1;
+      }
+      remaining--;
+      return 0;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+      if (remaining <= 0) {
+        return -1;
+      }
+      int n = (int) Math.min(len, remaining);
+      Arrays.fill(b, off, off + n, (byte) 0);
+      remaining -= n;
+      return n;
+    }
+  }
 }
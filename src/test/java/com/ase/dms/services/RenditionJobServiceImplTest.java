@@ -0,0 +1,197 @@
+package com.ase.dms.services;
+
+import com.ase.dms.dtos.RenditionDTO;
+import com.ase.dms.entities.DocumentEntity;
+import com.ase.dms.entities.RenditionJobEntity;
+import com.ase.dms.entities.RenditionJobStatus;
+import com.ase.dms.exceptions.ConversionQueueFullException;
+import com.ase.dms.repositories.RenditionJobRepository;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RenditionJobServiceImplTest {
+
+  private static final String DOC_ID = "4111b676-474c-4014-a7ee-53fc5cb90127";
+  private static final String JOB_ID = "5d7a2c1e-0f3b-4a8e-9c61-2b0f5e7d9a14";
+  private static final int MAX_ATTEMPTS = 3;
+  private static final int RETRY_AFTER_SECONDS = 5;
+  private static final Duration STALE_AFTER = Duration.ofMinutes(10);
+  private static final Duration RESUBMIT_AFTER = Duration.ofMinutes(1);
+  private static final Duration RETENTION = Duration.ofHours(1);
+
+  @Mock
+  private RenditionJobRepository jobRepository;
+
+  @Mock
+  private DocumentService documentService;
+
+  private RenditionJobServiceImpl jobService;
+
+  private DocumentEntity document;
+
+  @BeforeEach
+  void setUp() {
+    // Runs submitted jobs on the calling thread
+    jobService = new RenditionJobServiceImpl(jobRepository, documentService, Runnable::run,
+        false, MAX_ATTEMPTS, STALE_AFTER, RESUBMIT_AFTER, RETENTION);
+    document = new DocumentEntity();
+    document.setId(DOC_ID);
+    document.setType("application/vnd.openxmlformats-officedocument.wordprocessingml.document");
+  }
+
+  @Test
+  void requestPdf_existingRendition_returnsDoneJob() {
+    when(documentService.getDocument(DOC_ID)).thenReturn(document);
+    when(documentService.findPdf(document)).thenReturn(Optional.of(new RenditionDTO("renditions/pdf/x.pdf", 1L)));
+    when(jobRepository.save(any(RenditionJobEntity.class))).thenAnswer(inv -> inv.getArgument(0));
+
+    RenditionJobEntity job = jobService.requestPdf(DOC_ID);
+
+    assertEquals(RenditionJobStatus.DONE, job.getStatus());
+    verify(documentService, never()).convertDocument(any());
+  }
+
+  @Test
+  void requestPdf_existingRenditionWithJob_returnsJobWithoutSaving() {
+    RenditionJobEntity done = job(RenditionJobStatus.DONE, 1);
+    when(documentService.getDocument(DOC_ID)).thenReturn(document);
+    when(documentService.findPdf(document)).thenReturn(Optional.of(new RenditionDTO("renditions/pdf/x.pdf", 1L)));
+    when(jobRepository.findFirstByDocumentIdAndStatusInOrderByCreatedDateDesc(
+        DOC_ID, EnumSet.of(RenditionJobStatus.DONE))).thenReturn(Optional.of(done));
+
+    assertEquals(done, jobService.requestPdf(DOC_ID));
+    verify(jobRepository, never()).save(any());
+  }
+
+  @Test
+  void sweep_removesFinishedJobsPastRetention() {
+    jobService.sweep();
+
+    verify(jobRepository).deleteByStatusInAndUpdatedDateBefore(
+        eq(EnumSet.of(RenditionJobStatus.DONE, RenditionJobStatus.FAILED)), any(LocalDateTime.class));
+  }
+
+  @Test
+  void sweep_jobWaitingInExecutor_isNotSubmittedAgain() {
+    List<Runnable> pending = new ArrayList<>();
+    RenditionJobServiceImpl queuing = new RenditionJobServiceImpl(jobRepository, documentService, pending::add,
+        false, MAX_ATTEMPTS, STALE_AFTER, RESUBMIT_AFTER, RETENTION);
+    when(documentService.getDocument(DOC_ID)).thenReturn(document);
+    when(documentService.findPdf(document)).thenReturn(Optional.empty());
+    when(jobRepository.save(any(RenditionJobEntity.class))).thenAnswer(inv -> inv.getArgument(0));
+    RenditionJobEntity queued = queuing.requestPdf(DOC_ID);
+    when(jobRepository.findByStatusAndUpdatedDateBefore(eq(RenditionJobStatus.RUNNING), any(), any()))
+        .thenReturn(List.of());
+    when(jobRepository.findByStatusAndUpdatedDateBefore(eq(RenditionJobStatus.QUEUED), any(), any()))
+        .thenReturn(List.of(queued));
+
+    queuing.sweep();
+    assertEquals(1, pending.size());
+
+    // Once the executor has taken it, a job that is still QUEUED (e.g. requeued) may be submitted again
+    pending.remove(0).run();
+    queuing.sweep();
+    assertEquals(1, pending.size());
+  }
+
+  @Test
+  void sweep_resubmitsOnlyJobsUnchangedForResubmitAfter() {
+    LocalDateTime before = LocalDateTime.now();
+    jobService.sweep();
+
+    ArgumentCaptor<LocalDateTime> cutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+    verify(jobRepository).findByStatusAndUpdatedDateBefore(eq(RenditionJobStatus.QUEUED), cutoff.capture(), any());
+    assertFalse(cutoff.getValue().isAfter(LocalDateTime.now().minus(RESUBMIT_AFTER)));
+    assertFalse(cutoff.getValue().isBefore(before.minus(RESUBMIT_AFTER)));
+  }
+
+  @Test
+  void requestPdf_activeJob_isReused() {
+    RenditionJobEntity running = job(RenditionJobStatus.RUNNING, 1);
+    when(documentService.getDocument(DOC_ID)).thenReturn(document);
+    when(documentService.findPdf(document)).thenReturn(Optional.empty());
+    when(jobRepository.findFirstByDocumentIdAndStatusInOrderByCreatedDateDesc(eq(DOC_ID), any()))
+        .thenReturn(Optional.of(running));
+
+    assertEquals(running, jobService.requestPdf(DOC_ID));
+    verify(jobRepository, never()).save(any());
+  }
+
+  @Test
+  void run_claimedJob_convertsAndFinishes() {
+    RenditionJobEntity job = job(RenditionJobStatus.RUNNING, 0);
+    when(jobRepository.transition(eq(JOB_ID), eq(RenditionJobStatus.QUEUED), eq(RenditionJobStatus.RUNNING), any()))
+        .thenReturn(1);
+    when(jobRepository.findById(JOB_ID)).thenReturn(Optional.of(job));
+    when(documentService.getDocument(DOC_ID)).thenReturn(document);
+
+    jobService.run(JOB_ID);
+
+    verify(documentService).convertDocument(document);
+    assertEquals(RenditionJobStatus.DONE, job.getStatus());
+    assertEquals(1, job.getAttempts());
+  }
+
+  @Test
+  void run_alreadyClaimed_doesNothing() {
+    when(jobRepository.transition(eq(JOB_ID), any(), any(), any())).thenReturn(0);
+
+    jobService.run(JOB_ID);
+
+    verify(jobRepository, never()).findById(anyString());
+    verify(documentService, never()).convertDocument(any());
+  }
+
+  @Test
+  void run_queueFull_requeuesWithoutCountingAttempt() {
+    RenditionJobEntity job = job(RenditionJobStatus.RUNNING, 1);
+    when(jobRepository.transition(eq(JOB_ID), any(), any(), any())).thenReturn(1);
+    when(jobRepository.findById(JOB_ID)).thenReturn(Optional.of(job));
+    when(documentService.getDocument(DOC_ID)).thenReturn(document);
+    when(documentService.convertDocument(document)).thenThrow(new ConversionQueueFullException(RETRY_AFTER_SECONDS));
+
+    jobService.run(JOB_ID);
+
+    assertEquals(RenditionJobStatus.QUEUED, job.getStatus());
+    assertEquals(1, job.getAttempts());
+  }
+
+  @Test
+  void run_lastAttemptFails_marksFailed() {
+    RenditionJobEntity job = job(RenditionJobStatus.RUNNING, MAX_ATTEMPTS - 1);
+    when(jobRepository.transition(eq(JOB_ID), any(), any(), any())).thenReturn(1);
+    when(jobRepository.findById(JOB_ID)).thenReturn(Optional.of(job));
+    when(documentService.getDocument(DOC_ID)).thenReturn(document);
+    when(documentService.convertDocument(document)).thenThrow(new IllegalStateException("office crashed"));
+
+    jobService.run(JOB_ID);
+
+    assertEquals(RenditionJobStatus.FAILED, job.getStatus());
+    assertEquals("office crashed", job.getError());
+  }
+
+  private static RenditionJobEntity job(RenditionJobStatus status, int attempts) {
+    LocalDateTime now = LocalDateTime.now();
+    return new RenditionJobEntity(JOB_ID, DOC_ID, status, attempts, null, now, now);
+  }
+}
@@ -0,0 +1,153 @@
+package com.ase.dms.services;
+
+import com.ase.dms.dtos.RenditionDTO;
+import com.ase.dms.entities.DocumentEntity;
+import com.ase.dms.repositories.DocumentRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RenditionServiceImplTest {
+
+  private static final String HASH = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+  private static final int INDEX_SIZE = 10;
+  private static final long PDF_SIZE = 2048L;
+  private static final Duration INDEX_TTL = Duration.ofMinutes(5);
+
+  @Mock
+  private MinIOService minIOService;
+
+  @Mock
+  private DocumentRepository documentRepository;
+
+  private RenditionServiceImpl renditionService;
+
+  private DocumentEntity document;
+
+  @BeforeEach
+  void setUp() {
+    renditionService = new RenditionServiceImpl(minIOService, documentRepository,
+        new SimpleMeterRegistry(), "4", INDEX_SIZE, INDEX_TTL);
+    document = new DocumentEntity();
+    document.setId("4111b676-474c-4014-a7ee-53fc5cb90127");
+    document.setContentHash(HASH);
+  }
+
+  @Test
+  void pdfKey_usesContentHashAndVersion() {
+    assertEquals("renditions/pdf/" + HASH + "-v4.pdf", renditionService.pdfKey(document));
+  }
+
+  @Test
+  void pdfKey_withoutHash_fallsBackToId() {
+    document.setContentHash(null);
+    assertEquals("renditions/pdf/4111b676-474c-4014-a7ee-53fc5cb90127-v4.pdf", renditionService.pdfKey(document));
+  }
+
+  @Test
+  void findPdf_afterStore_isServedFromIndex(@TempDir Path tempDir) throws IOException {
+    Path pdf = Files.write(tempDir.resolve("rendition.pdf"), new byte[(int) PDF_SIZE]);
+    renditionService.storePdf(document, pdf);
+
+    Optional<RenditionDTO> result = renditionService.findPdf(document);
+
+    assertTrue(result.isPresent());
+    assertEquals(PDF_SIZE, result.get().getSize());
+    verify(minIOService).setObject(eq(renditionService.pdfKey(document)), any(InputStream.class),
+        eq(PDF_SIZE), eq("application/pdf"));
+    verify(minIOService, never()).findObjectSize(anyString());
+  }
+
+  @Test
+  void findPdf_indexMiss_checksStorage() {
+    when(minIOService.findObjectSize(renditionService.pdfKey(document))).thenReturn(Optional.of(PDF_SIZE));
+
+    assertTrue(renditionService.findPdf(document).isPresent());
+    assertTrue(renditionService.findPdf(document).isPresent());
+
+    verify(minIOService).findObjectSize(anyString());
+  }
+
+  @Test
+  void findPdf_expiredIndexEntry_checksStorageAgain(@TempDir Path tempDir) throws IOException {
+    renditionService = new RenditionServiceImpl(minIOService, documentRepository,
+        new SimpleMeterRegistry(), "4", INDEX_SIZE, Duration.ZERO);
+    renditionService.storePdf(document, Files.write(tempDir.resolve("rendition.pdf"), new byte[(int) PDF_SIZE]));
+    // Removed by another pod after the last other document with this content was deleted
+    when(minIOService.findObjectSize(renditionService.pdfKey(document))).thenReturn(Optional.empty());
+
+    assertTrue(renditionService.findPdf(document).isEmpty());
+  }
+
+  @Test
+  void forgetPdf_nextLookupChecksStorage() {
+    when(minIOService.findObjectSize(renditionService.pdfKey(document)))
+        .thenReturn(Optional.of(PDF_SIZE))
+        .thenReturn(Optional.empty());
+    renditionService.findPdf(document);
+
+    renditionService.forgetPdf(document);
+
+    assertTrue(renditionService.findPdf(document).isEmpty());
+  }
+
+  @Test
+  void getOrCreatePdf_stored_doesNotConvert() {
+    when(minIOService.findObjectSize(renditionService.pdfKey(document))).thenReturn(Optional.of(PDF_SIZE));
+
+    RenditionDTO result = renditionService.getOrCreatePdf(document, () -> {
+      throw new AssertionError("must not convert");
+    });
+
+    assertEquals(PDF_SIZE, result.getSize());
+  }
+
+  @Test
+  void getOrCreatePdf_missing_convertsOnce() {
+    when(minIOService.findObjectSize(renditionService.pdfKey(document))).thenReturn(Optional.empty());
+    RenditionDTO converted = new RenditionDTO(renditionService.pdfKey(document), PDF_SIZE);
+
+    RenditionDTO result = renditionService.getOrCreatePdf(document, () -> converted);
+
+    assertEquals(converted, result);
+  }
+
+  @Test
+  void releasePdfs_returnsOnlyUnreferencedRenditions() {
+    Map<String, String> deleted = new LinkedHashMap<>();
+    deleted.put("d1", HASH);
+    deleted.put("d2", "shared");
+    deleted.put("d3", null);
+    when(documentRepository.findReferencedContentHashes(any())).thenReturn(List.of("shared"));
+
+    Set<String> released = renditionService.releasePdfs(deleted);
+
+    assertEquals(Set.of("renditions/pdf/" + HASH + "-v4.pdf", "renditions/pdf/d3-v4.pdf"), released);
+    verify(minIOService, never()).deleteObject(anyString());
+  }
+}
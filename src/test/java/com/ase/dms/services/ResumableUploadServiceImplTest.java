@@ -0,0 +1,203 @@
+package com.ase.dms.services;
+
+import com.ase.dms.entities.UploadSessionEntity;
+import com.ase.dms.exceptions.DmsException;
+import com.ase.dms.exceptions.DocumentUploadException;
+import com.ase.dms.exceptions.ErrorCodes;
+import com.ase.dms.helpers.ResumableSha256;
+import com.ase.dms.repositories.UploadSessionRepository;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.unit.DataSize;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ResumableUploadServiceImplTest {
+
+  private static final String UPLOAD_ID = "4111b676-474c-4014-a7ee-53fc5cb90127";
+  private static final String STORAGE_KEY = "5d7a2c1e-0f3b-4a8e-9c61-2b0f5e7d9a14";
+  private static final String TAIL_KEY = "9e0b1f4c-6a2d-4c7e-8b35-1d2f3a4b5c6d";
+  private static final String MULTIPART_ID = "multipart-1";
+  private static final DataSize PART_SIZE = DataSize.ofMegabytes(5);
+  private static final int PART = (int) PART_SIZE.toBytes();
+  private static final int FILE_SIZE = 2 * PART + 1;
+  private static final int TAIL = 100;
+  private static final int LAST_PART = 3;
+  private static final byte[] FILE = content();
+
+  @Mock
+  private UploadSessionService uploadSessionService;
+
+  @Mock
+  private UploadSessionRepository sessionRepository;
+
+  @Mock
+  private MinIOService minIOService;
+
+  @Mock
+  private StorageCleanupService storageCleanup;
+
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
+  private ResumableUploadServiceImpl resumableUploadService;
+
+  @BeforeEach
+  void setUp() {
+    resumableUploadService = new ResumableUploadServiceImpl(uploadSessionService, sessionRepository, minIOService,
+        storageCleanup, transactionManager, Duration.ofHours(1), PART_SIZE);
+  }
+
+  @Test
+  void appendChunk_storesPartsWhileReadingAndKeepsTheRestAsTail() throws Exception {
+    UploadSessionEntity upload = upload(0);
+    when(uploadSessionService.getSession(UPLOAD_ID)).thenReturn(upload);
+    when(minIOService.uploadPart(eq(STORAGE_KEY), eq(MULTIPART_ID), eq(1), any(Path.class))).thenReturn("etag-1");
+    when(sessionRepository.save(upload)).thenReturn(upload);
+
+    UploadSessionEntity result = resumableUploadService.appendChunk(UPLOAD_ID, 0, stream(0, PART + TAIL));
+
+    assertEquals(PART + TAIL, result.getReceivedBytes());
+    assertEquals(List.of("etag-1"), result.getPartEtags());
+    assertNotNull(result.getTailObject());
+    verify(minIOService).setObject(eq(result.getTailObject()), any(InputStream.class), eq((long) TAIL), isNull());
+    assertEquals(sha256(PART + TAIL), ResumableSha256.restore(result.getHashState()).hexDigest());
+    verify(uploadSessionService, never()).finishSession(anyString(), anyString(), anyLong(), anyString());
+  }
+
+  @Test
+  void appendChunk_interrupted_keepsReceivedBytes() {
+    UploadSessionEntity upload = upload(0);
+    when(uploadSessionService.getSession(UPLOAD_ID)).thenReturn(upload);
+    when(sessionRepository.save(upload)).thenReturn(upload);
+    InputStream broken = new InputStream() {
+      private final InputStream data = stream(0, TAIL);
+
+      @Override
+      public int read() throws IOException {
+        return data.read();
+      }
+
+      @Override
+      public int read(byte[] buffer, int offset, int length) throws IOException {
+        int read = data.read(buffer, offset, length);
+        if (read == -1) {
+          throw new IOException("Connection reset");
+        }
+        return read;
+      }
+    };
+
+    assertThrows(DocumentUploadException.class, () -> resumableUploadService.appendChunk(UPLOAD_ID, 0, broken));
+
+    assertEquals(TAIL, upload.getReceivedBytes());
+    verify(minIOService).setObject(eq(upload.getTailObject()), any(InputStream.class), eq((long) TAIL), isNull());
+  }
+
+  @Test
+  void appendChunk_wrongOffset_isRejected() {
+    when(uploadSessionService.getSession(UPLOAD_ID)).thenReturn(upload(PART));
+
+    DmsException e = assertThrows(DmsException.class,
+        () -> resumableUploadService.appendChunk(UPLOAD_ID, 0, stream(0, PART)));
+
+    assertEquals(ErrorCodes.DOC_UPLOAD_OFFSET_MISMATCH, e.getErrorCode());
+    verify(minIOService, never()).uploadPart(anyString(), anyString(), anyInt(), any());
+  }
+
+  @Test
+  void appendChunk_lastChunk_continuesTailAndCompletesWithoutRereading() throws Exception {
+    int received = 2 * PART - TAIL;
+    UploadSessionEntity upload = upload(received);
+    upload.getPartEtags().add("etag-1");
+    upload.setTailObject(TAIL_KEY);
+    ResumableSha256 sha = new ResumableSha256();
+    sha.update(FILE, 0, received);
+    upload.setHashState(sha.saveState());
+    when(uploadSessionService.getSession(UPLOAD_ID)).thenReturn(upload);
+    when(minIOService.openObject(TAIL_KEY, 0, null)).thenReturn(stream(PART, received));
+    when(minIOService.uploadPart(eq(STORAGE_KEY), eq(MULTIPART_ID), anyInt(), any(Path.class)))
+        .thenAnswer(invocation -> "etag-" + invocation.getArgument(2));
+    when(sessionRepository.save(upload)).thenReturn(upload);
+    when(minIOService.findObjectSize(STORAGE_KEY)).thenReturn(Optional.empty());
+
+    resumableUploadService.appendChunk(UPLOAD_ID, received, stream(received, FILE_SIZE));
+
+    verify(minIOService).uploadPart(eq(STORAGE_KEY), eq(MULTIPART_ID), eq(LAST_PART), any(Path.class));
+    verify(minIOService).completeMultipartUpload(STORAGE_KEY, MULTIPART_ID, List.of("etag-1", "etag-2", "etag-3"));
+    verify(storageCleanup).enqueue(List.of(TAIL_KEY));
+    verify(uploadSessionService).finishSession(UPLOAD_ID, STORAGE_KEY, FILE_SIZE, sha256(FILE_SIZE));
+    verify(minIOService, never()).openObject(eq(STORAGE_KEY), anyLong(), any());
+    assertNull(upload.getTailObject());
+  }
+
+  @Test
+  void terminateUpload_abortsMultipartUploadAndDiscardsTail() {
+    UploadSessionEntity upload = upload(TAIL);
+    upload.setTailObject(TAIL_KEY);
+    when(uploadSessionService.getSession(UPLOAD_ID)).thenReturn(upload);
+
+    resumableUploadService.terminateUpload(UPLOAD_ID);
+
+    verify(minIOService).abortMultipartUpload(STORAGE_KEY, MULTIPART_ID);
+    verify(storageCleanup).enqueue(List.of(STORAGE_KEY, TAIL_KEY));
+    verify(sessionRepository).delete(upload);
+  }
+
+  private static byte[] content() {
+    byte[] data = new byte[FILE_SIZE];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte) i;
+    }
+    return data;
+  }
+
+  private static ByteArrayInputStream stream(int from, int to) {
+    return new ByteArrayInputStream(Arrays.copyOfRange(FILE, from, to));
+  }
+
+  private static String sha256(int length) throws Exception {
+    MessageDigest digest = MessageDigest.getInstance("SHA-256");
+    digest.update(FILE, 0, length);
+    return HexFormat.of().formatHex(digest.digest());
+  }
+
+  private static UploadSessionEntity upload(long receivedBytes) {
+    UploadSessionEntity upload = new UploadSessionEntity();
+    upload.setId(UPLOAD_ID);
+    upload.setSize(FILE_SIZE);
+    upload.setStorageKey(STORAGE_KEY);
+    upload.setMultipartUploadId(MULTIPART_ID);
+    upload.setReceivedBytes(receivedBytes);
+    upload.setExpiresAt(LocalDateTime.now().plusHours(1));
+    return upload;
+  }
+}
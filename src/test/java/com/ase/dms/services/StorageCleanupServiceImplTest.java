@@ -0,0 +1,80 @@
+package com.ase.dms.services;
+
+import com.ase.dms.entities.StorageDeletionEntity;
+import com.ase.dms.repositories.StorageDeletionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class StorageCleanupServiceImplTest {
+
+  private static final int BATCH_SIZE = 2;
+  private static final Duration INITIAL_BACKOFF = Duration.ofSeconds(10);
+  private static final Duration MAX_BACKOFF = Duration.ofMinutes(5);
+
+  @Mock
+  private StorageDeletionRepository deletionRepository;
+
+  @Mock
+  private MinIOService minIOService;
+
+  private StorageCleanupServiceImpl cleanupService;
+
+  @BeforeEach
+  void setUp() {
+    cleanupService = new StorageCleanupServiceImpl(deletionRepository, minIOService, new SimpleMeterRegistry(),
+        BATCH_SIZE, INITIAL_BACKOFF, MAX_BACKOFF);
+  }
+
+  @Test
+  void drain_removesSucceededAndReschedulesFailed() {
+    StorageDeletionEntity ok = entry(1L, "doc-1");
+    StorageDeletionEntity broken = entry(2L, "doc-2");
+    when(deletionRepository.findByNextAttemptAtLessThanEqualOrderByIdAsc(any(), any()))
+        .thenReturn(List.of(ok, broken), List.of());
+    when(minIOService.deleteObjects(Set.of("doc-1", "doc-2"))).thenReturn(List.of("doc-2"));
+
+    int processed = cleanupService.drain();
+
+    assertEquals(BATCH_SIZE, processed);
+    verify(deletionRepository).deleteAllInBatch(List.of(ok));
+    verify(deletionRepository).saveAll(List.of(broken));
+    assertEquals(1, broken.getAttempts());
+    assertTrue(broken.getNextAttemptAt().isAfter(LocalDateTime.now().plus(INITIAL_BACKOFF).minusSeconds(1)));
+  }
+
+  @Test
+  void drain_nothingDue_doesNotCallStorage() {
+    when(deletionRepository.findByNextAttemptAtLessThanEqualOrderByIdAsc(any(), any())).thenReturn(List.of());
+
+    assertEquals(0, cleanupService.drain());
+    verify(minIOService, never()).deleteObjects(any());
+  }
+
+  @Test
+  void backoff_doublesUpToMaximum() {
+    assertEquals(INITIAL_BACKOFF, cleanupService.backoff(1));
+    assertEquals(INITIAL_BACKOFF.multipliedBy(4), cleanupService.backoff(3));
+    assertEquals(MAX_BACKOFF, cleanupService.backoff(50));
+  }
+
+  private static StorageDeletionEntity entry(long id, String objectName) {
+    LocalDateTime now = LocalDateTime.now();
+    return new StorageDeletionEntity(id, objectName, 0, now, now);
+  }
+}
@@ -0,0 +1,112 @@
+package com.ase.dms.services;
+
+import com.ase.dms.dtos.ReconciliationReportDTO;
+import com.ase.dms.dtos.StoredObjectDTO;
+import com.ase.dms.entities.ReconciliationCheckpointEntity;
+import com.ase.dms.repositories.DocumentRepository;
+import com.ase.dms.repositories.ReconciliationCheckpointRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class StorageReconciliationServiceImplTest {
+
+  private static final int PAGE_SIZE = 2;
+  private static final Duration GRACE = Duration.ofHours(1);
+
+  @Mock
+  private DocumentRepository documentRepository;
+
+  @Mock
+  private ReconciliationCheckpointRepository checkpointRepository;
+
+  @Mock
+  private MinIOService minIOService;
+
+  @Mock
+  private StorageCleanupService storageCleanup;
+
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
+  @Test
+  void reconcile_fullPass_reportsOrphansAndMissingAndResetsCursor() {
+    ZonedDateTime old = ZonedDateTime.now().minusDays(1);
+    when(checkpointRepository.findById("documents")).thenReturn(Optional.empty());
+    when(minIOService.listObjects("", PAGE_SIZE)).thenReturn(List.of(object("a", old), object("b", old)));
+    when(minIOService.listObjects("b", PAGE_SIZE)).thenReturn(List.of(object("d", old)));
+    when(documentRepository.findObjectKeysAfter(eq(""), any(Pageable.class))).thenReturn(List.of("a", "c"));
+    when(documentRepository.findObjectKeysAfter(eq("c"), any(Pageable.class))).thenReturn(List.of("d"));
+
+    ReconciliationReportDTO report = service(true, 100).reconcile();
+
+    assertEquals(List.of("b"), report.getOrphanObjects());
+    assertEquals(List.of("c"), report.getMissingObjects());
+    assertTrue(report.isPassCompleted());
+    verify(storageCleanup).enqueue(List.of("b"));
+    verify(checkpointRepository).save(any(ReconciliationCheckpointEntity.class));
+  }
+
+  @Test
+  void reconcile_keyLimit_storesCursorForNextRun() {
+    ZonedDateTime old = ZonedDateTime.now().minusDays(1);
+    ReconciliationCheckpointEntity checkpoint = checkpoint("a");
+    when(checkpointRepository.findById("documents")).thenReturn(Optional.of(checkpoint));
+    when(minIOService.listObjects("a", PAGE_SIZE)).thenReturn(List.of(object("b", old), object("c", old)));
+    when(documentRepository.findObjectKeysAfter(eq("a"), any(Pageable.class))).thenReturn(List.of("b", "c"));
+
+    ReconciliationReportDTO report = service(false, 1).reconcile();
+
+    assertFalse(report.isPassCompleted());
+    assertEquals("b", checkpoint.getCursor());
+    assertEquals(1, checkpoint.getScanned());
+  }
+
+  @Test
+  void reconcile_recentObject_isNotAnOrphan() {
+    when(checkpointRepository.findById("documents")).thenReturn(Optional.of(checkpoint("")));
+    when(minIOService.listObjects("", PAGE_SIZE)).thenReturn(List.of(object("fresh", ZonedDateTime.now())));
+    when(documentRepository.findObjectKeysAfter(eq(""), any(Pageable.class))).thenReturn(List.of());
+
+    ReconciliationReportDTO report = service(true, 100).reconcile();
+
+    assertTrue(report.getOrphanObjects().isEmpty());
+    verify(storageCleanup, never()).enqueue(anyList());
+  }
+
+  private StorageReconciliationServiceImpl service(boolean deleteOrphans, int keysPerRun) {
+    return new StorageReconciliationServiceImpl(documentRepository, checkpointRepository, minIOService,
+        storageCleanup, transactionManager, new SimpleMeterRegistry(), true, deleteOrphans, PAGE_SIZE,
+        keysPerRun, GRACE);
+  }
+
+  private static StoredObjectDTO object(String name, ZonedDateTime lastModified) {
+    return new StoredObjectDTO(name, 1L, lastModified);
+  }
+
+  private static ReconciliationCheckpointEntity checkpoint(String cursor) {
+    ReconciliationCheckpointEntity checkpoint = new ReconciliationCheckpointEntity();
+    checkpoint.setName("documents");
+    checkpoint.setCursor(cursor);
+    return checkpoint;
+  }
+}
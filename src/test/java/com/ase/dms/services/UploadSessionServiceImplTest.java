@@ -0,0 +1,222 @@
+package com.ase.dms.services;
+
+import com.ase.dms.dtos.UploadSessionDTO;
+import com.ase.dms.dtos.UploadSessionRequestDTO;
+import com.ase.dms.entities.BlobEntity;
+import com.ase.dms.entities.DocumentEntity;
+import com.ase.dms.entities.FolderEntity;
+import com.ase.dms.entities.UploadSessionEntity;
+import com.ase.dms.exceptions.DmsException;
+import com.ase.dms.exceptions.ErrorCodes;
+import com.ase.dms.exceptions.UploadSessionNotFoundException;
+import com.ase.dms.repositories.FolderRepository;
+import com.ase.dms.repositories.UploadSessionRepository;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.unit.DataSize;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UploadSessionServiceImplTest {
+
+  private static final String SESSION_ID = "4111b676-474c-4014-a7ee-53fc5cb90127";
+  private static final String FOLDER_ID = "03d3d491-1fa7-437f-b617-698a4d4c9d84";
+  private static final String STORAGE_KEY = "5d7a2c1e-0f3b-4a8e-9c61-2b0f5e7d9a14";
+  private static final String HASH = "7cffcba569dbf9843db07d7e186fdab5c8b059276026106ba80cf85b2f5959a2";
+  private static final long SIZE = 524_288_000L;
+  private static final Duration EXPIRY = Duration.ofHours(1);
+  private static final DataSize MAX_SIZE = DataSize.ofGigabytes(5);
+
+  @Mock
+  private UploadSessionRepository sessionRepository;
+
+  @Mock
+  private FolderRepository folderRepository;
+
+  @Mock
+  private DocumentService documentService;
+
+  @Mock
+  private BlobService blobService;
+
+  @Mock
+  private MinIOService minIOService;
+
+  @Mock
+  private StorageCleanupService storageCleanup;
+
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
+  private UploadSessionServiceImpl uploadSessionService;
+
+  @BeforeEach
+  void setUp() {
+    uploadSessionService = new UploadSessionServiceImpl(sessionRepository, folderRepository, documentService,
+        blobService, minIOService, storageCleanup, transactionManager, EXPIRY, MAX_SIZE);
+  }
+
+  @Test
+  void openSession_returnsPresignedUrl() {
+    when(folderRepository.existsById(FOLDER_ID)).thenReturn(true);
+    when(documentService.resolveTags(null)).thenReturn(List.of());
+    when(sessionRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+    when(minIOService.presignUpload(anyString(), eq(EXPIRY))).thenReturn("https://minio/upload");
+
+    UploadSessionDTO dto = uploadSessionService.openSession(
+        new UploadSessionRequestDTO(FOLDER_ID, "vorlesung.mp4", "video/mp4", SIZE, null, null));
+
+    assertEquals("PUT", dto.getMethod());
+    assertEquals("https://minio/upload", dto.getUploadUrl());
+  }
+
+  @Test
+  void openSession_tooLarge_isRejected() {
+    when(folderRepository.existsById(FOLDER_ID)).thenReturn(true);
+
+    DmsException e = assertThrows(DmsException.class, () -> uploadSessionService.openSession(
+        new UploadSessionRequestDTO(FOLDER_ID, "big.iso", null, MAX_SIZE.toBytes() + 1, null, null)));
+
+    assertEquals(ErrorCodes.DOC_SIZE_EXCEEDED, e.getErrorCode());
+    verify(sessionRepository, never()).save(any());
+  }
+
+  @Test
+  void completeSession_adoptsCopyAndDiscardsUploadKey() throws Exception {
+    UploadSessionEntity session = session(null);
+    FolderEntity folder = new FolderEntity();
+    DocumentEntity document = new DocumentEntity();
+    when(sessionRepository.findById(SESSION_ID)).thenReturn(Optional.of(session));
+    when(minIOService.findObjectSize(anyString())).thenReturn(Optional.of(SIZE));
+    when(blobService.hash(any())).thenReturn(HASH);
+    when(folderRepository.findById(FOLDER_ID)).thenReturn(Optional.of(folder));
+    when(documentService.resolveTags(any())).thenReturn(List.of());
+    when(blobService.adopt(eq(HASH), anyString(), eq(SIZE)))
+        .thenAnswer(inv -> new BlobEntity(HASH, inv.getArgument(1), SIZE, 1, LocalDateTime.now()));
+    when(documentService.registerDocument(eq(SESSION_ID), eq(folder), eq("vorlesung.mp4"), eq("video/mp4"),
+        eq(List.of()), any())).thenReturn(document);
+
+    assertEquals(document, uploadSessionService.completeSession(SESSION_ID));
+
+    String contentKey = copiedKey();
+    assertNotEquals(STORAGE_KEY, contentKey);
+    verify(blobService).adopt(HASH, contentKey, SIZE);
+    verify(storageCleanup).enqueue(List.of(STORAGE_KEY));
+    verify(sessionRepository).delete(session);
+  }
+
+  @Test
+  void completeSession_knownContent_discardsBothObjects() throws Exception {
+    UploadSessionEntity session = session(null);
+    BlobEntity existing = new BlobEntity(HASH, "older-object", SIZE, 2, LocalDateTime.now());
+    when(sessionRepository.findById(SESSION_ID)).thenReturn(Optional.of(session));
+    when(minIOService.findObjectSize(anyString())).thenReturn(Optional.of(SIZE));
+    when(blobService.hash(any())).thenReturn(HASH);
+    when(folderRepository.findById(FOLDER_ID)).thenReturn(Optional.of(new FolderEntity()));
+    when(documentService.resolveTags(any())).thenReturn(List.of());
+    when(blobService.adopt(eq(HASH), anyString(), eq(SIZE))).thenReturn(existing);
+
+    uploadSessionService.completeSession(SESSION_ID);
+
+    String contentKey = copiedKey();
+    verify(storageCleanup).enqueue(List.of(contentKey, STORAGE_KEY));
+  }
+
+  @Test
+  void completeSession_sizeMismatch_deletesCopyAndKeepsSessionOpen() {
+    when(sessionRepository.findById(SESSION_ID)).thenReturn(Optional.of(session(null)));
+    // The object changed between the upload and the copy
+    when(minIOService.findObjectSize(anyString()))
+        .thenAnswer(inv -> Optional.of(STORAGE_KEY.equals(inv.getArgument(0)) ? SIZE : SIZE - 1));
+
+    DmsException e = assertThrows(DmsException.class, () -> uploadSessionService.completeSession(SESSION_ID));
+
+    assertEquals(ErrorCodes.DOC_UPLOAD_INCOMPLETE, e.getErrorCode());
+    String contentKey = copiedKey();
+    verify(minIOService).deleteObject(contentKey);
+    verify(sessionRepository, never()).delete(any());
+  }
+
+  @Test
+  void completeSession_checksumMismatch_isRejected() throws Exception {
+    when(sessionRepository.findById(SESSION_ID)).thenReturn(Optional.of(session("0".repeat(HASH.length()))));
+    when(minIOService.findObjectSize(anyString())).thenReturn(Optional.of(SIZE));
+    when(blobService.hash(any())).thenReturn(HASH);
+
+    DmsException e = assertThrows(DmsException.class, () -> uploadSessionService.completeSession(SESSION_ID));
+
+    assertEquals(ErrorCodes.DOC_UPLOAD_INCOMPLETE, e.getErrorCode());
+    String contentKey = copiedKey();
+    verify(minIOService).deleteObject(contentKey);
+    verify(documentService, never()).registerDocument(any(), any(), any(), any(), any(), any());
+  }
+
+  @Test
+  void completeSession_expired_isNotFound() {
+    UploadSessionEntity session = session(null);
+    session.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+    when(sessionRepository.findById(SESSION_ID)).thenReturn(Optional.of(session));
+
+    assertThrows(UploadSessionNotFoundException.class, () -> uploadSessionService.completeSession(SESSION_ID));
+  }
+
+  @Test
+  void expireSessions_abortsUnfinishedResumableUploads() {
+    UploadSessionEntity session = session(null);
+    session.setMultipartUploadId("upload-1");
+    when(sessionRepository.findByExpiresAtBefore(any(), any())).thenReturn(List.of(session));
+
+    uploadSessionService.expireSessions();
+
+    verify(minIOService).abortMultipartUpload(STORAGE_KEY, "upload-1");
+  }
+
+  @Test
+  void expireSessions_enqueuesUploadedObjects() {
+    UploadSessionEntity session = session(null);
+    when(sessionRepository.findByExpiresAtBefore(any(), any())).thenReturn(List.of(session));
+
+    uploadSessionService.expireSessions();
+
+    verify(storageCleanup).enqueue(List.of(STORAGE_KEY));
+    verify(sessionRepository).deleteAll(List.of(session));
+  }
+
+  private String copiedKey() {
+    ArgumentCaptor<String> target = ArgumentCaptor.forClass(String.class);
+    verify(minIOService).copyObject(eq(STORAGE_KEY), target.capture());
+    return target.getValue();
+  }
+
+  private static UploadSessionEntity session(String sha256) {
+    UploadSessionEntity session = new UploadSessionEntity();
+    session.setId(SESSION_ID);
+    session.setFolderId(FOLDER_ID);
+    session.setFileName("vorlesung.mp4");
+    session.setContentType("video/mp4");
+    session.setSize(SIZE);
+    session.setSha256(sha256);
+    session.setStorageKey(STORAGE_KEY);
+    session.setCreatedDate(LocalDateTime.now());
+    session.setExpiresAt(LocalDateTime.now().plus(EXPIRY));
+    return session;
+  }
+}
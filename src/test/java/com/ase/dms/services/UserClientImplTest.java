@@ -0,0 +1,129 @@
+package com.ase.dms.services;
+
+import com.ase.dms.config.UserServiceConfig;
+import com.ase.dms.dtos.UserInfoDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Optional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserClientImplTest {
+
+  private static final String USER_ID = "0b540a6e-988d-484a-9247-9e3a2f237438";
+  private static final String BASE_URL = "http://users";
+  private static final String USER_URL = BASE_URL + "/v1/users/" + USER_ID;
+  private static final int FAILURE_THRESHOLD = 3;
+
+  @Mock
+  private RestTemplate restTemplate;
+
+  @BeforeEach
+  void setUp() {
+    Jwt jwt = Jwt.withTokenValue("token")
+        .header("alg", "none")
+        .subject(USER_ID)
+        .claim("cohort", "BIN-T23-F1")
+        .build();
+    SecurityContextHolder.getContext().setAuthentication(new JwtAuthenticationToken(jwt));
+  }
+
+  @AfterEach
+  void clearSecurityContext() {
+    SecurityContextHolder.clearContext();
+  }
+
+  @Test
+  void fetchCurrentUser_freshEntry_callsUserServiceOnce() {
+    when(restTemplate.getForEntity(USER_URL, UserInfoDTO.class)).thenReturn(ResponseEntity.ok(user("BIN-T23-F4")));
+    UserClientImpl client = client("", Duration.ofMinutes(5));
+
+    client.fetchCurrentUser();
+    Optional<UserInfoDTO> result = client.fetchCurrentUser();
+
+    assertEquals("BIN-T23-F4", result.orElseThrow().getCohort());
+    verify(restTemplate, times(1)).getForEntity(USER_URL, UserInfoDTO.class);
+  }
+
+  @Test
+  void fetchCurrentUser_staleEntry_isServedAndRefreshed() {
+    when(restTemplate.getForEntity(USER_URL, UserInfoDTO.class))
+        .thenReturn(ResponseEntity.ok(user("BIN-T23-F4")), ResponseEntity.ok(user("BIN-T23-F1")));
+    UserClientImpl client = client("", Duration.ZERO);
+
+    client.fetchCurrentUser();
+    // Refresh runs on the calling thread here, so the stale answer is replaced right away
+    assertEquals("BIN-T23-F4", client.fetchCurrentUser().orElseThrow().getCohort());
+    assertEquals("BIN-T23-F1", client.fetchCurrentUser().orElseThrow().getCohort());
+  }
+
+  @Test
+  void fetchCurrentUser_failure_keepsLastKnownUser() {
+    when(restTemplate.getForEntity(USER_URL, UserInfoDTO.class))
+        .thenReturn(ResponseEntity.ok(user("BIN-T23-F4")))
+        .thenThrow(new ResourceAccessException("connection refused"));
+    UserClientImpl client = client("", Duration.ZERO);
+
+    client.fetchCurrentUser();
+
+    assertEquals("BIN-T23-F4", client.fetchCurrentUser().orElseThrow().getCohort());
+    assertEquals("BIN-T23-F4", client.fetchCurrentUser().orElseThrow().getCohort());
+  }
+
+  @Test
+  void fetchCurrentUser_cohortClaim_skipsUserService() {
+    Optional<UserInfoDTO> result = client("cohort", Duration.ofMinutes(5)).fetchCurrentUser();
+
+    assertEquals("BIN-T23-F1", result.orElseThrow().getCohort());
+    verify(restTemplate, never()).getForEntity(anyString(), eq(UserInfoDTO.class));
+  }
+
+  @Test
+  void fetchCurrentUser_circuitOpen_skipsUserService() {
+    when(restTemplate.getForEntity(USER_URL, UserInfoDTO.class))
+        .thenThrow(new ResourceAccessException("read timed out"));
+    UserClientImpl client = client("", Duration.ofMinutes(5));
+
+    for (int i = 0; i < FAILURE_THRESHOLD + 2; i++) {
+      assertTrue(client.fetchCurrentUser().isEmpty());
+    }
+
+    verify(restTemplate, times(FAILURE_THRESHOLD)).getForEntity(USER_URL, UserInfoDTO.class);
+  }
+
+  private UserClientImpl client(String cohortClaim, Duration ttl) {
+    UserServiceConfig config = new UserServiceConfig();
+    config.setBaseUrl(BASE_URL);
+    config.setCohortClaim(cohortClaim);
+    config.getCache().setTtl(ttl);
+    config.getCircuit().setFailureThreshold(FAILURE_THRESHOLD);
+    return new UserClientImpl(restTemplate, Runnable::run, new SimpleMeterRegistry(), config);
+  }
+
+  private static UserInfoDTO user(String cohort) {
+    UserInfoDTO user = new UserInfoDTO();
+    user.setId(USER_ID);
+    user.setCohort(cohort);
+    return user;
+  }
+}